@@ -0,0 +1,85 @@
+package com.dev.plateforme_de_dons.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+@EnableAsync
+@Slf4j
+public class AsyncConfig {
+
+    // File bornée : au-delà, l'événement est abandonné et le balayage périodique le rattrapera
+    @Bean
+    public ThreadPoolTaskExecutor alertExecutor(
+            @Value("${app.alerts.threads:2}") int threads,
+            @Value("${app.alerts.queue-capacity:1000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("alerts-");
+        executor.setRejectedExecutionHandler((task, pool) ->
+                log.warn("Alert queue full ({} tasks), event dropped until the next catch-up pass", pool.getQueue().size()));
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        return executor;
+    }
+
+    // Génération des déclinaisons d'images : peu de threads, le décodage est gourmand en CPU et mémoire.
+    // Une image refusée garde l'original jusqu'au prochain rattrapage (backfill-on-startup).
+    @Bean
+    public ThreadPoolTaskExecutor imageExecutor(
+            @Value("${app.images.variants.threads:2}") int threads,
+            @Value("${app.images.variants.queue-capacity:500}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("images-");
+        executor.setRejectedExecutionHandler((task, pool) ->
+                log.warn("Image variant queue full ({} tasks), variants deferred to the next backfill", pool.getQueue().size()));
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        return executor;
+    }
+
+    // Lecture, contrôle et hachage des fichiers d'un formulaire en parallèle.
+    // Pool saturé : le thread de la requête prépare lui-même le fichier, rien n'est perdu.
+    @Bean
+    public ThreadPoolTaskExecutor uploadExecutor(
+            @Value("${app.images.upload.threads:4}") int threads,
+            @Value("${app.images.upload.queue-capacity:50}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("uploads-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        return executor;
+    }
+
+    // Hachage bcrypt (connexion, inscription) : pool à part pour ne pas affamer les threads Tomcat.
+    // Pas de CallerRunsPolicy ici : une file pleine doit refuser (AbortPolicy) pour répondre 503.
+    @Bean
+    public ThreadPoolTaskExecutor passwordExecutor(
+            @Value("${app.security.password.threads:2}") int threads,
+            @Value("${app.security.password.queue-capacity:50}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("passwords-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        return executor;
+    }
+}
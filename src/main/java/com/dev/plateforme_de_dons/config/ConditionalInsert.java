@@ -0,0 +1,42 @@
+package com.dev.plateforme_de_dons.config;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+
+// INSERT ... WHERE NOT EXISTS sur la connexion de la transaction en cours, derrière un point de
+// sauvegarde (le dialecte JPA ne gère pas PROPAGATION_NESTED). Quand une transaction concurrente
+// crée la même clé au même moment, seule l'insertion est annulée : l'appelant relit alors la ligne
+// sous verrou. Hibernate n'est pas impliqué, sa session reste utilisable après un doublon.
+public final class ConditionalInsert {
+
+    private ConditionalInsert() {
+    }
+
+    // Vrai si la ligne a été créée par cet appel
+    public static boolean execute(JdbcTemplate jdbcTemplate, String sql, Object... args) {
+        try {
+            Integer inserted = jdbcTemplate.execute((ConnectionCallback<Integer>) connection -> {
+                Savepoint savepoint = connection.setSavepoint();
+                try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                    for (int i = 0; i < args.length; i++) {
+                        statement.setObject(i + 1, args[i]);
+                    }
+                    int count = statement.executeUpdate();
+                    connection.releaseSavepoint(savepoint);
+                    return count;
+                } catch (SQLException e) {
+                    connection.rollback(savepoint);
+                    throw e;
+                }
+            });
+            return inserted != null && inserted > 0;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.dev.plateforme_de_dons.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Injecte l'utilisateur connecté (entité User) dans un paramètre de contrôleur.
+// required = false : null pour un visiteur anonyme au lieu d'une réponse 401.
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CurrentUser {
+
+    boolean required() default true;
+}
@@ -1,6 +1,10 @@
 package com.dev.plateforme_de_dons.config;
 
+import com.dev.plateforme_de_dons.service.FavoriteService;
+import com.dev.plateforme_de_dons.service.KeywordService;
+import com.dev.plateforme_de_dons.service.NotificationStreamRegistry;
 import com.dev.plateforme_de_dons.service.SavedSearchService;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Configuration;
@@ -14,14 +18,61 @@ import org.springframework.scheduling.annotation.Scheduled;
 public class SchedulingConfig {
 
     private final SavedSearchService savedSearchService;
+    private final FavoriteService favoriteService;
+    private final KeywordService keywordService;
+    private final NotificationStreamRegistry notificationStreamRegistry;
 
-    @Scheduled(fixedRate = 300000) // Every 5 minutes
+    // Filet de sécurité : les alertes partent à chaud via SavedSearchAlertListener
+    @Scheduled(fixedDelayString = "${app.alerts.catch-up-interval-ms:900000}")
     public void checkNewAnnoncesForSavedSearches() {
-        log.debug("Checking for new annonces matching saved searches...");
+        log.debug("Catching up on annonces missed by saved search alerts...");
         try {
             savedSearchService.checkAndNotifyNewAnnonces();
         } catch (Exception e) {
             log.error("Error checking for new annonces: {}", e.getMessage(), e);
         }
     }
+
+    @Scheduled(fixedDelayString = "${app.favorites.flush-interval-ms:5000}")
+    public void flushFavoriteCounts() {
+        try {
+            favoriteService.flushFavoriteCounts();
+        } catch (Exception e) {
+            log.error("Error flushing favorite counts: {}", e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void flushFavoriteCountsOnShutdown() {
+        flushFavoriteCounts();
+    }
+
+    @Scheduled(fixedDelayString = "${app.favorites.reconcile-interval-ms:3600000}",
+            initialDelayString = "${app.favorites.reconcile-interval-ms:3600000}")
+    public void reconcileFavoriteCounts() {
+        try {
+            favoriteService.reconcileFavoriteCounts();
+        } catch (Exception e) {
+            log.error("Error reconciling favorite counts: {}", e.getMessage(), e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.keywords.reconcile-interval-ms:3600000}",
+            initialDelayString = "${app.keywords.reconcile-interval-ms:3600000}")
+    public void reconcileKeywordUsageCounts() {
+        try {
+            keywordService.reconcileUsageCounts();
+        } catch (Exception e) {
+            log.error("Error reconciling keyword usage counts: {}", e.getMessage(), e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.notifications.stream.heartbeat-ms:20000}")
+    public void sendNotificationStreamHeartbeat() {
+        try {
+            notificationStreamRegistry.heartbeat();
+        } catch (Exception e) {
+            log.error("Error sending notification stream heartbeat: {}", e.getMessage(), e);
+        }
+    }
 }
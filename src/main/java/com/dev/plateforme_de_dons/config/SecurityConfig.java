@@ -1,20 +1,32 @@
 package com.dev.plateforme_de_dons.config;
 
 import com.dev.plateforme_de_dons.service.CustomUserDetailsService;
+import com.dev.plateforme_de_dons.service.PasswordHashingBusyException;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.AuthenticationFailureHandler;
+import org.springframework.security.web.authentication.SimpleUrlAuthenticationFailureHandler;
 import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 
+import java.util.Map;
+
 @Configuration
 @EnableWebSecurity
 @RequiredArgsConstructor
@@ -22,28 +34,57 @@ public class SecurityConfig {
 
     private final CustomUserDetailsService userDetailsService;
 
+    // Hashes préfixés par l'algorithme ({bcrypt}...) ; les anciens hashes sans préfixe sont lus
+    // comme du bcrypt. Un hash sans préfixe ou d'un coût inférieur à app.security.bcrypt-strength
+    // est réécrit à la connexion suivante (CustomUserDetailsService.updatePassword).
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(ThreadPoolTaskExecutor passwordExecutor,
+                                           MeterRegistry meterRegistry,
+                                           @Value("${app.security.bcrypt-strength:10}") int strength,
+                                           @Value("${app.security.password.timeout-ms:10000}") long timeoutMs,
+                                           @Value("${app.security.password.retry-after-seconds:5}") long retryAfterSeconds) {
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(strength);
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder("bcrypt", Map.of("bcrypt", bcrypt));
+        delegating.setDefaultPasswordEncoderForMatches(bcrypt);
+        return new BoundedPasswordEncoder(delegating, passwordExecutor, meterRegistry, timeoutMs, retryAfterSeconds);
     }
 
     @Bean
-    public DaoAuthenticationProvider authenticationProvider() {
+    public DaoAuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder) {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService);
-        authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setUserDetailsPasswordService(userDetailsService);
+        authProvider.setPasswordEncoder(passwordEncoder);
         return authProvider;
     }
 
+    // Pool de hachage saturé : 503 + Retry-After plutôt qu'un faux "mot de passe incorrect"
+    @Bean
+    public AuthenticationFailureHandler authenticationFailureHandler() {
+        SimpleUrlAuthenticationFailureHandler defaultHandler = new SimpleUrlAuthenticationFailureHandler("/login?error=true");
+        return (request, response, exception) -> {
+            if (exception instanceof PasswordHashingBusyException busy) {
+                response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(busy.getRetryAfterSeconds()));
+                response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+                response.setContentType(MediaType.TEXT_PLAIN_VALUE + ";charset=UTF-8");
+                response.getWriter().write(busy.getMessage());
+                return;
+            }
+            defaultHandler.onAuthenticationFailure(request, response, exception);
+        };
+    }
+
     @Bean
     public AuthenticationManager authenticationManager(AuthenticationConfiguration authConfig) throws Exception {
         return authConfig.getAuthenticationManager();
     }
 
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http,
+                                           DaoAuthenticationProvider authenticationProvider,
+                                           AuthenticationFailureHandler authenticationFailureHandler) throws Exception {
         http
-            .authenticationProvider(authenticationProvider())
+            .authenticationProvider(authenticationProvider)
             .authorizeHttpRequests(auth -> auth
                 .requestMatchers("/", "/home", "/register", "/login", "/css/**", "/js/**", "/images/**", "/webjars/**").permitAll()
                 .requestMatchers("/h2-console/**").permitAll()
@@ -52,13 +93,15 @@ public class SecurityConfig {
                 .requestMatchers(HttpMethod.GET, "/api/annonces", "/api/annonces/**").permitAll()
                 .requestMatchers(HttpMethod.GET, "/api/lots", "/api/lots/**").permitAll()
                 .requestMatchers(HttpMethod.GET, "/api/keywords", "/api/keywords/**").permitAll()
+                // Métriques internes (caches, files, latences) : comptes d'exploitation seulement
+                .requestMatchers("/actuator/metrics", "/actuator/metrics/**").hasRole("ADMIN")
                 .anyRequest().authenticated()
             )
             .formLogin(form -> form
                 .loginPage("/login")
                 .loginProcessingUrl("/login")
                 .defaultSuccessUrl("/", true)
-                .failureUrl("/login?error=true")
+                .failureHandler(authenticationFailureHandler)
                 .permitAll()
             )
             .logout(logout -> logout
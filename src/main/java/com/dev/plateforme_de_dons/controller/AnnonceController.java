@@ -1,6 +1,9 @@
 package com.dev.plateforme_de_dons.controller;
 
+import com.dev.plateforme_de_dons.config.CurrentUser;
+import com.dev.plateforme_de_dons.dto.AnnonceCardDto;
 import com.dev.plateforme_de_dons.dto.AnnonceDto;
+import com.dev.plateforme_de_dons.dto.CursorPage;
 import com.dev.plateforme_de_dons.dto.SearchCriteriaDto;
 import com.dev.plateforme_de_dons.model.Annonce;
 import com.dev.plateforme_de_dons.model.EtatObjet;
@@ -9,7 +12,6 @@ import com.dev.plateforme_de_dons.model.User;
 import com.dev.plateforme_de_dons.service.AnnonceService;
 import com.dev.plateforme_de_dons.service.FavoriteService;
 import com.dev.plateforme_de_dons.service.ImageService;
-import com.dev.plateforme_de_dons.service.UserService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -39,7 +41,6 @@ import java.util.Map;
 public class AnnonceController {
 
     private final AnnonceService annonceService;
-    private final UserService userService;
     private final FavoriteService favoriteService;
     private final ImageService imageService;
 
@@ -51,9 +52,9 @@ public class AnnonceController {
             Authentication authentication) {
 
         Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "datePublication"));
-        Page<Annonce> annoncesPage = annonceService.findAllActive(pageable);
+        Page<AnnonceCardDto> annoncesPage = annonceService.findActiveCards(pageable);
 
-        model.addAttribute("annonces", annoncesPage.map(annonceService::convertToDto));
+        model.addAttribute("annonces", annoncesPage);
         model.addAttribute("currentPage", page);
         model.addAttribute("totalPages", annoncesPage.getTotalPages());
 
@@ -64,13 +65,28 @@ public class AnnonceController {
     @ResponseBody
     public ResponseEntity<Map<String, Object>> listAnnoncesJson(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "12") int size) {
+            @RequestParam(defaultValue = "12") int size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean withTotal) {
+
+        if (cursor != null) {
+            CursorPage<AnnonceCardDto> window = scrollActive(cursor, size);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("annonces", window.getContent());
+            response.put("nextCursor", window.getNextCursor());
+            response.put("hasNext", window.hasNext());
+            if (withTotal) {
+                response.put("totalElements", annonceService.countActive());
+            }
+            return ResponseEntity.ok(response);
+        }
 
         Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "datePublication"));
-        Page<Annonce> annoncesPage = annonceService.findAllActive(pageable);
+        Page<AnnonceCardDto> annoncesPage = annonceService.findActiveCards(pageable);
 
         Map<String, Object> response = new HashMap<>();
-        response.put("annonces", annoncesPage.map(annonceService::convertToDto).getContent());
+        response.put("annonces", annoncesPage.getContent());
         response.put("currentPage", page);
         response.put("totalPages", annoncesPage.getTotalPages());
         response.put("totalElements", annoncesPage.getTotalElements());
@@ -78,19 +94,25 @@ public class AnnonceController {
         return ResponseEntity.ok(response);
     }
 
+    private CursorPage<AnnonceCardDto> scrollActive(String cursor, int size) {
+        try {
+            return annonceService.scrollActive(cursor, size);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
     @GetMapping("/{id}")
-    public String viewAnnonce(@PathVariable Long id, Model model, Authentication authentication) {
+    public String viewAnnonce(@PathVariable Long id, Model model, @CurrentUser(required = false) User user) {
         Annonce annonce = annonceService.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Annonce non trouvée"));
 
         AnnonceDto dto = annonceService.convertToDto(annonce);
         model.addAttribute("annonce", dto);
 
-        if (authentication != null) {
-            userService.findByUsername(authentication.getName()).ifPresent(user -> {
-                model.addAttribute("isFavorite", favoriteService.isFavorite(user, annonce));
-                model.addAttribute("isOwner", annonce.getOwner().getId().equals(user.getId()));
-            });
+        if (user != null) {
+            model.addAttribute("isFavorite", favoriteService.isFavorite(user, annonce));
+            model.addAttribute("isOwner", annonce.getOwner().getId().equals(user.getId()));
         }
 
         return "annonces/view";
@@ -119,7 +141,7 @@ public class AnnonceController {
             @Valid @ModelAttribute("annonce") AnnonceDto annonceDto,
             BindingResult result,
             @RequestParam(value = "imageFiles", required = false) List<MultipartFile> imageFiles,
-            Authentication authentication,
+            @CurrentUser User user,
             RedirectAttributes redirectAttributes,
             Model model) {
 
@@ -130,22 +152,13 @@ public class AnnonceController {
             return "annonces/form";
         }
 
-        User user = userService.findByUsername(authentication.getName())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
-
         try {
             // Créer l'annonce
             Annonce annonce = annonceService.createAnnonce(annonceDto, user);
 
-            // Uploader les images si présentes
+            // Uploader les images si présentes (seule la première est primary)
             if (imageFiles != null && !imageFiles.isEmpty()) {
-                boolean firstImage = true;
-                for (MultipartFile file : imageFiles) {
-                    if (!file.isEmpty()) {
-                        imageService.uploadImageForAnnonce(file, annonce, firstImage);
-                        firstImage = false; // Seulement la première est primary
-                    }
-                }
+                imageService.uploadImagesForAnnonce(imageFiles, annonce, true);
             }
 
             redirectAttributes.addFlashAttribute("success", "Annonce créée avec succès !");
@@ -163,23 +176,17 @@ public class AnnonceController {
     @ResponseBody
     public ResponseEntity<?> createAnnonceJson(
             @Valid @RequestBody AnnonceDto annonceDto,
-            Authentication authentication) {
-
-        User user = userService.findByUsername(authentication.getName())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
+            @CurrentUser User user) {
 
         Annonce annonce = annonceService.createAnnonce(annonceDto, user);
         return ResponseEntity.status(HttpStatus.CREATED).body(annonceService.convertToDto(annonce));
     }
 
     @GetMapping("/{id}/edit")
-    public String showEditForm(@PathVariable Long id, Model model, Authentication authentication) {
+    public String showEditForm(@PathVariable Long id, Model model, @CurrentUser User user) {
         Annonce annonce = annonceService.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Annonce non trouvée"));
 
-        User user = userService.findByUsername(authentication.getName())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
-
         if (!annonce.getOwner().getId().equals(user.getId())) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Non autorisé");
         }
@@ -198,7 +205,7 @@ public class AnnonceController {
             @Valid @ModelAttribute("annonce") AnnonceDto annonceDto,
             BindingResult result,
             @RequestParam(value = "imageFiles", required = false) List<MultipartFile> imageFiles,
-            Authentication authentication,
+            @CurrentUser User user,
             RedirectAttributes redirectAttributes,
             Model model) {
 
@@ -209,24 +216,13 @@ public class AnnonceController {
             return "annonces/form";
         }
 
-        User user = userService.findByUsername(authentication.getName())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
-
         try {
             // Mettre à jour l'annonce
             Annonce annonce = annonceService.updateAnnonce(id, annonceDto, user);
 
             // Uploader les nouvelles images si présentes
             if (imageFiles != null && !imageFiles.isEmpty()) {
-                boolean hasPrimaryImage = !annonce.getImages().isEmpty() &&
-                        annonce.getImages().stream().anyMatch(img -> img.isPrimary());
-
-                for (MultipartFile file : imageFiles) {
-                    if (!file.isEmpty()) {
-                        imageService.uploadImageForAnnonce(file, annonce, !hasPrimaryImage);
-                        hasPrimaryImage = true; // Après la première, on a une image primary
-                    }
-                }
+                imageService.uploadImagesForAnnonce(imageFiles, annonce, annonce.getPrimaryImageId() == null);
             }
 
             redirectAttributes.addFlashAttribute("success", "Annonce mise à jour avec succès !");
@@ -245,10 +241,7 @@ public class AnnonceController {
     public ResponseEntity<?> updateAnnonceJson(
             @PathVariable Long id,
             @Valid @RequestBody AnnonceDto annonceDto,
-            Authentication authentication) {
-
-        User user = userService.findByUsername(authentication.getName())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
+            @CurrentUser User user) {
 
         Annonce annonce = annonceService.updateAnnonce(id, annonceDto, user);
         return ResponseEntity.ok(annonceService.convertToDto(annonce));
@@ -257,12 +250,9 @@ public class AnnonceController {
     @PostMapping("/{id}/delete")
     public String deleteAnnonce(
             @PathVariable Long id,
-            Authentication authentication,
+            @CurrentUser User user,
             RedirectAttributes redirectAttributes) {
 
-        User user = userService.findByUsername(authentication.getName())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
-
         annonceService.deactivateAnnonce(id, user);
         redirectAttributes.addFlashAttribute("success", "Annonce supprimée avec succès !");
         return "redirect:/mes-annonces";
@@ -272,10 +262,7 @@ public class AnnonceController {
     @ResponseBody
     public ResponseEntity<Void> deleteAnnonceJson(
             @PathVariable Long id,
-            Authentication authentication) {
-
-        User user = userService.findByUsername(authentication.getName())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
+            @CurrentUser User user) {
 
         annonceService.deactivateAnnonce(id, user);
         return ResponseEntity.noContent().build();
@@ -284,12 +271,9 @@ public class AnnonceController {
     @PostMapping("/{id}/reserve")
     public String reserveAnnonce(
             @PathVariable Long id,
-            Authentication authentication,
+            @CurrentUser User user,
             RedirectAttributes redirectAttributes) {
 
-        User user = userService.findByUsername(authentication.getName())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
-
         annonceService.markAsReserved(id, user);
         redirectAttributes.addFlashAttribute("success", "Annonce marquée comme réservée !");
         return "redirect:/annonces/" + id;
@@ -298,12 +282,9 @@ public class AnnonceController {
     @PostMapping("/{id}/give")
     public String markAsGiven(
             @PathVariable Long id,
-            Authentication authentication,
+            @CurrentUser User user,
             RedirectAttributes redirectAttributes) {
 
-        User user = userService.findByUsername(authentication.getName())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
-
         annonceService.markAsGiven(id, user);
         redirectAttributes.addFlashAttribute("success", "Don effectué ! Merci pour votre générosité !");
         return "redirect:/mes-annonces";
@@ -314,15 +295,12 @@ public class AnnonceController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "12") int size,
             Model model,
-            Authentication authentication) {
-
-        User user = userService.findByUsername(authentication.getName())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
+            @CurrentUser User user) {
 
         Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "datePublication"));
-        Page<Annonce> annoncesPage = annonceService.findByOwner(user, pageable);
+        Page<AnnonceCardDto> annoncesPage = annonceService.findCardsByOwner(user, pageable);
 
-        model.addAttribute("annonces", annoncesPage.map(annonceService::convertToDto));
+        model.addAttribute("annonces", annoncesPage);
         model.addAttribute("currentPage", page);
         model.addAttribute("totalPages", annoncesPage.getTotalPages());
 
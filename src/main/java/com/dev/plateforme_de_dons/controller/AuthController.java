@@ -1,9 +1,13 @@
 package com.dev.plateforme_de_dons.controller;
 
 import com.dev.plateforme_de_dons.dto.UserRegistrationDto;
+import com.dev.plateforme_de_dons.service.PasswordHashingBusyException;
 import com.dev.plateforme_de_dons.service.UserService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
@@ -32,6 +36,8 @@ public class AuthController {
     @PostMapping("/register")
     public String registerUser(@Valid @ModelAttribute("user") UserRegistrationDto registrationDto,
                                BindingResult result,
+                               Model model,
+                               HttpServletResponse response,
                                RedirectAttributes redirectAttributes) {
         if (result.hasErrors()) {
             return "auth/register";
@@ -44,6 +50,11 @@ public class AuthController {
         } catch (IllegalArgumentException e) {
             result.rejectValue("username", "error.user", e.getMessage());
             return "auth/register";
+        } catch (PasswordHashingBusyException e) {
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()));
+            model.addAttribute("error", e.getMessage());
+            return "auth/register";
         }
     }
 }
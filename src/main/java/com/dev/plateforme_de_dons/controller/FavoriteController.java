@@ -1,23 +1,19 @@
 package com.dev.plateforme_de_dons.controller;
 
-import com.dev.plateforme_de_dons.model.Favorite;
+import com.dev.plateforme_de_dons.config.CurrentUser;
+import com.dev.plateforme_de_dons.dto.AnnonceCardDto;
 import com.dev.plateforme_de_dons.model.User;
-import com.dev.plateforme_de_dons.service.AnnonceService;
 import com.dev.plateforme_de_dons.service.FavoriteService;
-import com.dev.plateforme_de_dons.service.UserService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
-import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.util.HashMap;
@@ -29,23 +25,18 @@ import java.util.Map;
 public class FavoriteController {
 
     private final FavoriteService favoriteService;
-    private final UserService userService;
-    private final AnnonceService annonceService;
 
     @GetMapping
     public String listFavorites(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "12") int size,
             Model model,
-            Authentication authentication) {
-
-        User user = userService.findByUsername(authentication.getName())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
+            @CurrentUser User user) {
 
         Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createdAt"));
-        Page<Favorite> favoritesPage = favoriteService.getFavorites(user, pageable);
+        Page<AnnonceCardDto> favoritesPage = favoriteService.getFavoriteCards(user, pageable);
 
-        model.addAttribute("favorites", favoritesPage.map(f -> annonceService.convertToDto(f.getAnnonce())));
+        model.addAttribute("favorites", favoritesPage);
         model.addAttribute("currentPage", page);
         model.addAttribute("totalPages", favoritesPage.getTotalPages());
 
@@ -57,16 +48,13 @@ public class FavoriteController {
     public ResponseEntity<Map<String, Object>> listFavoritesJson(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "12") int size,
-            Authentication authentication) {
-
-        User user = userService.findByUsername(authentication.getName())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
+            @CurrentUser User user) {
 
         Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createdAt"));
-        Page<Favorite> favoritesPage = favoriteService.getFavorites(user, pageable);
+        Page<AnnonceCardDto> favoritesPage = favoriteService.getFavoriteCards(user, pageable);
 
         Map<String, Object> response = new HashMap<>();
-        response.put("favorites", favoritesPage.map(f -> annonceService.convertToDto(f.getAnnonce())).getContent());
+        response.put("favorites", favoritesPage.getContent());
         response.put("currentPage", page);
         response.put("totalPages", favoritesPage.getTotalPages());
 
@@ -76,12 +64,9 @@ public class FavoriteController {
     @PostMapping("/add/{annonceId}")
     public String addToFavorites(
             @PathVariable Long annonceId,
-            Authentication authentication,
+            @CurrentUser User user,
             RedirectAttributes redirectAttributes) {
 
-        User user = userService.findByUsername(authentication.getName())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
-
         try {
             favoriteService.addToFavorites(user, annonceId);
             redirectAttributes.addFlashAttribute("success", "Annonce ajoutée aux favoris !");
@@ -96,10 +81,7 @@ public class FavoriteController {
     @ResponseBody
     public ResponseEntity<Map<String, Object>> addToFavoritesJson(
             @PathVariable Long annonceId,
-            Authentication authentication) {
-
-        User user = userService.findByUsername(authentication.getName())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
+            @CurrentUser User user) {
 
         favoriteService.addToFavorites(user, annonceId);
 
@@ -114,12 +96,9 @@ public class FavoriteController {
     public String removeFromFavorites(
             @PathVariable Long annonceId,
             @RequestParam(required = false) String returnUrl,
-            Authentication authentication,
+            @CurrentUser User user,
             RedirectAttributes redirectAttributes) {
 
-        User user = userService.findByUsername(authentication.getName())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
-
         favoriteService.removeFromFavorites(user, annonceId);
         redirectAttributes.addFlashAttribute("success", "Annonce retirée des favoris !");
 
@@ -133,10 +112,7 @@ public class FavoriteController {
     @ResponseBody
     public ResponseEntity<Map<String, Object>> removeFromFavoritesJson(
             @PathVariable Long annonceId,
-            Authentication authentication) {
-
-        User user = userService.findByUsername(authentication.getName())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
+            @CurrentUser User user) {
 
         favoriteService.removeFromFavorites(user, annonceId);
 
@@ -149,10 +125,7 @@ public class FavoriteController {
 
     @GetMapping("/count")
     @ResponseBody
-    public ResponseEntity<Map<String, Long>> getFavoritesCount(Authentication authentication) {
-        User user = userService.findByUsername(authentication.getName())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
-
+    public ResponseEntity<Map<String, Long>> getFavoritesCount(@CurrentUser User user) {
         Map<String, Long> response = new HashMap<>();
         response.put("count", favoriteService.countFavorites(user));
         return ResponseEntity.ok(response);
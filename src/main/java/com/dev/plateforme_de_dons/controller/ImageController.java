@@ -1,27 +1,33 @@
 package com.dev.plateforme_de_dons.controller;
 
+import com.dev.plateforme_de_dons.config.CurrentUser;
 import com.dev.plateforme_de_dons.dto.ImageDto;
 import com.dev.plateforme_de_dons.model.Annonce;
 import com.dev.plateforme_de_dons.model.Image;
+import com.dev.plateforme_de_dons.model.ImageVariant;
 import com.dev.plateforme_de_dons.model.Lot;
 import com.dev.plateforme_de_dons.model.User;
 import com.dev.plateforme_de_dons.service.AnnonceService;
 import com.dev.plateforme_de_dons.service.ImageService;
 import com.dev.plateforme_de_dons.service.LotService;
-import com.dev.plateforme_de_dons.service.UserService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.io.IOException;
+import java.nio.file.NoSuchFileException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/images")
@@ -31,17 +37,13 @@ public class ImageController {
     private final ImageService imageService;
     private final AnnonceService annonceService;
     private final LotService lotService;
-    private final UserService userService;
 
     @PostMapping("/annonce/{annonceId}")
     public ResponseEntity<ImageDto> uploadAnnonceImage(
             @PathVariable Long annonceId,
             @RequestParam("file") MultipartFile file,
             @RequestParam(defaultValue = "false") boolean isPrimary,
-            Authentication authentication) {
-
-        User user = userService.findByUsername(authentication.getName())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
+            @CurrentUser User user) {
 
         Annonce annonce = annonceService.findById(annonceId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Annonce non trouvée"));
@@ -65,10 +67,7 @@ public class ImageController {
             @PathVariable Long lotId,
             @RequestParam("file") MultipartFile file,
             @RequestParam(defaultValue = "false") boolean isPrimary,
-            Authentication authentication) {
-
-        User user = userService.findByUsername(authentication.getName())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
+            @CurrentUser User user) {
 
         Lot lot = lotService.findById(lotId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Lot non trouvé"));
@@ -87,16 +86,44 @@ public class ImageController {
         }
     }
 
+    // If-None-Match est validé sur l'ETag calculé depuis les métadonnées : un 304 ne lit ni le
+    // fichier ni le cache d'octets. Les requêtes partielles (Range -> 206) sont traitées par Spring
+    // à partir du corps Resource.
+    // size=thumb|card|full sert une déclinaison ; tant qu'elle n'est pas générée, l'original
+    // est renvoyé avec un cache court pour ne pas figer la mauvaise taille chez le client.
     @GetMapping("/{id}")
-    public ResponseEntity<byte[]> getImage(@PathVariable Long id) {
+    public ResponseEntity<Resource> getImage(@PathVariable Long id,
+                                             @RequestParam(required = false) String size,
+                                             WebRequest webRequest) {
         Image image = imageService.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Image non trouvée"));
 
+        ImageVariant variant;
+        try {
+            variant = size != null ? ImageVariant.fromParam(size) : null;
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+
+        String etag = imageService.computeETag(image, variant);
+        CacheControl cacheControl = imageService.isVariantReady(image, variant)
+                ? CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable()
+                : CacheControl.maxAge(1, TimeUnit.MINUTES).cachePublic();
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+        }
+
         try {
-            byte[] imageBytes = imageService.getImageBytes(image);
+            Resource resource = imageService.getImageResource(image, variant);
             return ResponseEntity.ok()
-                    .contentType(MediaType.parseMediaType(image.getContentType()))
-                    .body(imageBytes);
+                    .contentType(MediaType.parseMediaType(imageService.getContentType(image, variant)))
+                    .eTag(etag)
+                    .lastModified(resource.lastModified())
+                    .cacheControl(cacheControl)
+                    .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                    .body(resource);
+        } catch (NoSuchFileException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Fichier image introuvable");
         } catch (IOException e) {
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Erreur lors de la récupération de l'image");
         }
@@ -123,10 +150,7 @@ public class ImageController {
     @DeleteMapping("/{id}")
     public ResponseEntity<Map<String, Object>> deleteImage(
             @PathVariable Long id,
-            Authentication authentication) {
-
-        User user = userService.findByUsername(authentication.getName())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
+            @CurrentUser User user) {
 
         Image image = imageService.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Image non trouvée"));
@@ -142,24 +166,17 @@ public class ImageController {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Vous n'êtes pas autorisé à supprimer cette image");
         }
 
-        try {
-            imageService.deleteImage(id);
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("message", "Image supprimée avec succès");
-            return ResponseEntity.ok(response);
-        } catch (IOException e) {
-            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Erreur lors de la suppression de l'image");
-        }
+        imageService.deleteImage(id);
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", "Image supprimée avec succès");
+        return ResponseEntity.ok(response);
     }
 
     @PutMapping("/{id}/set-primary")
     public ResponseEntity<Map<String, Object>> setPrimaryImage(
             @PathVariable Long id,
-            Authentication authentication) {
-
-        User user = userService.findByUsername(authentication.getName())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
+            @CurrentUser User user) {
 
         Image image = imageService.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Image non trouvée"));
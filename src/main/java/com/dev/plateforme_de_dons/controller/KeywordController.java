@@ -0,0 +1,43 @@
+package com.dev.plateforme_de_dons.controller;
+
+import com.dev.plateforme_de_dons.dto.KeywordUsageDto;
+import com.dev.plateforme_de_dons.service.KeywordService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/keywords")
+@RequiredArgsConstructor
+public class KeywordController {
+
+    private final KeywordService keywordService;
+
+    // Mots-clés les plus utilisés par les annonces actives, limit borné à KeywordService.MAX_POPULAR_LIMIT
+    @GetMapping("/popular")
+    public ResponseEntity<Map<String, Object>> popular(@RequestParam(defaultValue = "20") int limit) {
+        List<KeywordUsageDto> keywords = keywordService.findPopular(limit);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("keywords", keywords);
+        return ResponseEntity.ok(response);
+    }
+
+    // Autocomplétion par préfixe, insensible aux accents, classée par popularité
+    @GetMapping("/suggest")
+    public ResponseEntity<Map<String, Object>> suggest(@RequestParam("q") String prefix,
+                                                       @RequestParam(defaultValue = "10") int limit) {
+        List<KeywordUsageDto> suggestions = keywordService.suggest(prefix, limit);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("suggestions", suggestions);
+        return ResponseEntity.ok(response);
+    }
+}
@@ -1,25 +1,25 @@
 package com.dev.plateforme_de_dons.controller;
 
+import com.dev.plateforme_de_dons.config.CurrentUser;
 import com.dev.plateforme_de_dons.dto.AnnonceDto;
+import com.dev.plateforme_de_dons.dto.ImageDto;
 import com.dev.plateforme_de_dons.dto.LotDto;
 import com.dev.plateforme_de_dons.model.Annonce;
-import com.dev.plateforme_de_dons.model.Image;
 import com.dev.plateforme_de_dons.model.Lot;
 import com.dev.plateforme_de_dons.model.User;
 import com.dev.plateforme_de_dons.service.AnnonceService;
 import com.dev.plateforme_de_dons.service.ImageService;
 import com.dev.plateforme_de_dons.service.LotService;
-import com.dev.plateforme_de_dons.service.UserService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
@@ -27,6 +27,7 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -38,7 +39,6 @@ import java.util.stream.Collectors;
 public class LotController {
 
     private final LotService lotService;
-    private final UserService userService;
     private final AnnonceService annonceService;
     private final ImageService imageService;
 
@@ -51,7 +51,7 @@ public class LotController {
         Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createdAt"));
         Page<Lot> lotsPage = lotService.findAllActive(pageable);
 
-        model.addAttribute("lots", lotsPage.map(this::convertToDto));
+        model.addAttribute("lots", convertToDtos(lotsPage));
         model.addAttribute("currentPage", page);
         model.addAttribute("totalPages", lotsPage.getTotalPages());
 
@@ -68,7 +68,7 @@ public class LotController {
         Page<Lot> lotsPage = lotService.findAllActive(pageable);
 
         Map<String, Object> response = new HashMap<>();
-        response.put("lots", lotsPage.map(this::convertToDto).getContent());
+        response.put("lots", convertToDtos(lotsPage).getContent());
         response.put("currentPage", page);
         response.put("totalPages", lotsPage.getTotalPages());
 
@@ -76,16 +76,14 @@ public class LotController {
     }
 
     @GetMapping("/{id}")
-    public String viewLot(@PathVariable Long id, Model model, Authentication authentication) {
+    public String viewLot(@PathVariable Long id, Model model, @CurrentUser(required = false) User user) {
         Lot lot = lotService.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Lot non trouvé"));
 
         model.addAttribute("lot", convertToDto(lot));
 
-        if (authentication != null) {
-            userService.findByUsername(authentication.getName()).ifPresent(user -> {
-                model.addAttribute("isOwner", lot.getCreator().getId().equals(user.getId()));
-            });
+        if (user != null) {
+            model.addAttribute("isOwner", lot.getCreator().getId().equals(user.getId()));
         }
 
         return "lots/view";
@@ -101,16 +99,11 @@ public class LotController {
     }
 
     @GetMapping("/new")
-    public String showCreateForm(Model model, Authentication authentication) {
-        User user = userService.findByUsername(authentication.getName())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
-
+    public String showCreateForm(Model model, @CurrentUser User user) {
         List<Annonce> availableAnnonces = lotService.getAvailableAnnoncesForLot(user);
 
         model.addAttribute("lot", new LotDto());
-        model.addAttribute("availableAnnonces", availableAnnonces.stream()
-                .map(annonceService::convertToDto)
-                .collect(Collectors.toList()));
+        model.addAttribute("availableAnnonces", annonceService.convertToDtos(availableAnnonces));
         model.addAttribute("editing", false);
 
         return "lots/form";
@@ -120,18 +113,13 @@ public class LotController {
     public String createLot(
             @Valid @ModelAttribute("lot") LotDto lotDto,
             BindingResult result,
-            Authentication authentication,
+            @CurrentUser User user,
             RedirectAttributes redirectAttributes,
             Model model) {
 
-        User user = userService.findByUsername(authentication.getName())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
-
         if (result.hasErrors()) {
             List<Annonce> availableAnnonces = lotService.getAvailableAnnoncesForLot(user);
-            model.addAttribute("availableAnnonces", availableAnnonces.stream()
-                    .map(annonceService::convertToDto)
-                    .collect(Collectors.toList()));
+            model.addAttribute("availableAnnonces", annonceService.convertToDtos(availableAnnonces));
             return "lots/form";
         }
 
@@ -142,9 +130,7 @@ public class LotController {
         } catch (Exception e) {
             model.addAttribute("error", e.getMessage());
             List<Annonce> availableAnnonces = lotService.getAvailableAnnoncesForLot(user);
-            model.addAttribute("availableAnnonces", availableAnnonces.stream()
-                    .map(annonceService::convertToDto)
-                    .collect(Collectors.toList()));
+            model.addAttribute("availableAnnonces", annonceService.convertToDtos(availableAnnonces));
             return "lots/form";
         }
     }
@@ -153,23 +139,17 @@ public class LotController {
     @ResponseBody
     public ResponseEntity<LotDto> createLotJson(
             @Valid @RequestBody LotDto lotDto,
-            Authentication authentication) {
-
-        User user = userService.findByUsername(authentication.getName())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
+            @CurrentUser User user) {
 
         Lot lot = lotService.createLot(lotDto, user);
         return ResponseEntity.status(HttpStatus.CREATED).body(convertToDto(lot));
     }
 
     @GetMapping("/{id}/edit")
-    public String showEditForm(@PathVariable Long id, Model model, Authentication authentication) {
+    public String showEditForm(@PathVariable Long id, Model model, @CurrentUser User user) {
         Lot lot = lotService.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Lot non trouvé"));
 
-        User user = userService.findByUsername(authentication.getName())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
-
         if (!lot.getCreator().getId().equals(user.getId())) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Non autorisé");
         }
@@ -177,9 +157,7 @@ public class LotController {
         List<Annonce> availableAnnonces = lotService.getAvailableAnnoncesForLot(user);
 
         model.addAttribute("lot", convertToDto(lot));
-        model.addAttribute("availableAnnonces", availableAnnonces.stream()
-                .map(annonceService::convertToDto)
-                .collect(Collectors.toList()));
+        model.addAttribute("availableAnnonces", annonceService.convertToDtos(availableAnnonces));
         model.addAttribute("editing", true);
 
         return "lots/form";
@@ -190,18 +168,13 @@ public class LotController {
             @PathVariable Long id,
             @Valid @ModelAttribute("lot") LotDto lotDto,
             BindingResult result,
-            Authentication authentication,
+            @CurrentUser User user,
             RedirectAttributes redirectAttributes,
             Model model) {
 
-        User user = userService.findByUsername(authentication.getName())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
-
         if (result.hasErrors()) {
             List<Annonce> availableAnnonces = lotService.getAvailableAnnoncesForLot(user);
-            model.addAttribute("availableAnnonces", availableAnnonces.stream()
-                    .map(annonceService::convertToDto)
-                    .collect(Collectors.toList()));
+            model.addAttribute("availableAnnonces", annonceService.convertToDtos(availableAnnonces));
             model.addAttribute("editing", true);
             return "lots/form";
         }
@@ -213,9 +186,7 @@ public class LotController {
         } catch (IllegalArgumentException e) {
             model.addAttribute("error", e.getMessage());
             List<Annonce> availableAnnonces = lotService.getAvailableAnnoncesForLot(user);
-            model.addAttribute("availableAnnonces", availableAnnonces.stream()
-                    .map(annonceService::convertToDto)
-                    .collect(Collectors.toList()));
+            model.addAttribute("availableAnnonces", annonceService.convertToDtos(availableAnnonces));
             model.addAttribute("editing", true);
             return "lots/form";
         }
@@ -225,12 +196,9 @@ public class LotController {
     public String addAnnonceToLot(
             @PathVariable Long lotId,
             @PathVariable Long annonceId,
-            Authentication authentication,
+            @CurrentUser User user,
             RedirectAttributes redirectAttributes) {
 
-        User user = userService.findByUsername(authentication.getName())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
-
         try {
             lotService.addAnnonceToLot(lotId, annonceId, user);
             redirectAttributes.addFlashAttribute("success", "Annonce ajoutée au lot !");
@@ -245,12 +213,9 @@ public class LotController {
     public String removeAnnonceFromLot(
             @PathVariable Long lotId,
             @PathVariable Long annonceId,
-            Authentication authentication,
+            @CurrentUser User user,
             RedirectAttributes redirectAttributes) {
 
-        User user = userService.findByUsername(authentication.getName())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
-
         try {
             lotService.removeAnnonceFromLot(lotId, annonceId, user);
             redirectAttributes.addFlashAttribute("success", "Annonce retirée du lot !");
@@ -264,12 +229,9 @@ public class LotController {
     @PostMapping("/{id}/delete")
     public String deleteLot(
             @PathVariable Long id,
-            Authentication authentication,
+            @CurrentUser User user,
             RedirectAttributes redirectAttributes) {
 
-        User user = userService.findByUsername(authentication.getName())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
-
         lotService.deactivateLot(id, user);
         redirectAttributes.addFlashAttribute("success", "Lot supprimé avec succès !");
         return "redirect:/mes-lots";
@@ -280,44 +242,68 @@ public class LotController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "12") int size,
             Model model,
-            Authentication authentication) {
-
-        User user = userService.findByUsername(authentication.getName())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
+            @CurrentUser User user) {
 
         Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createdAt"));
         Page<Lot> lotsPage = lotService.findByCreator(user, pageable);
 
-        model.addAttribute("lots", lotsPage.map(this::convertToDto));
+        model.addAttribute("lots", convertToDtos(lotsPage));
         model.addAttribute("currentPage", page);
         model.addAttribute("totalPages", lotsPage.getTotalPages());
 
         return "lots/my-lots";
     }
 
+    // Vue détaillée : seule conversion qui charge toutes les images du lot
     private LotDto convertToDto(Lot lot) {
-        LotDto dto = new LotDto();
-        dto.setId(lot.getId());
-        dto.setTitre(lot.getTitre());
-        dto.setDescription(lot.getDescription());
-        dto.setCreatorId(lot.getCreator().getId());
-        dto.setCreatorUsername(lot.getCreator().getUsername());
-        dto.setActive(lot.isActive());
-        dto.setCreatedAt(lot.getCreatedAt());
-        dto.setAnnonceIds(lot.getAnnonces().stream()
-                .map(Annonce::getId)
-                .collect(Collectors.toList()));
-        dto.setAnnonces(lot.getAnnonces().stream()
-                .map(annonceService::convertToDto)
-                .collect(Collectors.toList()));
-
-        // Ajouter les images
-        dto.setImages(imageService.convertToDtoList(lot.getImages()));
-        Image primaryImage = lot.getPrimaryImage();
-        if (primaryImage != null) {
-            dto.setPrimaryImage(imageService.convertToDto(primaryImage));
+        LotDto dto = convertToDtos(List.of(lot)).get(0);
+        dto.setImages(imageService.convertToDtoList(imageService.findByLot(lot)));
+        return dto;
+    }
+
+    private Page<LotDto> convertToDtos(Page<Lot> lotsPage) {
+        return new PageImpl<>(convertToDtos(lotsPage.getContent()), lotsPage.getPageable(), lotsPage.getTotalElements());
+    }
+
+    // Annonces de tous les lots chargées en lot, puis converties en une seule passe.
+    // L'image principale vient de primaryImageId : la table images n'est pas lue.
+    private List<LotDto> convertToDtos(List<Lot> lots) {
+        List<Long> lotIds = lots.stream().map(Lot::getId).toList();
+        Map<Long, List<Annonce>> annoncesByLot = lotService.findAnnoncesByLotIds(lotIds);
+
+        List<Annonce> allAnnonces = annoncesByLot.values().stream()
+                .flatMap(List::stream)
+                .toList();
+        List<AnnonceDto> allDtos = annonceService.convertToDtos(allAnnonces);
+        Map<Long, AnnonceDto> dtosById = new HashMap<>();
+        for (AnnonceDto annonceDto : allDtos) {
+            dtosById.put(annonceDto.getId(), annonceDto);
         }
 
-        return dto;
+        List<LotDto> dtos = new ArrayList<>(lots.size());
+        for (Lot lot : lots) {
+            List<Annonce> annonces = annoncesByLot.getOrDefault(lot.getId(), List.of());
+
+            LotDto dto = new LotDto();
+            dto.setId(lot.getId());
+            dto.setTitre(lot.getTitre());
+            dto.setDescription(lot.getDescription());
+            dto.setCreatorId(lot.getCreator().getId());
+            dto.setCreatorUsername(lot.getCreator().getUsername());
+            dto.setActive(lot.isActive());
+            dto.setCreatedAt(lot.getCreatedAt());
+            dto.setAnnonceIds(annonces.stream()
+                    .map(Annonce::getId)
+                    .collect(Collectors.toList()));
+            dto.setAnnonces(annonces.stream()
+                    .map(annonce -> dtosById.get(annonce.getId()))
+                    .collect(Collectors.toList()));
+
+            if (lot.getPrimaryImageId() != null) {
+                dto.setPrimaryImage(new ImageDto(lot.getPrimaryImageId(), "/api/images/" + lot.getPrimaryImageId(), true));
+            }
+            dtos.add(dto);
+        }
+        return dtos;
     }
-}
\ No newline at end of file
+}
@@ -1,6 +1,8 @@
 package com.dev.plateforme_de_dons.controller;
 
+import com.dev.plateforme_de_dons.config.CurrentUser;
 import com.dev.plateforme_de_dons.dto.ConversationDto;
+import com.dev.plateforme_de_dons.dto.CursorPage;
 import com.dev.plateforme_de_dons.dto.MessageDto;
 import com.dev.plateforme_de_dons.model.Annonce;
 import com.dev.plateforme_de_dons.model.Message;
@@ -10,6 +12,8 @@ import com.dev.plateforme_de_dons.service.MessageService;
 import com.dev.plateforme_de_dons.service.UserService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -35,14 +39,18 @@ public class MessageController {
     private final AnnonceService annonceService;
 
     @GetMapping
-    public String listConversations(Model model, Authentication authentication) {
-        User user = userService.findByUsername(authentication.getName())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
-
-        List<ConversationDto> conversations = messageService.getConversationsWithLastMessage(user);
+    public String listConversations(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            Model model,
+            @CurrentUser User user) {
+        Page<ConversationDto> conversations = messageService.getConversations(user, PageRequest.of(page, size));
         long unreadCount = messageService.getUnreadCount(user);
 
-        model.addAttribute("conversations", conversations);
+        model.addAttribute("conversations", conversations.getContent());
+        model.addAttribute("totalConversations", conversations.getTotalElements());
+        model.addAttribute("currentPage", page);
+        model.addAttribute("totalPages", conversations.getTotalPages());
         model.addAttribute("unreadCount", unreadCount);
 
         return "messages/list";
@@ -50,15 +58,18 @@ public class MessageController {
 
     @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
     @ResponseBody
-    public ResponseEntity<Map<String, Object>> listConversationsJson(Authentication authentication) {
-        User user = userService.findByUsername(authentication.getName())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
-
-        List<ConversationDto> conversations = messageService.getConversationsWithLastMessage(user);
+    public ResponseEntity<Map<String, Object>> listConversationsJson(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            @CurrentUser User user) {
+        Page<ConversationDto> conversations = messageService.getConversations(user, PageRequest.of(page, size));
         long unreadCount = messageService.getUnreadCount(user);
 
         Map<String, Object> response = new HashMap<>();
-        response.put("conversations", conversations);
+        response.put("conversations", conversations.getContent());
+        response.put("currentPage", page);
+        response.put("totalPages", conversations.getTotalPages());
+        response.put("totalElements", conversations.getTotalElements());
         response.put("unreadCount", unreadCount);
 
         return ResponseEntity.ok(response);
@@ -68,11 +79,10 @@ public class MessageController {
     public String viewConversation(
             @PathVariable Long userId,
             @RequestParam(required = false) Long annonceId,
+            @RequestParam(required = false) String before,
+            @RequestParam(defaultValue = "30") int size,
             Model model,
-            Authentication authentication) {
-
-        User currentUser = userService.findByUsername(authentication.getName())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
+            @CurrentUser User currentUser) {
 
         User otherUser = userService.findById(userId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Utilisateur non trouvé"));
@@ -82,10 +92,13 @@ public class MessageController {
             annonce = annonceService.findById(annonceId).orElse(null);
         }
 
-        List<Message> conversation = messageService.getConversation(currentUser, otherUser, annonce);
-        messageService.markConversationAsRead(currentUser, otherUser, annonce);
+        CursorPage<Message> conversation = getConversationPage(currentUser, otherUser, annonce, before, size);
+        List<MessageDto> messages = messageService.convertToDtoList(conversation.getContent());
+        markDisplayedAsRead(currentUser, otherUser, annonce, messages);
 
-        model.addAttribute("messages", messageService.convertToDtoList(conversation));
+        model.addAttribute("messages", messages);
+        model.addAttribute("before", conversation.getNextCursor());
+        model.addAttribute("olderPage", before != null);
         model.addAttribute("otherUser", otherUser);
         model.addAttribute("annonce", annonce != null ? annonceService.convertToDto(annonce) : null);
         model.addAttribute("newMessage", new MessageDto());
@@ -98,10 +111,9 @@ public class MessageController {
     public ResponseEntity<Map<String, Object>> viewConversationJson(
             @PathVariable Long userId,
             @RequestParam(required = false) Long annonceId,
-            Authentication authentication) {
-
-        User currentUser = userService.findByUsername(authentication.getName())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
+            @RequestParam(required = false) String before,
+            @RequestParam(defaultValue = "30") int size,
+            @CurrentUser User currentUser) {
 
         User otherUser = userService.findById(userId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
@@ -111,11 +123,14 @@ public class MessageController {
             annonce = annonceService.findById(annonceId).orElse(null);
         }
 
-        List<Message> conversation = messageService.getConversation(currentUser, otherUser, annonce);
-        messageService.markConversationAsRead(currentUser, otherUser, annonce);
+        CursorPage<Message> conversation = getConversationPage(currentUser, otherUser, annonce, before, size);
+        List<MessageDto> messages = messageService.convertToDtoList(conversation.getContent());
+        markDisplayedAsRead(currentUser, otherUser, annonce, messages);
 
         Map<String, Object> response = new HashMap<>();
-        response.put("messages", messageService.convertToDtoList(conversation));
+        response.put("messages", messages);
+        response.put("before", conversation.getNextCursor());
+        response.put("hasOlder", conversation.hasNext());
         response.put("otherUserId", otherUser.getId());
         response.put("otherUsername", otherUser.getUsername());
         if (annonce != null) {
@@ -125,6 +140,22 @@ public class MessageController {
         return ResponseEntity.ok(response);
     }
 
+    // Seuls les messages affichés (et les plus anciens) sont marqués lus, pas ceux arrivés entre-temps
+    private void markDisplayedAsRead(User currentUser, User otherUser, Annonce annonce, List<MessageDto> messages) {
+        if (!messages.isEmpty()) {
+            Long newestId = messages.get(messages.size() - 1).getId();
+            messageService.markConversationAsRead(currentUser, otherUser, annonce, newestId);
+        }
+    }
+
+    private CursorPage<Message> getConversationPage(User currentUser, User otherUser, Annonce annonce, String before, int size) {
+        try {
+            return messageService.getConversationPage(currentUser, otherUser, annonce, before, size);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
     @GetMapping("/new")
     public String showNewMessageForm(
             @RequestParam(required = false) Long userId,
@@ -158,7 +189,7 @@ public class MessageController {
     public String sendMessage(
             @Valid @ModelAttribute("message") MessageDto messageDto,
             BindingResult result,
-            Authentication authentication,
+            @CurrentUser User sender,
             RedirectAttributes redirectAttributes,
             Model model) {
 
@@ -166,9 +197,6 @@ public class MessageController {
             return "messages/new";
         }
 
-        User sender = userService.findByUsername(authentication.getName())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
-
         try {
             messageService.sendMessage(messageDto, sender);
             redirectAttributes.addFlashAttribute("success", "Message envoyé avec succès !");
@@ -188,10 +216,7 @@ public class MessageController {
     @ResponseBody
     public ResponseEntity<MessageDto> sendMessageJson(
             @Valid @RequestBody MessageDto messageDto,
-            Authentication authentication) {
-
-        User sender = userService.findByUsername(authentication.getName())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
+            @CurrentUser User sender) {
 
         Message message = messageService.sendMessage(messageDto, sender);
         return ResponseEntity.status(HttpStatus.CREATED).body(messageService.convertToDto(message));
@@ -201,10 +226,7 @@ public class MessageController {
     @ResponseBody
     public ResponseEntity<Void> markAsRead(
             @PathVariable Long id,
-            Authentication authentication) {
-
-        User user = userService.findByUsername(authentication.getName())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
+            @CurrentUser User user) {
 
         messageService.markAsRead(id, user);
         return ResponseEntity.ok().build();
@@ -212,10 +234,7 @@ public class MessageController {
 
     @GetMapping("/unread-count")
     @ResponseBody
-    public ResponseEntity<Map<String, Long>> getUnreadCount(Authentication authentication) {
-        User user = userService.findByUsername(authentication.getName())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
-
+    public ResponseEntity<Map<String, Long>> getUnreadCount(@CurrentUser User user) {
         Map<String, Long> response = new HashMap<>();
         response.put("count", messageService.getUnreadCount(user));
         return ResponseEntity.ok(response);
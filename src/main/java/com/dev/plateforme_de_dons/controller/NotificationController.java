@@ -1,9 +1,10 @@
 package com.dev.plateforme_de_dons.controller;
 
+import com.dev.plateforme_de_dons.config.CurrentUser;
 import com.dev.plateforme_de_dons.model.Notification;
 import com.dev.plateforme_de_dons.model.User;
+import com.dev.plateforme_de_dons.service.NotificationPushService;
 import com.dev.plateforme_de_dons.service.NotificationService;
-import com.dev.plateforme_de_dons.service.UserService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -11,11 +12,11 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -26,17 +27,14 @@ import java.util.Map;
 public class NotificationController {
 
     private final NotificationService notificationService;
-    private final UserService userService;
+    private final NotificationPushService notificationPushService;
 
     @GetMapping
     public String listNotifications(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
             Model model,
-            Authentication authentication) {
-
-        User user = userService.findByUsername(authentication.getName())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
+            @CurrentUser User user) {
 
         Pageable pageable = PageRequest.of(page, size);
         Page<Notification> notificationsPage = notificationService.getNotifications(user, pageable);
@@ -54,10 +52,7 @@ public class NotificationController {
     public ResponseEntity<Map<String, Object>> listNotificationsJson(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
-            Authentication authentication) {
-
-        User user = userService.findByUsername(authentication.getName())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
+            @CurrentUser User user) {
 
         Pageable pageable = PageRequest.of(page, size);
         Page<Notification> notificationsPage = notificationService.getNotifications(user, pageable);
@@ -71,13 +66,21 @@ public class NotificationController {
         return ResponseEntity.ok(response);
     }
 
+    // Flux SSE : notifications créées et compteurs de non-lus. EventSource renvoie
+    // Last-Event-ID à la reconnexion pour récupérer les événements manqués.
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @ResponseBody
+    public SseEmitter stream(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+            @CurrentUser User user) {
+
+        return notificationPushService.subscribe(user.getId(), parseEventId(lastEventId));
+    }
+
     @GetMapping("/{id}/click")
     public String handleNotificationClick(
             @PathVariable Long id,
-            Authentication authentication) {
-
-        User user = userService.findByUsername(authentication.getName())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
+            @CurrentUser User user) {
 
         Notification notification = notificationService.getNotifications(user, Pageable.unpaged())
                 .stream()
@@ -121,42 +124,41 @@ public class NotificationController {
     @ResponseBody
     public ResponseEntity<Void> markAsRead(
             @PathVariable Long id,
-            Authentication authentication) {
-
-        User user = userService.findByUsername(authentication.getName())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
+            @CurrentUser User user) {
 
         notificationService.markAsRead(id, user);
         return ResponseEntity.ok().build();
     }
 
     @PostMapping("/mark-all-read")
-    public String markAllAsRead(Authentication authentication) {
-        User user = userService.findByUsername(authentication.getName())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
-
+    public String markAllAsRead(@CurrentUser User user) {
         notificationService.markAllAsRead(user);
         return "redirect:/notifications";
     }
 
     @PostMapping(value = "/mark-all-read", produces = MediaType.APPLICATION_JSON_VALUE)
     @ResponseBody
-    public ResponseEntity<Void> markAllAsReadJson(Authentication authentication) {
-        User user = userService.findByUsername(authentication.getName())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
-
+    public ResponseEntity<Void> markAllAsReadJson(@CurrentUser User user) {
         notificationService.markAllAsRead(user);
         return ResponseEntity.ok().build();
     }
 
     @GetMapping("/unread-count")
     @ResponseBody
-    public ResponseEntity<Map<String, Long>> getUnreadCount(Authentication authentication) {
-        User user = userService.findByUsername(authentication.getName())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
-
+    public ResponseEntity<Map<String, Long>> getUnreadCount(@CurrentUser User user) {
         Map<String, Long> response = new HashMap<>();
         response.put("count", notificationService.getUnreadCount(user));
         return ResponseEntity.ok(response);
     }
+
+    private Long parseEventId(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
 }
\ No newline at end of file
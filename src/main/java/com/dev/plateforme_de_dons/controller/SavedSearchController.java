@@ -1,11 +1,11 @@
 package com.dev.plateforme_de_dons.controller;
 
+import com.dev.plateforme_de_dons.config.CurrentUser;
 import com.dev.plateforme_de_dons.dto.SavedSearchDto;
 import com.dev.plateforme_de_dons.model.SavedSearch;
 import com.dev.plateforme_de_dons.model.User;
 import com.dev.plateforme_de_dons.service.AnnonceService;
 import com.dev.plateforme_de_dons.service.SavedSearchService;
-import com.dev.plateforme_de_dons.service.UserService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -14,7 +14,6 @@ import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
@@ -30,7 +29,6 @@ import java.util.Map;
 public class SavedSearchController {
 
     private final SavedSearchService savedSearchService;
-    private final UserService userService;
     private final AnnonceService annonceService;
 
     @GetMapping
@@ -38,10 +36,7 @@ public class SavedSearchController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "12") int size,
             Model model,
-            Authentication authentication) {
-
-        User user = userService.findByUsername(authentication.getName())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
+            @CurrentUser User user) {
 
         Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createdAt"));
         Page<SavedSearch> searchesPage = savedSearchService.findByUser(user, pageable);
@@ -58,10 +53,7 @@ public class SavedSearchController {
     public ResponseEntity<Map<String, Object>> listSavedSearchesJson(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "12") int size,
-            Authentication authentication) {
-
-        User user = userService.findByUsername(authentication.getName())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
+            @CurrentUser User user) {
 
         Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createdAt"));
         Page<SavedSearch> searchesPage = savedSearchService.findByUser(user, pageable);
@@ -80,10 +72,7 @@ public class SavedSearchController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "12") int size,
             Model model,
-            Authentication authentication) {
-
-        User user = userService.findByUsername(authentication.getName())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
+            @CurrentUser User user) {
 
         SavedSearch savedSearch = savedSearchService.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Recherche non trouvée"));
@@ -97,7 +86,7 @@ public class SavedSearchController {
         var results = annonceService.search(criteria, pageable);
 
         model.addAttribute("savedSearch", savedSearchService.convertToDto(savedSearch));
-        model.addAttribute("annonces", results.map(annonceService::convertToDto));
+        model.addAttribute("annonces", results);
         model.addAttribute("currentPage", page);
         model.addAttribute("totalPages", results.getTotalPages());
 
@@ -107,12 +96,9 @@ public class SavedSearchController {
     @PostMapping("/{id}/toggle-notifications")
     public String toggleNotifications(
             @PathVariable Long id,
-            Authentication authentication,
+            @CurrentUser User user,
             RedirectAttributes redirectAttributes) {
 
-        User user = userService.findByUsername(authentication.getName())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
-
         savedSearchService.toggleNotifications(id, user);
         redirectAttributes.addFlashAttribute("success", "Paramètres de notification mis à jour !");
         return "redirect:/saved-searches";
@@ -122,10 +108,7 @@ public class SavedSearchController {
     @ResponseBody
     public ResponseEntity<Map<String, Object>> toggleNotificationsJson(
             @PathVariable Long id,
-            Authentication authentication) {
-
-        User user = userService.findByUsername(authentication.getName())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
+            @CurrentUser User user) {
 
         savedSearchService.toggleNotifications(id, user);
 
@@ -142,12 +125,9 @@ public class SavedSearchController {
     @PostMapping("/{id}/delete")
     public String deleteSavedSearch(
             @PathVariable Long id,
-            Authentication authentication,
+            @CurrentUser User user,
             RedirectAttributes redirectAttributes) {
 
-        User user = userService.findByUsername(authentication.getName())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
-
         savedSearchService.deleteSavedSearch(id, user);
         redirectAttributes.addFlashAttribute("success", "Recherche supprimée avec succès !");
         return "redirect:/saved-searches";
@@ -157,10 +137,7 @@ public class SavedSearchController {
     @ResponseBody
     public ResponseEntity<Void> deleteSavedSearchJson(
             @PathVariable Long id,
-            Authentication authentication) {
-
-        User user = userService.findByUsername(authentication.getName())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
+            @CurrentUser User user) {
 
         savedSearchService.deleteSavedSearch(id, user);
         return ResponseEntity.noContent().build();
@@ -1,15 +1,15 @@
 package com.dev.plateforme_de_dons.controller;
 
-import com.dev.plateforme_de_dons.dto.AnnonceDto;
+import com.dev.plateforme_de_dons.config.CurrentUser;
+import com.dev.plateforme_de_dons.dto.AnnonceCardDto;
+import com.dev.plateforme_de_dons.dto.CursorPage;
 import com.dev.plateforme_de_dons.dto.SavedSearchDto;
 import com.dev.plateforme_de_dons.dto.SearchCriteriaDto;
-import com.dev.plateforme_de_dons.model.Annonce;
 import com.dev.plateforme_de_dons.model.EtatObjet;
 import com.dev.plateforme_de_dons.model.ModeLivraison;
 import com.dev.plateforme_de_dons.model.User;
 import com.dev.plateforme_de_dons.service.AnnonceService;
 import com.dev.plateforme_de_dons.service.SavedSearchService;
-import com.dev.plateforme_de_dons.service.UserService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -35,9 +35,11 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class SearchController {
 
+    private static final String SORT_DATE = "date";
+    private static final String SORT_RELEVANCE = "relevance";
+
     private final AnnonceService annonceService;
     private final SavedSearchService savedSearchService;
-    private final UserService userService;
 
     @GetMapping
     public String search(
@@ -48,16 +50,16 @@ public class SearchController {
             @RequestParam(required = false) String keywords,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "12") int size,
+            @RequestParam(defaultValue = SORT_DATE) String sort,
             Model model,
             Authentication authentication) {
 
         SearchCriteriaDto criteria = buildCriteria(query, zone, etat, mode, keywords);
+        Page<AnnonceCardDto> results = executeSearch(criteria, page, size, sort);
 
-        Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "datePublication"));
-        Page<Annonce> results = annonceService.search(criteria, pageable);
-
-        model.addAttribute("annonces", results.map(annonceService::convertToDto));
+        model.addAttribute("annonces", results);
         model.addAttribute("criteria", criteria);
+        model.addAttribute("sort", sort);
         model.addAttribute("currentPage", page);
         model.addAttribute("totalPages", results.getTotalPages());
         model.addAttribute("etats", EtatObjet.values());
@@ -79,18 +81,40 @@ public class SearchController {
             @RequestParam(required = false) ModeLivraison mode,
             @RequestParam(required = false) String keywords,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "12") int size) {
+            @RequestParam(defaultValue = "12") int size,
+            @RequestParam(defaultValue = SORT_DATE) String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean withTotal) {
 
         SearchCriteriaDto criteria = buildCriteria(query, zone, etat, mode, keywords);
 
-        Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "datePublication"));
-        Page<Annonce> results = annonceService.search(criteria, pageable);
+        if (cursor != null && !SORT_RELEVANCE.equals(sort)) {
+            CursorPage<AnnonceCardDto> window;
+            try {
+                window = annonceService.scrollSearch(criteria, cursor, size);
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+            }
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("annonces", window.getContent());
+            response.put("nextCursor", window.getNextCursor());
+            response.put("hasNext", window.hasNext());
+            response.put("sort", sort);
+            if (withTotal) {
+                response.put("totalElements", annonceService.countSearch(criteria));
+            }
+            return ResponseEntity.ok(response);
+        }
+
+        Page<AnnonceCardDto> results = executeSearch(criteria, page, size, sort);
 
         Map<String, Object> response = new HashMap<>();
-        response.put("annonces", results.map(annonceService::convertToDto).getContent());
+        response.put("annonces", results.getContent());
         response.put("currentPage", page);
         response.put("totalPages", results.getTotalPages());
         response.put("totalElements", results.getTotalElements());
+        response.put("sort", sort);
 
         return ResponseEntity.ok(response);
     }
@@ -104,12 +128,9 @@ public class SearchController {
             @RequestParam(required = false) ModeLivraison mode,
             @RequestParam(required = false) String keywords,
             @RequestParam(defaultValue = "true") boolean notifications,
-            Authentication authentication,
+            @CurrentUser User user,
             RedirectAttributes redirectAttributes) {
 
-        User user = userService.findByUsername(authentication.getName())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
-
         SearchCriteriaDto criteria = buildCriteria(query, zone, etat, mode, keywords);
         savedSearchService.saveSearchFromCriteria(name, criteria, user, notifications);
 
@@ -121,10 +142,7 @@ public class SearchController {
     @ResponseBody
     public ResponseEntity<SavedSearchDto> saveSearchJson(
             @RequestBody Map<String, Object> request,
-            Authentication authentication) {
-
-        User user = userService.findByUsername(authentication.getName())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
+            @CurrentUser User user) {
 
         String name = (String) request.get("name");
         String query = (String) request.get("query");
@@ -140,6 +158,14 @@ public class SearchController {
         return ResponseEntity.status(HttpStatus.CREATED).body(savedSearchService.convertToDto(savedSearch));
     }
 
+    private Page<AnnonceCardDto> executeSearch(SearchCriteriaDto criteria, int page, int size, String sort) {
+        if (SORT_RELEVANCE.equals(sort)) {
+            return annonceService.searchByRelevance(criteria, PageRequest.of(page, size));
+        }
+        Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "datePublication"));
+        return annonceService.search(criteria, pageable);
+    }
+
     private SearchCriteriaDto buildCriteria(String query, String zone, EtatObjet etat, ModeLivraison mode, String keywords) {
         SearchCriteriaDto criteria = new SearchCriteriaDto();
         criteria.setQuery(query);
@@ -0,0 +1,38 @@
+package com.dev.plateforme_de_dons.dto;
+
+import com.dev.plateforme_de_dons.model.EtatObjet;
+import com.dev.plateforme_de_dons.model.ModeLivraison;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Carte d'annonce des pages de liste, remplie directement par une projection JPA :
+// ni description complète, ni mots-clés, ni liste d'images
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnnonceCardDto {
+
+    // Assez pour les abréviations des gabarits (150 caractères au plus) et leurs points de suspension
+    public static final int EXCERPT_LENGTH = 160;
+
+    private Long id;
+    private String titre;
+    private String excerpt;
+    private String zoneGeographique;
+    private EtatObjet etatObjet;
+    private ModeLivraison modeLivraison;
+    private LocalDateTime datePublication;
+    private String ownerUsername;
+    private Long primaryImageId;
+    private int favoriteCount;
+    private boolean active;
+    private boolean reserved;
+    private boolean given;
+
+    public String getImageUrl() {
+        return primaryImageId != null ? "/api/images/" + primaryImageId + "?size=card" : null;
+    }
+}
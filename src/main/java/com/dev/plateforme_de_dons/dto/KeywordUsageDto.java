@@ -0,0 +1,16 @@
+package com.dev.plateforme_de_dons.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Mot-clé et nombre d'annonces actives qui le portent
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class KeywordUsageDto {
+
+    private Long id;
+    private String name;
+    private int count;
+}
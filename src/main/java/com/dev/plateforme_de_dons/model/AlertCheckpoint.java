@@ -0,0 +1,29 @@
+package com.dev.plateforme_de_dons.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Dernière annonce (datePublication, id) traitée par un balayage périodique
+@Entity
+@Table(name = "alert_checkpoints")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class AlertCheckpoint {
+
+    @Id
+    @Column(length = 50)
+    private String name;
+
+    @Column(nullable = false)
+    private LocalDateTime lastDatePublication;
+
+    @Column(nullable = false)
+    private Long lastAnnonceId;
+}
@@ -8,6 +8,7 @@ import lombok.Getter;
 import lombok.Setter;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -23,7 +24,8 @@ import java.util.Objects;
         @Index(name = "idx_annonce_zone", columnList = "zoneGeographique"),
         @Index(name = "idx_annonce_etat", columnList = "etatObjet"),
         @Index(name = "idx_annonce_date", columnList = "datePublication"),
-        @Index(name = "idx_annonce_active", columnList = "active")
+        @Index(name = "idx_annonce_active", columnList = "active"),
+        @Index(name = "idx_annonce_active_date_id", columnList = "active, datePublication, id")
 })
 @Getter
 @Setter
@@ -95,12 +97,21 @@ public class Annonce {
 
     private boolean given = false;
 
+    // Maintenu uniquement par des UPDATE groupés (FavoriteService), jamais par l'entité
+    @ColumnDefault("0")
+    @Column(nullable = false, insertable = false, updatable = false)
+    private int favoriteCount;
+
     @Version
     private Long version;
 
     @Column(length = 500)
     private String imageUrl;
 
+    // Image principale dénormalisée pour les cartes, maintenue par ImageService via des UPDATE ciblés
+    @Column(insertable = false, updatable = false)
+    private Long primaryImageId;
+
     public void addKeyword(Keyword keyword) {
         keywords.add(keyword);
         keyword.getAnnonces().add(this);
@@ -121,13 +132,6 @@ public class Annonce {
         image.setAnnonce(null);
     }
 
-    public Image getPrimaryImage() {
-        return images.stream()
-                .filter(Image::isPrimary)
-                .findFirst()
-                .orElse(images.isEmpty() ? null : images.get(0));
-    }
-
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,93 @@
+package com.dev.plateforme_de_dons.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+// Résumé d'un fil de messages entre deux utilisateurs (et une annonce éventuelle),
+// maintenu à chaque envoi et lecture pour que la boîte de réception soit une simple requête paginée.
+// userA porte toujours le plus petit id des deux participants.
+@Entity
+@Table(name = "conversations", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_conversation_participants", columnNames = {"user_a_id", "user_b_id", "annonce_key"})
+}, indexes = {
+        @Index(name = "idx_conversation_user_a", columnList = "user_a_id, lastMessageAt"),
+        @Index(name = "idx_conversation_user_b", columnList = "user_b_id, lastMessageAt")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class Conversation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_a_id", nullable = false)
+    private User userA;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_b_id", nullable = false)
+    private User userB;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "annonce_id")
+    private Annonce annonce;
+
+    // 0 sans annonce : une colonne NULL ne compterait pas dans la contrainte d'unicité
+    @Column(name = "annonce_key", nullable = false)
+    private long annonceKey;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "last_message_id")
+    private Message lastMessage;
+
+    private LocalDateTime lastMessageAt;
+
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private int unreadA;
+
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private int unreadB;
+
+    public static long annonceKey(Long annonceId) {
+        return annonceId != null ? annonceId : 0L;
+    }
+
+    public User getPartner(Long userId) {
+        return userA.getId().equals(userId) ? userB : userA;
+    }
+
+    public int getUnreadCount(Long userId) {
+        return userA.getId().equals(userId) ? unreadA : unreadB;
+    }
+
+    public void addUnread(Long userId, int delta) {
+        if (userA.getId().equals(userId)) {
+            unreadA = Math.max(0, unreadA + delta);
+        } else {
+            unreadB = Math.max(0, unreadB + delta);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Conversation that = (Conversation) o;
+        return id != null && Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+}
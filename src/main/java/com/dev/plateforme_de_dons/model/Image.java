@@ -9,7 +9,9 @@ import org.hibernate.annotations.CreationTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "images")
+@Table(name = "images", indexes = {
+        @Index(name = "idx_image_content_hash", columnList = "contentHash")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -47,6 +49,18 @@ public class Image {
     @Column(nullable = false)
     private String storagePath;
 
+    // SHA-256 du contenu (ImageBlob) ; null pour les images stockées avant la déduplication
+    @Column(length = 64)
+    private String contentHash;
+
+    // Chemins des déclinaisons, renseignés par ImageVariantService une fois générées.
+    // Égaux à storagePath quand l'original est déjà assez petit ou ne peut pas être décodé.
+    private String thumbPath;
+
+    private String cardPath;
+
+    private String fullPath;
+
     public Image(String filename, String originalFilename, String contentType, Long size, String storagePath) {
         this.filename = filename;
         this.originalFilename = originalFilename;
@@ -54,4 +68,12 @@ public class Image {
         this.size = size;
         this.storagePath = storagePath;
     }
+
+    public String getVariantPath(ImageVariant variant) {
+        return switch (variant) {
+            case THUMB -> thumbPath;
+            case CARD -> cardPath;
+            case FULL -> fullPath;
+        };
+    }
 }
\ No newline at end of file
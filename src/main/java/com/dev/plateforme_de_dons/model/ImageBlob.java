@@ -0,0 +1,61 @@
+package com.dev.plateforme_de_dons.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+// Contenu d'image stocké une seule fois sous blobs/, identifié par son SHA-256.
+// refCount compte les lignes images qui le référencent ; le fichier part avec la dernière.
+@Entity
+@Table(name = "image_blobs")
+@Getter
+@Setter
+@NoArgsConstructor
+public class ImageBlob {
+
+    @Id
+    @Column(length = 64)
+    private String hash;
+
+    @Column(nullable = false)
+    private String storagePath;
+
+    private long size;
+
+    // Format reconnu à l'upload d'après les premiers octets du fichier
+    private String contentType;
+
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private int refCount;
+
+    @CreationTimestamp
+    @Column(updatable = false)
+    private LocalDateTime createdAt;
+
+    public ImageBlob(String hash, String storagePath, long size, String contentType) {
+        this.hash = hash;
+        this.storagePath = storagePath;
+        this.size = size;
+        this.contentType = contentType;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ImageBlob that = (ImageBlob) o;
+        return hash != null && Objects.equals(hash, that.hash);
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+}
@@ -0,0 +1,59 @@
+package com.dev.plateforme_de_dons.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Optional;
+
+// Formats acceptés, reconnus à leurs premiers octets et non au type déclaré par le client
+public enum ImageFormat {
+    JPEG("image/jpeg", ".jpg"),
+    PNG("image/png", ".png"),
+    GIF("image/gif", ".gif"),
+    WEBP("image/webp", ".webp");
+
+    public static final int HEADER_SIZE = 12;
+
+    private static final byte[] JPEG_MAGIC = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF};
+    private static final byte[] PNG_MAGIC = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final byte[] GIF87_MAGIC = "GIF87a".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] GIF89_MAGIC = "GIF89a".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] RIFF_MAGIC = "RIFF".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] WEBP_MAGIC = "WEBP".getBytes(StandardCharsets.US_ASCII);
+
+    private final String contentType;
+    private final String extension;
+
+    ImageFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public static Optional<ImageFormat> sniff(byte[] header) {
+        if (startsWith(header, 0, JPEG_MAGIC)) {
+            return Optional.of(JPEG);
+        }
+        if (startsWith(header, 0, PNG_MAGIC)) {
+            return Optional.of(PNG);
+        }
+        if (startsWith(header, 0, GIF87_MAGIC) || startsWith(header, 0, GIF89_MAGIC)) {
+            return Optional.of(GIF);
+        }
+        if (startsWith(header, 0, RIFF_MAGIC) && startsWith(header, 8, WEBP_MAGIC)) {
+            return Optional.of(WEBP);
+        }
+        return Optional.empty();
+    }
+
+    private static boolean startsWith(byte[] header, int offset, byte[] magic) {
+        return header.length >= offset + magic.length
+                && Arrays.equals(header, offset, offset + magic.length, magic, 0, magic.length);
+    }
+}
@@ -0,0 +1,33 @@
+package com.dev.plateforme_de_dons.model;
+
+import java.util.Locale;
+
+// Déclinaisons générées à l'upload, bornées sur leur plus grand côté
+public enum ImageVariant {
+    THUMB(160),
+    CARD(480),
+    FULL(1280);
+
+    private final int maxDimension;
+
+    ImageVariant(int maxDimension) {
+        this.maxDimension = maxDimension;
+    }
+
+    public int getMaxDimension() {
+        return maxDimension;
+    }
+
+    public String getSuffix() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    public static ImageVariant fromParam(String value) {
+        for (ImageVariant variant : values()) {
+            if (variant.getSuffix().equalsIgnoreCase(value)) {
+                return variant;
+            }
+        }
+        throw new IllegalArgumentException("Taille d'image inconnue : " + value);
+    }
+}
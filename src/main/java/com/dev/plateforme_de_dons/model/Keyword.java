@@ -7,13 +7,16 @@ import lombok.Getter;
 import lombok.Setter;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.util.HashSet;
 import java.util.Objects;
 import java.util.Set;
 
 @Entity
-@Table(name = "keywords")
+@Table(name = "keywords", indexes = {
+        @Index(name = "idx_keyword_usage", columnList = "usageCount")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -32,6 +35,11 @@ public class Keyword {
     @ManyToMany(mappedBy = "keywords")
     private Set<Annonce> annonces = new HashSet<>();
 
+    // Nombre d'annonces actives portant ce mot-clé, maintenu par KeywordService via des UPDATE ciblés
+    @ColumnDefault("0")
+    @Column(nullable = false, insertable = false, updatable = false)
+    private int usageCount;
+
     public Keyword(String name) {
         this.name = name.toLowerCase().trim();
     }
@@ -60,6 +60,10 @@ public class Lot {
     @Column(length = 500)
     private String imageUrl;
 
+    // Image principale dénormalisée pour les cartes, maintenue par ImageService via des UPDATE ciblés
+    @Column(insertable = false, updatable = false)
+    private Long primaryImageId;
+
     public void addAnnonce(Annonce annonce) {
         annonces.add(annonce);
         annonce.setLot(this);
@@ -80,13 +84,6 @@ public class Lot {
         image.setLot(null);
     }
 
-    public Image getPrimaryImage() {
-        return images.stream()
-                .filter(Image::isPrimary)
-                .findFirst()
-                .orElse(images.isEmpty() ? null : images.get(0));
-    }
-
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
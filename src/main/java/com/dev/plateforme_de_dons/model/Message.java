@@ -15,7 +15,8 @@ import java.time.LocalDateTime;
     @Index(name = "idx_message_sender", columnList = "sender_id"),
     @Index(name = "idx_message_receiver", columnList = "receiver_id"),
     @Index(name = "idx_message_annonce", columnList = "annonce_id"),
-    @Index(name = "idx_message_date", columnList = "sentAt")
+    @Index(name = "idx_message_date", columnList = "sentAt"),
+    @Index(name = "idx_message_thread", columnList = "sender_id, receiver_id, annonce_id, sentAt")
 })
 @Data
 @NoArgsConstructor
@@ -15,6 +15,9 @@ import java.time.LocalDateTime;
         @Index(name = "idx_notification_user", columnList = "user_id"),
         @Index(name = "idx_notification_read", columnList = "read"),
         @Index(name = "idx_notification_date", columnList = "createdAt")
+}, uniqueConstraints = {
+        // Une seule alerte par recherche sauvegardée et par annonce
+        @UniqueConstraint(name = "uk_notification_search_annonce", columnNames = {"saved_search_id", "annonce_id"})
 })
 @Data
 @NoArgsConstructor
@@ -0,0 +1,11 @@
+package com.dev.plateforme_de_dons.repository;
+
+import com.dev.plateforme_de_dons.model.AlertCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import org.springframework.stereotype.Repository;
+
+@Repository
+@RepositoryRestResource(exported = false)
+public interface AlertCheckpointRepository extends JpaRepository<AlertCheckpoint, String> {
+}
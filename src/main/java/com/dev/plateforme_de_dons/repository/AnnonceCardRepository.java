@@ -0,0 +1,19 @@
+package com.dev.plateforme_de_dons.repository;
+
+import com.dev.plateforme_de_dons.dto.AnnonceCardDto;
+import com.dev.plateforme_de_dons.model.Annonce;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Cartes d'annonces filtrées par Specification, lues en une seule requête SQL
+public interface AnnonceCardRepository {
+
+    Page<AnnonceCardDto> findCards(Specification<Annonce> spec, Pageable pageable);
+
+    // Pagination par curseur sur (datePublication, id) décroissants, sans requête de comptage
+    List<AnnonceCardDto> findCardsAfter(Specification<Annonce> spec, LocalDateTime afterDate, Long afterId, int limit);
+}
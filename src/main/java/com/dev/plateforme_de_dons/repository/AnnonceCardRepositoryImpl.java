@@ -0,0 +1,106 @@
+package com.dev.plateforme_de_dons.repository;
+
+import com.dev.plateforme_de_dons.dto.AnnonceCardDto;
+import com.dev.plateforme_de_dons.model.Annonce;
+import com.dev.plateforme_de_dons.model.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class AnnonceCardRepositoryImpl implements AnnonceCardRepository {
+
+    private static final Sort KEYSET_SORT = Sort.by(Sort.Direction.DESC, "datePublication")
+            .and(Sort.by(Sort.Direction.DESC, "id"));
+
+    private final EntityManager entityManager;
+
+    @Override
+    public Page<AnnonceCardDto> findCards(Specification<Annonce> spec, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<AnnonceCardDto> query = cb.createQuery(AnnonceCardDto.class);
+        Root<Annonce> root = query.from(Annonce.class);
+        query.select(card(cb, root));
+        where(query, spec.toPredicate(root, query, cb));
+        query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+
+        TypedQuery<AnnonceCardDto> typed = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typed.setFirstResult((int) pageable.getOffset());
+            typed.setMaxResults(pageable.getPageSize());
+        }
+        return PageableExecutionUtils.getPage(typed.getResultList(), pageable, () -> count(spec));
+    }
+
+    @Override
+    public List<AnnonceCardDto> findCardsAfter(Specification<Annonce> spec, LocalDateTime afterDate, Long afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<AnnonceCardDto> query = cb.createQuery(AnnonceCardDto.class);
+        Root<Annonce> root = query.from(Annonce.class);
+        query.select(card(cb, root));
+
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (afterDate != null) {
+            Predicate after = cb.or(
+                    cb.lessThan(root.get("datePublication"), afterDate),
+                    cb.and(cb.equal(root.get("datePublication"), afterDate), cb.lessThan(root.get("id"), afterId)));
+            predicate = predicate != null ? cb.and(predicate, after) : after;
+        }
+        where(query, predicate);
+        query.orderBy(QueryUtils.toOrders(KEYSET_SORT, root, cb));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    // L'ordre des arguments suit le constructeur de AnnonceCardDto
+    private static Selection<AnnonceCardDto> card(CriteriaBuilder cb, Root<Annonce> root) {
+        Join<Annonce, User> owner = root.join("owner");
+        return cb.construct(AnnonceCardDto.class,
+                root.get("id"),
+                root.get("titre"),
+                cb.substring(root.get("description"), 1, AnnonceCardDto.EXCERPT_LENGTH),
+                root.get("zoneGeographique"),
+                root.get("etatObjet"),
+                root.get("modeLivraison"),
+                root.get("datePublication"),
+                owner.get("username"),
+                root.get("primaryImageId"),
+                root.get("favoriteCount"),
+                root.get("active"),
+                root.get("reserved"),
+                root.get("given"));
+    }
+
+    private long count(Specification<Annonce> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Annonce> root = query.from(Annonce.class);
+        where(query, spec.toPredicate(root, query, cb));
+        query.select(query.isDistinct() ? cb.countDistinct(root) : cb.count(root));
+        query.distinct(false);
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private static void where(CriteriaQuery<?> query, Predicate predicate) {
+        if (predicate != null) {
+            query.where(predicate);
+        }
+    }
+}
@@ -8,17 +8,21 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import org.springframework.data.rest.core.annotation.RestResource;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 @RepositoryRestResource(path = "annonces", collectionResourceRel = "annonces")
-public interface AnnonceRepository extends JpaRepository<Annonce, Long>, JpaSpecificationExecutor<Annonce> {
+public interface AnnonceRepository extends JpaRepository<Annonce, Long>, JpaSpecificationExecutor<Annonce>,
+        AnnonceCardRepository {
 
     Page<Annonce> findByActiveTrue(Pageable pageable);
 
@@ -37,6 +41,18 @@ public interface AnnonceRepository extends JpaRepository<Annonce, Long>, JpaSpec
            "LOWER(a.description) LIKE LOWER(CONCAT('%', :query, '%')))")
     Page<Annonce> searchByQuery(@Param("query") String query, Pageable pageable);
 
+    @Query("SELECT DISTINCT a FROM Annonce a LEFT JOIN FETCH a.keywords WHERE a.active = true")
+    List<Annonce> findAllActiveWithKeywords();
+
+    @RestResource(exported = false)
+    @Query("SELECT a.id FROM Annonce a WHERE a.active = true AND (a.datePublication > :date " +
+           "OR (a.datePublication = :date AND a.id > :id)) ORDER BY a.datePublication, a.id")
+    List<Long> findActiveIdsPublishedAfter(@Param("date") LocalDateTime date, @Param("id") Long id, Pageable pageable);
+
+    @RestResource(exported = false)
+    @Query("SELECT DISTINCT a FROM Annonce a LEFT JOIN FETCH a.keywords WHERE a.id IN :ids")
+    List<Annonce> findAllWithKeywordsByIdIn(@Param("ids") Collection<Long> ids);
+
     @Query("SELECT DISTINCT a FROM Annonce a JOIN a.keywords k WHERE a.active = true AND k.name IN :keywords")
     Page<Annonce> findByKeywords(@Param("keywords") List<String> keywords, Pageable pageable);
 
@@ -57,5 +73,43 @@ public interface AnnonceRepository extends JpaRepository<Annonce, Long>, JpaSpec
         @Param("keywords") List<String> keywords
     );
 
+    @Query("SELECT a.id AS annonceId, k.name AS name FROM Annonce a JOIN a.keywords k WHERE a.id IN :annonceIds")
+    List<AnnonceKeyword> findKeywordNamesByAnnonceIds(@Param("annonceIds") Collection<Long> annonceIds);
+
+    List<Annonce> findByLotIdIn(Collection<Long> lotIds);
+
+    @Modifying
+    @RestResource(exported = false)
+    @Query("UPDATE Annonce a SET a.favoriteCount = a.favoriteCount + :delta WHERE a.id IN :ids")
+    int incrementFavoriteCount(@Param("ids") Collection<Long> ids, @Param("delta") int delta);
+
+    @Modifying
+    @RestResource(exported = false)
+    @Query("UPDATE Annonce a SET a.favoriteCount = (SELECT COUNT(f) FROM Favorite f WHERE f.annonce = a) " +
+           "WHERE a.favoriteCount <> (SELECT COUNT(f) FROM Favorite f WHERE f.annonce = a)")
+    int reconcileFavoriteCounts();
+
+    @Modifying
+    @RestResource(exported = false)
+    @Query("UPDATE Annonce a SET a.primaryImageId = :imageId WHERE a.id = :id")
+    int updatePrimaryImageId(@Param("id") Long id, @Param("imageId") Long imageId);
+
+    // Rattrapage : l'image marquée principale, sinon la plus ancienne de l'annonce
+    @Modifying
+    @RestResource(exported = false)
+    @Query("UPDATE Annonce a SET a.primaryImageId = COALESCE(" +
+           "(SELECT MIN(i.id) FROM Image i WHERE i.annonce = a AND i.isPrimary = true), " +
+           "(SELECT MIN(i.id) FROM Image i WHERE i.annonce = a)) " +
+           "WHERE a.primaryImageId IS NULL AND EXISTS (SELECT i.id FROM Image i WHERE i.annonce = a)")
+    int backfillPrimaryImageIds();
+
     long countByOwnerAndActiveTrue(User owner);
+
+    long countByActiveTrue();
+
+    interface AnnonceKeyword {
+        Long getAnnonceId();
+
+        String getName();
+    }
 }
@@ -0,0 +1,32 @@
+package com.dev.plateforme_de_dons.repository;
+
+import com.dev.plateforme_de_dons.model.Conversation;
+import com.dev.plateforme_de_dons.model.User;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+@RepositoryRestResource(exported = false)
+public interface ConversationRepository extends JpaRepository<Conversation, Long> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Conversation c WHERE c.userA.id = :userAId AND c.userB.id = :userBId AND c.annonceKey = :annonceKey")
+    Optional<Conversation> findForUpdate(@Param("userAId") Long userAId,
+                                         @Param("userBId") Long userBId,
+                                         @Param("annonceKey") long annonceKey);
+
+    @EntityGraph(attributePaths = {"userA", "userB", "annonce", "lastMessage"})
+    @Query(value = "SELECT c FROM Conversation c WHERE c.userA = :user OR c.userB = :user ORDER BY c.lastMessageAt DESC, c.id DESC",
+            countQuery = "SELECT COUNT(c) FROM Conversation c WHERE c.userA = :user OR c.userB = :user")
+    Page<Conversation> findInbox(@Param("user") User user, Pageable pageable);
+}
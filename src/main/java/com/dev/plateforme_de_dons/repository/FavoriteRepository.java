@@ -1,12 +1,17 @@
 package com.dev.plateforme_de_dons.repository;
 
+import com.dev.plateforme_de_dons.dto.AnnonceCardDto;
 import com.dev.plateforme_de_dons.model.Annonce;
 import com.dev.plateforme_de_dons.model.Favorite;
 import com.dev.plateforme_de_dons.model.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import org.springframework.data.rest.core.annotation.RestResource;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -15,13 +20,24 @@ import java.util.Optional;
 @RepositoryRestResource(path = "favorites", collectionResourceRel = "favorites")
 public interface FavoriteRepository extends JpaRepository<Favorite, Long> {
 
+    @EntityGraph(attributePaths = "annonce")
     Page<Favorite> findByUser(User user, Pageable pageable);
 
+    // Même projection que AnnonceCardRepositoryImpl, triée sur la date d'ajout aux favoris
+    @RestResource(exported = false)
+    @Query(value = "SELECT new com.dev.plateforme_de_dons.dto.AnnonceCardDto(a.id, a.titre, " +
+                   "SUBSTRING(a.description, 1, " + AnnonceCardDto.EXCERPT_LENGTH + "), a.zoneGeographique, " +
+                   "a.etatObjet, a.modeLivraison, a.datePublication, o.username, a.primaryImageId, " +
+                   "a.favoriteCount, a.active, a.reserved, a.given) " +
+                   "FROM Favorite f JOIN f.annonce a JOIN a.owner o WHERE f.user = :user",
+           countQuery = "SELECT COUNT(f) FROM Favorite f WHERE f.user = :user")
+    Page<AnnonceCardDto> findCardsByUser(@Param("user") User user, Pageable pageable);
+
     Optional<Favorite> findByUserAndAnnonce(User user, Annonce annonce);
 
     boolean existsByUserAndAnnonce(User user, Annonce annonce);
 
-    void deleteByUserAndAnnonce(User user, Annonce annonce);
+    long deleteByUserAndAnnonce(User user, Annonce annonce);
 
     long countByUser(User user);
 
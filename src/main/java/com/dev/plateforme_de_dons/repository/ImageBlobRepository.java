@@ -0,0 +1,22 @@
+package com.dev.plateforme_de_dons.repository;
+
+import com.dev.plateforme_de_dons.model.ImageBlob;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+@RepositoryRestResource(exported = false)
+public interface ImageBlobRepository extends JpaRepository<ImageBlob, String> {
+
+    // Verrou tenu jusqu'au commit : un upload et la suppression de la dernière référence ne se croisent pas
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM ImageBlob b WHERE b.hash = :hash")
+    Optional<ImageBlob> findForUpdate(@Param("hash") String hash);
+}
@@ -3,9 +3,16 @@ package com.dev.plateforme_de_dons.repository;
 import com.dev.plateforme_de_dons.model.Annonce;
 import com.dev.plateforme_de_dons.model.Image;
 import com.dev.plateforme_de_dons.model.Lot;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.rest.core.annotation.RestResource;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,13 +23,45 @@ public interface ImageRepository extends JpaRepository<Image, Long> {
 
     List<Image> findByLot(Lot lot);
 
+    List<Image> findByAnnonceIdIn(Collection<Long> annonceIds);
+
+    List<Image> findByLotIdIn(Collection<Long> lotIds);
+
     Optional<Image> findByAnnonceAndIsPrimaryTrue(Annonce annonce);
 
     Optional<Image> findByLotAndIsPrimaryTrue(Lot lot);
 
     Optional<Image> findByFilename(String filename);
 
+    // Remplaçante de l'image principale supprimée : la plus ancienne restante
+    @RestResource(exported = false)
+    Optional<Image> findFirstByAnnonceAndIdNotOrderByIdAsc(Annonce annonce, Long id);
+
+    @RestResource(exported = false)
+    Optional<Image> findFirstByLotAndIdNotOrderByIdAsc(Lot lot, Long id);
+
+    @RestResource(exported = false)
+    Optional<Image> findFirstByContentHashAndThumbPathIsNotNull(String contentHash);
+
+    @RestResource(exported = false)
+    boolean existsByContentHashAndIdNot(String contentHash, Long id);
+
     void deleteByAnnonce(Annonce annonce);
 
     void deleteByLot(Lot lot);
-}
\ No newline at end of file
+
+    // Images dont les déclinaisons n'ont pas encore été générées, parcourues par id croissant
+    @RestResource(exported = false)
+    @Query("SELECT i FROM Image i WHERE i.thumbPath IS NULL AND i.id > :afterId ORDER BY i.id")
+    List<Image> findWithoutVariantsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Mise à jour ciblée depuis le pool de génération, sans écraser les autres colonnes
+    @RestResource(exported = false)
+    @Transactional
+    @Modifying
+    @Query("UPDATE Image i SET i.thumbPath = :thumbPath, i.cardPath = :cardPath, i.fullPath = :fullPath WHERE i.id = :id")
+    int updateVariantPaths(@Param("id") Long id,
+                           @Param("thumbPath") String thumbPath,
+                           @Param("cardPath") String cardPath,
+                           @Param("fullPath") String fullPath);
+}
@@ -1,11 +1,17 @@
 package com.dev.plateforme_de_dons.repository;
 
+import com.dev.plateforme_de_dons.dto.KeywordUsageDto;
 import com.dev.plateforme_de_dons.model.Keyword;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import org.springframework.data.rest.core.annotation.RestResource;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,10 +21,36 @@ public interface KeywordRepository extends JpaRepository<Keyword, Long> {
 
     Optional<Keyword> findByNameIgnoreCase(String name);
 
+    @RestResource(exported = false)
+    List<Keyword> findByNameIn(Collection<String> names);
+
     List<Keyword> findByNameContainingIgnoreCase(String name);
 
     boolean existsByNameIgnoreCase(String name);
 
-    @Query("SELECT k FROM Keyword k WHERE SIZE(k.annonces) > 0 ORDER BY SIZE(k.annonces) DESC")
+    // Compteur matérialisé : plus de COUNT corrélé sur annonce_keywords par mot-clé
+    @Query("SELECT k FROM Keyword k WHERE k.usageCount > 0 ORDER BY k.usageCount DESC, k.name ASC")
     List<Keyword> findPopularKeywords();
+
+    @RestResource(exported = false)
+    @Query("SELECT new com.dev.plateforme_de_dons.dto.KeywordUsageDto(k.id, k.name, k.usageCount) FROM Keyword k " +
+           "WHERE k.usageCount > 0 ORDER BY k.usageCount DESC, k.name ASC")
+    List<KeywordUsageDto> findTopUsage(Pageable pageable);
+
+    @RestResource(exported = false)
+    @Query("SELECT new com.dev.plateforme_de_dons.dto.KeywordUsageDto(k.id, k.name, k.usageCount) FROM Keyword k")
+    List<KeywordUsageDto> findAllUsage();
+
+    @Modifying
+    @RestResource(exported = false)
+    @Query("UPDATE Keyword k SET k.usageCount = k.usageCount + :delta WHERE k.id IN :ids")
+    int incrementUsageCount(@Param("ids") Collection<Long> ids, @Param("delta") int delta);
+
+    @Modifying
+    @RestResource(exported = false)
+    @Query("UPDATE Keyword k SET k.usageCount = " +
+           "(SELECT COUNT(a) FROM Annonce a JOIN a.keywords ak WHERE ak.id = k.id AND a.active = true) " +
+           "WHERE k.usageCount <> " +
+           "(SELECT COUNT(a) FROM Annonce a JOIN a.keywords ak WHERE ak.id = k.id AND a.active = true)")
+    int reconcileUsageCounts();
 }
@@ -4,8 +4,13 @@ import com.dev.plateforme_de_dons.model.Lot;
 import com.dev.plateforme_de_dons.model.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import org.springframework.data.rest.core.annotation.RestResource;
 import org.springframework.stereotype.Repository;
 
 @Repository
@@ -16,7 +21,22 @@ public interface LotRepository extends JpaRepository<Lot, Long> {
 
     Page<Lot> findByCreatorAndActiveTrue(User creator, Pageable pageable);
 
+    @EntityGraph(attributePaths = "creator")
     Page<Lot> findByActiveTrue(Pageable pageable);
 
     long countByCreatorAndActiveTrue(User creator);
+
+    @Modifying
+    @RestResource(exported = false)
+    @Query("UPDATE Lot l SET l.primaryImageId = :imageId WHERE l.id = :id")
+    int updatePrimaryImageId(@Param("id") Long id, @Param("imageId") Long imageId);
+
+    // Rattrapage : l'image marquée principale, sinon la plus ancienne du lot
+    @Modifying
+    @RestResource(exported = false)
+    @Query("UPDATE Lot l SET l.primaryImageId = COALESCE(" +
+           "(SELECT MIN(i.id) FROM Image i WHERE i.lot = l AND i.isPrimary = true), " +
+           "(SELECT MIN(i.id) FROM Image i WHERE i.lot = l)) " +
+           "WHERE l.primaryImageId IS NULL AND EXISTS (SELECT i.id FROM Image i WHERE i.lot = l)")
+    int backfillPrimaryImageIds();
 }
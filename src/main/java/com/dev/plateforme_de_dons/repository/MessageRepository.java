@@ -6,11 +6,14 @@ import com.dev.plateforme_de_dons.model.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import org.springframework.data.rest.core.annotation.RestResource;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -32,6 +35,19 @@ public interface MessageRepository extends JpaRepository<Message, Long> {
             "ORDER BY m.sentAt ASC")
     List<Message> findConversation(@Param("user1") User user1, @Param("user2") User user2, @Param("annonce") Annonce annonce);
 
+    // Fenêtre du fil, du plus récent au plus ancien, strictement avant (beforeSentAt, beforeId)
+    @RestResource(exported = false)
+    @Query("SELECT m FROM Message m WHERE " +
+            "((m.sender = :user1 AND m.receiver = :user2) OR (m.sender = :user2 AND m.receiver = :user1)) " +
+            "AND (:annonce IS NULL OR m.annonce = :annonce) " +
+            "AND (:beforeSentAt IS NULL OR m.sentAt < :beforeSentAt OR (m.sentAt = :beforeSentAt AND m.id < :beforeId)) " +
+            "ORDER BY m.sentAt DESC, m.id DESC")
+    List<Message> findConversationBefore(@Param("user1") User user1, @Param("user2") User user2,
+                                         @Param("annonce") Annonce annonce,
+                                         @Param("beforeSentAt") LocalDateTime beforeSentAt,
+                                         @Param("beforeId") Long beforeId,
+                                         Pageable pageable);
+
     @Query("SELECT DISTINCT CASE WHEN m.sender = :user THEN m.receiver ELSE m.sender END FROM Message m " +
             "WHERE m.sender = :user OR m.receiver = :user")
     List<User> findConversationPartners(@Param("user") User user);
@@ -42,7 +58,51 @@ public interface MessageRepository extends JpaRepository<Message, Long> {
     @Query("SELECT DISTINCT m.sender FROM Message m WHERE m.receiver = :user")
     List<User> findSendersForReceiver(@Param("user") User user);
 
+    // Lecture d'un fil en une seule requête, jusqu'au message upToId inclus ; renvoie le nombre de messages marqués
+    @Modifying
+    @RestResource(exported = false)
+    @Query("UPDATE Message m SET m.read = true, m.readAt = CURRENT_TIMESTAMP " +
+            "WHERE m.receiver = :reader AND m.sender = :sender AND m.read = false " +
+            "AND (:annonce IS NULL OR m.annonce = :annonce) AND (:upToId IS NULL OR m.id <= :upToId)")
+    int markConversationAsRead(@Param("reader") User reader, @Param("sender") User sender,
+                               @Param("annonce") Annonce annonce, @Param("upToId") Long upToId);
+
+    @RestResource(exported = false)
+    @Query("SELECT a.id AS annonceId, COUNT(m) AS unread FROM Message m LEFT JOIN m.annonce a " +
+            "WHERE m.receiver = :reader AND m.sender = :sender AND m.read = false " +
+            "AND (:upToId IS NULL OR m.id <= :upToId) GROUP BY a.id")
+    List<UnreadByAnnonce> countUnreadByAnnonce(@Param("reader") User reader, @Param("sender") User sender,
+                                               @Param("upToId") Long upToId);
+
     long countByReceiverAndReadFalse(User receiver);
 
+    @RestResource(exported = false)
+    long countByReceiverIdAndReadFalse(Long receiverId);
+
     Page<Message> findByAnnonce(Annonce annonce, Pageable pageable);
+
+    @RestResource(exported = false)
+    @Query("SELECT m.id AS id, m.sender.id AS senderId, m.receiver.id AS receiverId, a.id AS annonceId, " +
+            "m.sentAt AS sentAt, m.read AS read FROM Message m LEFT JOIN m.annonce a WHERE m.id > :afterId ORDER BY m.id")
+    List<MessageSummary> findSummariesAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    interface UnreadByAnnonce {
+        Long getAnnonceId();
+
+        long getUnread();
+    }
+
+    interface MessageSummary {
+        Long getId();
+
+        Long getSenderId();
+
+        Long getReceiverId();
+
+        Long getAnnonceId();
+
+        LocalDateTime getSentAt();
+
+        boolean isRead();
+    }
 }
\ No newline at end of file
@@ -9,8 +9,12 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import org.springframework.data.rest.core.annotation.RestResource;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 @RepositoryRestResource(path = "notifications", collectionResourceRel = "notifications")
 public interface NotificationRepository extends JpaRepository<Notification, Long> {
@@ -21,7 +25,15 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
 
     long countByUserAndReadFalse(User user);
 
+    @RestResource(exported = false)
+    long countByUserIdAndReadFalse(Long userId);
+
     @Modifying
     @Query("UPDATE Notification n SET n.read = true, n.readAt = CURRENT_TIMESTAMP WHERE n.user = :user AND n.read = false")
     void markAllAsReadForUser(@Param("user") User user);
+
+    @RestResource(exported = false)
+    @Query("SELECT n.savedSearch.id FROM Notification n WHERE n.annonce.id = :annonceId AND n.savedSearch.id IN :savedSearchIds")
+    List<Long> findSavedSearchIdsNotifiedForAnnonce(@Param("annonceId") Long annonceId,
+                                                    @Param("savedSearchIds") Collection<Long> savedSearchIds);
 }
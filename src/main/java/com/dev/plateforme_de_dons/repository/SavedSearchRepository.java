@@ -5,9 +5,16 @@ import com.dev.plateforme_de_dons.model.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import org.springframework.data.rest.core.annotation.RestResource;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -20,5 +27,23 @@ public interface SavedSearchRepository extends JpaRepository<SavedSearch, Long>
 
     List<SavedSearch> findByNotificationsEnabledTrue();
 
+    @RestResource(exported = false)
+    @Query("SELECT s.id AS id, s.user.id AS userId, s.name AS name FROM SavedSearch s WHERE s.id IN :ids")
+    List<AlertRecipient> findAlertRecipientsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Transactional
+    @RestResource(exported = false)
+    @Query("UPDATE SavedSearch s SET s.lastNotificationAt = :at WHERE s.id IN :ids")
+    int markNotified(@Param("ids") Collection<Long> ids, @Param("at") LocalDateTime at);
+
     long countByUser(User user);
+
+    interface AlertRecipient {
+        Long getId();
+
+        Long getUserId();
+
+        String getName();
+    }
 }
@@ -0,0 +1,5 @@
+package com.dev.plateforme_de_dons.service;
+
+// Publié à la création ou modification d'une annonce, traité après commit
+public record AnnonceSavedEvent(Long annonceId) {
+}
@@ -0,0 +1,393 @@
+package com.dev.plateforme_de_dons.service;
+
+import com.dev.plateforme_de_dons.config.AfterCommit;
+import com.dev.plateforme_de_dons.dto.SearchCriteriaDto;
+import com.dev.plateforme_de_dons.model.Annonce;
+import com.dev.plateforme_de_dons.model.EtatObjet;
+import com.dev.plateforme_de_dons.model.Keyword;
+import com.dev.plateforme_de_dons.model.ModeLivraison;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Component
+@Slf4j
+public class AnnonceSearchIndex {
+
+    private static final int MIN_PREFIX_LENGTH = 3;
+
+    // Paramètres BM25F : poids par champ, saturation (k1) et normalisation de longueur (b)
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final double TITLE_WEIGHT = 3.0;
+    private static final double KEYWORD_WEIGHT = 2.0;
+    private static final double DESCRIPTION_WEIGHT = 1.0;
+    private static final double PREFIX_PENALTY = 0.5;
+
+    // Bonus de fraîcheur : jusqu'à +50 %, divisé par deux tous les 30 jours
+    private static final double RECENCY_BOOST = 0.5;
+    private static final double RECENCY_HALF_LIFE_DAYS = 30.0;
+
+    private static final Comparator<DatedAnnonce> NEWEST_FIRST = Comparator
+            .comparing(DatedAnnonce::datePublication, Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder()))
+            .thenComparing(DatedAnnonce::id)
+            .reversed();
+
+    private final NavigableMap<String, Set<Long>> postings = new TreeMap<>();
+    private final Map<Long, IndexedAnnonce> documents = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private long totalTitleLength;
+    private long totalDescriptionLength;
+    private long totalKeywordLength;
+
+    // Le document est construit tout de suite (mots-clés chargés dans la transaction),
+    // mais n'est visible qu'après commit : un rollback ne laisse rien dans l'index
+    public void index(Annonce annonce) {
+        if (annonce.getId() == null) {
+            return;
+        }
+        if (!annonce.isActive()) {
+            remove(annonce.getId());
+            return;
+        }
+
+        Long id = annonce.getId();
+        IndexedAnnonce document = new IndexedAnnonce(annonce);
+        AfterCommit.run(() -> put(id, document));
+    }
+
+    public void remove(Long annonceId) {
+        AfterCommit.run(() -> {
+            lock.writeLock().lock();
+            try {
+                removeInternal(annonceId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    public void rebuild(Collection<Annonce> annonces) {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            totalTitleLength = 0;
+            totalDescriptionLength = 0;
+            totalKeywordLength = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        annonces.stream()
+                .filter(annonce -> annonce.getId() != null && annonce.isActive())
+                .forEach(annonce -> put(annonce.getId(), new IndexedAnnonce(annonce)));
+        log.info("Index de recherche reconstruit : {} annonces, {} termes", size(), termCount());
+    }
+
+    // Ids des annonces contenant tous les termes (le dernier est aussi cherché comme préfixe).
+    // Optional vide si la requête ne contient aucun terme exploitable.
+    public Optional<Set<Long>> search(String query) {
+        List<String> tokens = TextAnalyzer.tokenize(query);
+        if (tokens.isEmpty()) {
+            return Optional.empty();
+        }
+
+        lock.readLock().lock();
+        try {
+            return Optional.of(matchAll(tokens));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Annonces correspondant à la requête et aux critères, de la plus récente à la plus ancienne
+    // (datePublication puis id décroissants), strictement après le curseur s'il est fourni.
+    // Une requête sans terme exploitable (mots vides uniquement) ne correspond à rien.
+    public List<Long> filter(SearchCriteriaDto criteria, LocalDateTime afterDate, Long afterId) {
+        List<String> tokens = TextAnalyzer.tokenize(criteria.getQuery());
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            List<DatedAnnonce> matches = new ArrayList<>();
+            for (Long id : matchAll(tokens)) {
+                IndexedAnnonce document = documents.get(id);
+                if (document != null && document.matches(criteria)
+                        && isAfterCursor(document.datePublication, id, afterDate, afterId)) {
+                    matches.add(new DatedAnnonce(id, document.datePublication));
+                }
+            }
+            matches.sort(NEWEST_FIRST);
+            return matches.stream().map(DatedAnnonce::id).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Annonces correspondant à tous les critères, triées par score BM25F pondéré par la fraîcheur
+    public List<Long> rank(SearchCriteriaDto criteria) {
+        List<String> tokens = TextAnalyzer.tokenize(criteria.getQuery());
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+
+        lock.readLock().lock();
+        try {
+            Set<Long> candidates = matchAll(tokens);
+            if (candidates.isEmpty()) {
+                return List.of();
+            }
+
+            List<QueryTerm> queryTerms = resolveQueryTerms(tokens);
+            List<ScoredAnnonce> scored = new ArrayList<>();
+            for (Long id : candidates) {
+                IndexedAnnonce document = documents.get(id);
+                if (document != null && document.matches(criteria)) {
+                    scored.add(new ScoredAnnonce(id, score(document, queryTerms, now)));
+                }
+            }
+
+            scored.sort(Comparator.comparingDouble(ScoredAnnonce::score).reversed()
+                    .thenComparing(ScoredAnnonce::id, Comparator.reverseOrder()));
+            return scored.stream().map(ScoredAnnonce::id).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int termCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void put(Long id, IndexedAnnonce document) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(id);
+            for (String term : document.terms()) {
+                postings.computeIfAbsent(term, t -> new HashSet<>()).add(id);
+            }
+            documents.put(id, document);
+            totalTitleLength += document.titleLength;
+            totalDescriptionLength += document.descriptionLength;
+            totalKeywordLength += document.keywordLength;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Set<Long> matchAll(List<String> tokens) {
+        Set<Long> result = null;
+        for (int i = 0; i < tokens.size(); i++) {
+            String token = tokens.get(i);
+            Set<Long> matches = new HashSet<>();
+            for (String term : expand(token, isPrefixToken(tokens, i))) {
+                matches.addAll(postings.getOrDefault(term, Collections.emptySet()));
+            }
+
+            if (result == null) {
+                result = matches;
+            } else {
+                result.retainAll(matches);
+            }
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    private List<QueryTerm> resolveQueryTerms(List<String> tokens) {
+        List<QueryTerm> queryTerms = new ArrayList<>();
+        for (int i = 0; i < tokens.size(); i++) {
+            String stem = TextAnalyzer.stem(tokens.get(i));
+            for (String term : expand(tokens.get(i), isPrefixToken(tokens, i))) {
+                double boost = term.equals(stem) ? 1.0 : PREFIX_PENALTY;
+                queryTerms.add(new QueryTerm(term, idf(term) * boost));
+            }
+        }
+        return queryTerms;
+    }
+
+    private Set<String> expand(String token, boolean prefix) {
+        String stem = TextAnalyzer.stem(token);
+        Set<String> terms = new HashSet<>();
+        if (postings.containsKey(stem)) {
+            terms.add(stem);
+        }
+        if (prefix) {
+            terms.addAll(postings.subMap(token, true, token + Character.MAX_VALUE, false).keySet());
+        }
+        return terms;
+    }
+
+    private boolean isPrefixToken(List<String> tokens, int index) {
+        return index == tokens.size() - 1 && tokens.get(index).length() >= MIN_PREFIX_LENGTH;
+    }
+
+    private double idf(String term) {
+        int documentFrequency = postings.getOrDefault(term, Collections.emptySet()).size();
+        int n = documents.size();
+        return Math.log(1.0 + (n - documentFrequency + 0.5) / (documentFrequency + 0.5));
+    }
+
+    private double score(IndexedAnnonce document, List<QueryTerm> queryTerms, LocalDateTime now) {
+        int n = Math.max(documents.size(), 1);
+        double avgTitle = Math.max((double) totalTitleLength / n, 1.0);
+        double avgDescription = Math.max((double) totalDescriptionLength / n, 1.0);
+        double avgKeywords = Math.max((double) totalKeywordLength / n, 1.0);
+
+        double score = 0.0;
+        for (QueryTerm queryTerm : queryTerms) {
+            double tf = TITLE_WEIGHT * normalize(document.titleTf, queryTerm.term, document.titleLength, avgTitle)
+                    + DESCRIPTION_WEIGHT * normalize(document.descriptionTf, queryTerm.term, document.descriptionLength, avgDescription)
+                    + KEYWORD_WEIGHT * normalize(document.keywordTf, queryTerm.term, document.keywordLength, avgKeywords);
+            if (tf > 0) {
+                score += queryTerm.weight * tf / (K1 + tf);
+            }
+        }
+
+        if (document.datePublication != null) {
+            double ageDays = Math.max(Duration.between(document.datePublication, now).toHours() / 24.0, 0.0);
+            score *= 1.0 + RECENCY_BOOST * Math.pow(0.5, ageDays / RECENCY_HALF_LIFE_DAYS);
+        }
+        return score;
+    }
+
+    private double normalize(Map<String, Integer> termFrequencies, String term, int length, double averageLength) {
+        Integer tf = termFrequencies.get(term);
+        if (tf == null) {
+            return 0.0;
+        }
+        return tf / (1.0 - B + B * length / averageLength);
+    }
+
+    private void removeInternal(Long annonceId) {
+        IndexedAnnonce document = documents.remove(annonceId);
+        if (document == null) {
+            return;
+        }
+        totalTitleLength -= document.titleLength;
+        totalDescriptionLength -= document.descriptionLength;
+        totalKeywordLength -= document.keywordLength;
+        for (String term : document.terms()) {
+            Set<Long> ids = postings.get(term);
+            if (ids != null) {
+                ids.remove(annonceId);
+                if (ids.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    // Même ordre que la pagination par curseur de AnnonceCardRepository.findCardsAfter
+    private static boolean isAfterCursor(LocalDateTime date, Long id, LocalDateTime afterDate, Long afterId) {
+        if (afterDate == null) {
+            return true;
+        }
+        return date != null && (date.isBefore(afterDate) || date.isEqual(afterDate) && id < afterId);
+    }
+
+    private record QueryTerm(String term, double weight) {
+    }
+
+    private record DatedAnnonce(Long id, LocalDateTime datePublication) {
+    }
+
+    private record ScoredAnnonce(Long id, double score) {
+    }
+
+    private static class IndexedAnnonce {
+
+        private final Map<String, Integer> titleTf;
+        private final Map<String, Integer> descriptionTf;
+        private final Map<String, Integer> keywordTf;
+        private final int titleLength;
+        private final int descriptionLength;
+        private final int keywordLength;
+        private final Set<String> keywordNames = new HashSet<>();
+        private final String zone;
+        private final EtatObjet etatObjet;
+        private final ModeLivraison modeLivraison;
+        private final LocalDateTime datePublication;
+
+        IndexedAnnonce(Annonce annonce) {
+            List<String> titleTerms = TextAnalyzer.analyze(annonce.getTitre());
+            List<String> descriptionTerms = TextAnalyzer.analyze(annonce.getDescription());
+            List<String> keywordTerms = new ArrayList<>();
+            for (Keyword keyword : annonce.getKeywords()) {
+                keywordNames.add(keyword.getName());
+                keywordTerms.addAll(TextAnalyzer.analyze(keyword.getName()));
+            }
+
+            this.titleTf = frequencies(titleTerms);
+            this.descriptionTf = frequencies(descriptionTerms);
+            this.keywordTf = frequencies(keywordTerms);
+            this.titleLength = titleTerms.size();
+            this.descriptionLength = descriptionTerms.size();
+            this.keywordLength = keywordTerms.size();
+            this.zone = TextAnalyzer.fold(annonce.getZoneGeographique());
+            this.etatObjet = annonce.getEtatObjet();
+            this.modeLivraison = annonce.getModeLivraison();
+            this.datePublication = annonce.getDatePublication();
+        }
+
+        Set<String> terms() {
+            Set<String> terms = new HashSet<>(titleTf.keySet());
+            terms.addAll(descriptionTf.keySet());
+            terms.addAll(keywordTf.keySet());
+            return terms;
+        }
+
+        boolean matches(SearchCriteriaDto criteria) {
+            if (criteria.getZoneGeographique() != null && !criteria.getZoneGeographique().isBlank()
+                    && !zone.contains(TextAnalyzer.fold(criteria.getZoneGeographique()))) {
+                return false;
+            }
+            if (criteria.getEtatObjet() != null && criteria.getEtatObjet() != etatObjet) {
+                return false;
+            }
+            if (criteria.getModeLivraison() != null && criteria.getModeLivraison() != modeLivraison) {
+                return false;
+            }
+            if (criteria.getKeywords() != null && !criteria.getKeywords().isEmpty()) {
+                return criteria.getKeywords().stream()
+                        .map(String::toLowerCase)
+                        .anyMatch(keywordNames::contains);
+            }
+            return true;
+        }
+
+        private static Map<String, Integer> frequencies(List<String> terms) {
+            Map<String, Integer> frequencies = new HashMap<>();
+            for (String term : terms) {
+                frequencies.merge(term, 1, Integer::sum);
+            }
+            return frequencies;
+        }
+    }
+}
@@ -1,22 +1,31 @@
 package com.dev.plateforme_de_dons.service;
 
+import com.dev.plateforme_de_dons.dto.AnnonceCardDto;
 import com.dev.plateforme_de_dons.dto.AnnonceDto;
+import com.dev.plateforme_de_dons.dto.CursorPage;
+import com.dev.plateforme_de_dons.dto.ImageDto;
 import com.dev.plateforme_de_dons.dto.SearchCriteriaDto;
 import com.dev.plateforme_de_dons.model.*;
 import com.dev.plateforme_de_dons.repository.AnnonceRepository;
-import com.dev.plateforme_de_dons.repository.FavoriteRepository;
-import com.dev.plateforme_de_dons.repository.KeywordRepository;
+import com.dev.plateforme_de_dons.repository.UserRepository;
 import jakarta.persistence.criteria.Join;
 import jakarta.persistence.criteria.JoinType;
 import jakarta.persistence.criteria.Predicate;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.Hibernate;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -26,9 +35,13 @@ import java.util.stream.Collectors;
 public class AnnonceService {
 
     private final AnnonceRepository annonceRepository;
-    private final KeywordRepository keywordRepository;
-    private final FavoriteRepository favoriteRepository;
+    private final KeywordDictionary keywordDictionary;
+    private final KeywordService keywordService;
+    private final UserRepository userRepository;
     private final ImageService imageService;
+    private final FavoriteCountBuffer favoriteCountBuffer;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AnnonceSearchIndex searchIndex;
 
     public Annonce createAnnonce(AnnonceDto dto, User owner) {
         Annonce annonce = new Annonce();
@@ -42,7 +55,10 @@ public class AnnonceService {
 
         processKeywords(annonce, dto.getKeywordsInput());
 
-        return annonceRepository.save(annonce);
+        Annonce saved = annonceRepository.save(annonce);
+        searchIndex.index(saved);
+        eventPublisher.publishEvent(new AnnonceSavedEvent(saved.getId()));
+        return saved;
     }
 
     public Annonce updateAnnonce(Long id, AnnonceDto dto, User owner) {
@@ -59,30 +75,52 @@ public class AnnonceService {
         annonce.setZoneGeographique(dto.getZoneGeographique());
         annonce.setModeLivraison(dto.getModeLivraison());
 
-        annonce.getKeywords().clear();
         processKeywords(annonce, dto.getKeywordsInput());
 
-        return annonceRepository.save(annonce);
+        Annonce saved = annonceRepository.save(annonce);
+        searchIndex.index(saved);
+        eventPublisher.publishEvent(new AnnonceSavedEvent(saved.getId()));
+        return saved;
     }
 
+    // N'applique que la différence avec les mots-clés actuels : une seule requête pour les ajouts,
+    // aucune pour les mots-clés inchangés. Seul le côté propriétaire (Annonce.keywords) est modifié,
+    // Keyword.annonces n'est jamais chargé.
     private void processKeywords(Annonce annonce, String keywordsInput) {
-        if (keywordsInput != null && !keywordsInput.isBlank()) {
-            Arrays.stream(keywordsInput.split(","))
-                    .map(String::trim)
-                    .map(String::toLowerCase)
-                    .filter(k -> !k.isEmpty())
-                    .distinct()
-                    .forEach(keywordName -> {
-                        Keyword keyword = keywordRepository.findByNameIgnoreCase(keywordName)
-                                .orElseGet(() -> {
-                                    Keyword newKeyword = new Keyword(keywordName);
-                                    return keywordRepository.save(newKeyword);
-                                });
-                        annonce.addKeyword(keyword);
-                    });
+        Set<String> wanted = parseKeywords(keywordsInput);
+
+        List<Keyword> removed = annonce.getKeywords().stream()
+                .filter(keyword -> !wanted.contains(keyword.getName()))
+                .toList();
+        removed.forEach(annonce.getKeywords()::remove);
+        annonce.getKeywords().forEach(keyword -> wanted.remove(keyword.getName()));
+        List<Keyword> added = keywordDictionary.resolve(wanted);
+        annonce.getKeywords().addAll(added);
+
+        if (annonce.isActive()) {
+            keywordService.addUsage(added, 1);
+            keywordService.addUsage(removed, -1);
         }
     }
 
+    private static Set<String> parseKeywords(String keywordsInput) {
+        Set<String> names = new LinkedHashSet<>();
+        if (keywordsInput == null || keywordsInput.isBlank()) {
+            return names;
+        }
+        for (String part : keywordsInput.split(",")) {
+            String name = part.trim().toLowerCase();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (name.length() < 2 || name.length() > 50) {
+                throw new IllegalArgumentException("Chaque mot-clé doit contenir entre 2 et 50 caractères : " + name);
+            }
+            names.add(name);
+        }
+        return names;
+    }
+
     @Transactional(readOnly = true)
     public Optional<Annonce> findById(Long id) {
         return annonceRepository.findById(id);
@@ -93,15 +131,154 @@ public class AnnonceService {
         return annonceRepository.findByActiveTrue(pageable);
     }
 
+    // Pages de liste : cartes lues par projection, sans charger les entités
+    @Transactional(readOnly = true)
+    public Page<AnnonceCardDto> findActiveCards(Pageable pageable) {
+        return addPendingFavorites(annonceRepository.findCards(isActive(), pageable));
+    }
+
+    @Transactional(readOnly = true)
+    public Page<AnnonceCardDto> findCardsByOwner(User owner, Pageable pageable) {
+        return addPendingFavorites(annonceRepository.findCards(
+                (root, query, cb) -> cb.equal(root.get("owner"), owner), pageable));
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<AnnonceCardDto> scrollActive(String cursor, int size) {
+        return scroll(isActive(), decodeCursor(cursor), size);
+    }
+
+    @Transactional(readOnly = true)
+    public long countActive() {
+        return annonceRepository.countByActiveTrue();
+    }
+
     @Transactional(readOnly = true)
     public Page<Annonce> findByOwner(User owner, Pageable pageable) {
         return annonceRepository.findByOwner(owner, pageable);
     }
 
+    // Avec une requête texte, l'index filtre et trie toutes les correspondances en mémoire
+    // (date de publication décroissante, l'ordre de tous les appelants) : seule la page
+    // demandée est chargée, par id, quel que soit le nombre de résultats.
+    @Transactional(readOnly = true)
+    public Page<AnnonceCardDto> search(SearchCriteriaDto criteria, Pageable pageable) {
+        if (hasText(criteria)) {
+            List<Long> ids = searchIndex.filter(criteria, null, null);
+            return addPendingFavorites(new PageImpl<>(findCardsInOrder(pageOf(ids, pageable)), pageable, ids.size()));
+        }
+        return addPendingFavorites(annonceRepository.findCards(buildSpecification(criteria), pageable));
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<AnnonceCardDto> scrollSearch(SearchCriteriaDto criteria, String cursor, int size) {
+        CursorKey after = decodeCursor(cursor);
+        if (hasText(criteria)) {
+            List<Long> ids = searchIndex.filter(criteria,
+                    after != null ? after.datePublication() : null,
+                    after != null ? after.id() : null);
+            return cursorPage(findCardsInOrder(ids.subList(0, Math.min(size + 1, ids.size()))), size);
+        }
+        return scroll(buildSpecification(criteria), after, size);
+    }
+
+    @Transactional(readOnly = true)
+    public long countSearch(SearchCriteriaDto criteria) {
+        if (hasText(criteria)) {
+            return searchIndex.filter(criteria, null, null).size();
+        }
+        return annonceRepository.count(buildSpecification(criteria));
+    }
+
+    @Transactional(readOnly = true)
+    public Page<AnnonceCardDto> searchByRelevance(SearchCriteriaDto criteria, Pageable pageable) {
+        if (criteria.getQuery() == null || criteria.getQuery().isBlank()) {
+            return search(criteria, pageable);
+        }
+
+        List<Long> rankedIds = searchIndex.rank(criteria);
+        return addPendingFavorites(new PageImpl<>(findCardsInOrder(pageOf(rankedIds, pageable)), pageable, rankedIds.size()));
+    }
+
+    private static boolean hasText(SearchCriteriaDto criteria) {
+        return criteria.getQuery() != null && !criteria.getQuery().isBlank();
+    }
+
+    private static List<Long> pageOf(List<Long> ids, Pageable pageable) {
+        int from = (int) Math.min(pageable.getOffset(), ids.size());
+        int to = Math.min(from + pageable.getPageSize(), ids.size());
+        return ids.subList(from, to);
+    }
+
+    // Cartes des ids donnés, dans l'ordre de la liste ; une annonce désactivée entre-temps est ignorée
+    private List<AnnonceCardDto> findCardsInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Specification<Annonce> inPage = isActive().and((root, query, cb) -> root.get("id").in(ids));
+        Map<Long, AnnonceCardDto> cardsById = annonceRepository.findCards(inPage, Pageable.unpaged()).stream()
+                .collect(Collectors.toMap(AnnonceCardDto::getId, card -> card));
+        return ids.stream()
+                .map(cardsById::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
     @Transactional(readOnly = true)
-    public Page<Annonce> search(SearchCriteriaDto criteria, Pageable pageable) {
-        Specification<Annonce> spec = buildSpecification(criteria);
-        return annonceRepository.findAll(spec, pageable);
+    public void rebuildSearchIndex() {
+        searchIndex.rebuild(annonceRepository.findAllActiveWithKeywords());
+    }
+
+    // Une ligne de plus que la page demandée indique s'il reste des annonces après le curseur
+    private CursorPage<AnnonceCardDto> scroll(Specification<Annonce> spec, CursorKey after, int size) {
+        List<AnnonceCardDto> rows = annonceRepository.findCardsAfter(spec,
+                after != null ? after.datePublication() : null,
+                after != null ? after.id() : null,
+                size + 1);
+        return cursorPage(rows, size);
+    }
+
+    // Une ligne de plus que la page demandée indique s'il reste une suite
+    private CursorPage<AnnonceCardDto> cursorPage(List<AnnonceCardDto> rows, int size) {
+        List<AnnonceCardDto> content = addPendingFavorites(rows.subList(0, Math.min(size, rows.size())));
+        String nextCursor = rows.size() > size && !content.isEmpty()
+                ? encodeCursor(content.get(content.size() - 1))
+                : null;
+        return new CursorPage<>(content, nextCursor);
+    }
+
+    private String encodeCursor(AnnonceCardDto last) {
+        String raw = last.getDatePublication() + "|" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private CursorKey decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 2);
+            return new CursorKey(LocalDateTime.parse(parts[0]), Long.valueOf(parts[1]));
+        } catch (IllegalArgumentException | DateTimeParseException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Curseur de pagination invalide");
+        }
+    }
+
+    private record CursorKey(LocalDateTime datePublication, Long id) {
+    }
+
+    private static Specification<Annonce> isActive() {
+        return (root, query, cb) -> cb.isTrue(root.get("active"));
+    }
+
+    // Compteur dénormalisé + clics pas encore écrits en base, comme pour les AnnonceDto
+    private <C extends Iterable<AnnonceCardDto>> C addPendingFavorites(C cards) {
+        for (AnnonceCardDto card : cards) {
+            card.setFavoriteCount(card.getFavoriteCount() + favoriteCountBuffer.pending(card.getId()));
+        }
+        return cards;
     }
 
     private Specification<Annonce> buildSpecification(SearchCriteriaDto criteria) {
@@ -110,13 +287,6 @@ public class AnnonceService {
 
             predicates.add(cb.isTrue(root.get("active")));
 
-            if (criteria.getQuery() != null && !criteria.getQuery().isBlank()) {
-                String pattern = "%" + criteria.getQuery().toLowerCase() + "%";
-                Predicate titleMatch = cb.like(cb.lower(root.get("titre")), pattern);
-                Predicate descMatch = cb.like(cb.lower(root.get("description")), pattern);
-                predicates.add(cb.or(titleMatch, descMatch));
-            }
-
             if (criteria.getZoneGeographique() != null && !criteria.getZoneGeographique().isBlank()) {
                 String pattern = "%" + criteria.getZoneGeographique().toLowerCase() + "%";
                 predicates.add(cb.like(cb.lower(root.get("zoneGeographique")), pattern));
@@ -152,8 +322,9 @@ public class AnnonceService {
             throw new IllegalArgumentException("Vous n'êtes pas autorisé à supprimer cette annonce");
         }
 
-        annonce.setActive(false);
+        deactivate(annonce);
         annonceRepository.save(annonce);
+        searchIndex.remove(annonce.getId());
     }
 
     public void markAsReserved(Long id, User owner) {
@@ -177,34 +348,89 @@ public class AnnonceService {
         }
 
         annonce.setGiven(true);
-        annonce.setActive(false);
+        deactivate(annonce);
         annonceRepository.save(annonce);
+        searchIndex.remove(annonce.getId());
     }
 
+    // Les mots-clés ne comptent que pour les annonces actives
+    private void deactivate(Annonce annonce) {
+        if (annonce.isActive()) {
+            annonce.setActive(false);
+            keywordService.addUsage(annonce.getKeywords(), -1);
+        }
+    }
+
+    // Vue détaillée : seule conversion qui charge toutes les images de l'annonce
+    public AnnonceDto convertToDto(Annonce annonce) {
+        AnnonceDto dto = convertToDtos(List.of(annonce)).get(0);
+        dto.setImages(imageService.convertToDtoList(imageService.findByAnnonce(annonce)));
+        return dto;
+    }
+
+    public Page<AnnonceDto> convertToDtos(Page<Annonce> page) {
+        return new PageImpl<>(convertToDtos(page.getContent()), page.getPageable(), page.getTotalElements());
+    }
+
+    // Conversion d'une liste entière en un nombre constant de requêtes : seules les associations
+    // pas encore chargées sont récupérées, en une requête IN (...) par association. Les cartes
+    // n'affichent que l'image principale, lue dans primaryImageId sans toucher à la table images.
     @Transactional(readOnly = true)
-    public List<Annonce> findNewMatchingAnnonces(SavedSearch savedSearch, LocalDateTime since) {
-        List<String> keywords = null;
-        if (savedSearch.getKeywords() != null && !savedSearch.getKeywords().isBlank()) {
-            keywords = Arrays.stream(savedSearch.getKeywords().split(","))
-                    .map(String::trim)
-                    .map(String::toLowerCase)
-                    .collect(Collectors.toList());
+    public List<AnnonceDto> convertToDtos(List<Annonce> annonces) {
+        if (annonces.isEmpty()) {
+            return List.of();
         }
 
-        SearchCriteriaDto criteria = new SearchCriteriaDto();
-        criteria.setQuery(savedSearch.getQuery());
-        criteria.setZoneGeographique(savedSearch.getZoneGeographique());
-        criteria.setEtatObjet(savedSearch.getEtatObjet());
-        criteria.setModeLivraison(savedSearch.getModeLivraison());
-        criteria.setKeywords(keywords);
+        Map<Long, User> owners = loadOwners(annonces);
+        Map<Long, Set<String>> keywords = loadKeywordNames(annonces);
+
+        List<AnnonceDto> dtos = new ArrayList<>(annonces.size());
+        for (Annonce annonce : annonces) {
+            dtos.add(buildDto(annonce,
+                    owners.get(annonce.getOwner().getId()),
+                    keywords.getOrDefault(annonce.getId(), Set.of())));
+        }
+        return dtos;
+    }
 
-        Specification<Annonce> spec = buildSpecification(criteria);
-        spec = spec.and((root, query, cb) -> cb.greaterThan(root.get("datePublication"), since));
+    private Map<Long, User> loadOwners(List<Annonce> annonces) {
+        Map<Long, User> owners = new HashMap<>();
+        Set<Long> missing = new HashSet<>();
+        for (Annonce annonce : annonces) {
+            User owner = annonce.getOwner();
+            if (Hibernate.isInitialized(owner)) {
+                owners.put(owner.getId(), owner);
+            } else {
+                missing.add(owner.getId());
+            }
+        }
+        if (!missing.isEmpty()) {
+            userRepository.findAllById(missing).forEach(owner -> owners.put(owner.getId(), owner));
+        }
+        return owners;
+    }
 
-        return annonceRepository.findAll(spec);
+    private Map<Long, Set<String>> loadKeywordNames(List<Annonce> annonces) {
+        Map<Long, Set<String>> keywords = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Annonce annonce : annonces) {
+            if (Hibernate.isInitialized(annonce.getKeywords())) {
+                keywords.put(annonce.getId(), annonce.getKeywords().stream()
+                        .map(Keyword::getName)
+                        .collect(Collectors.toSet()));
+            } else {
+                keywords.put(annonce.getId(), new HashSet<>());
+                missing.add(annonce.getId());
+            }
+        }
+        if (!missing.isEmpty()) {
+            annonceRepository.findKeywordNamesByAnnonceIds(missing)
+                    .forEach(k -> keywords.get(k.getAnnonceId()).add(k.getName()));
+        }
+        return keywords;
     }
 
-    public AnnonceDto convertToDto(Annonce annonce) {
+    private AnnonceDto buildDto(Annonce annonce, User owner, Set<String> keywords) {
         AnnonceDto dto = new AnnonceDto();
         dto.setId(annonce.getId());
         dto.setTitre(annonce.getTitre());
@@ -213,30 +439,28 @@ public class AnnonceService {
         dto.setZoneGeographique(annonce.getZoneGeographique());
         dto.setModeLivraison(annonce.getModeLivraison());
         dto.setDatePublication(annonce.getDatePublication());
-        dto.setOwnerUsername(annonce.getOwner().getUsername());
+        dto.setOwnerUsername(owner != null ? owner.getUsername() : null);
         dto.setOwnerId(annonce.getOwner().getId());
         dto.setActive(annonce.isActive());
         dto.setReserved(annonce.isReserved());
         dto.setGiven(annonce.isGiven());
-        dto.setKeywords(annonce.getKeywords().stream()
-                .map(Keyword::getName)
-                .collect(Collectors.toSet()));
+        dto.setKeywords(new HashSet<>(keywords));
         dto.setKeywordsInput(String.join(", ", dto.getKeywords()));
         if (annonce.getLot() != null) {
             dto.setLotId(annonce.getLot().getId());
         }
-        dto.setFavoriteCount((int) favoriteRepository.countByAnnonce(annonce));
-
-         dto.setImages(imageService.convertToDtoList(annonce.getImages()));
-
-         Image primaryImage = annonce.getPrimaryImage();
-        if (primaryImage != null) {
-            dto.setPrimaryImage(imageService.convertToDto(primaryImage));
-            dto.setImageUrl("/api/images/" + primaryImage.getId());
+        // Compteur dénormalisé + clics pas encore écrits en base
+        int pendingFavorites = annonce.getId() != null ? favoriteCountBuffer.pending(annonce.getId()) : 0;
+        dto.setFavoriteCount(annonce.getFavoriteCount() + pendingFavorites);
+
+        Long primaryImageId = annonce.getPrimaryImageId();
+        if (primaryImageId != null) {
+            dto.setPrimaryImage(new ImageDto(primaryImageId, "/api/images/" + primaryImageId, true));
+            dto.setImageUrl("/api/images/" + primaryImageId + "?size=card");
         } else {
             dto.setImageUrl(null);
         }
 
         return dto;
     }
-}
\ No newline at end of file
+}
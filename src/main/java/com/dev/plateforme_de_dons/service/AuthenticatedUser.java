@@ -0,0 +1,19 @@
+package com.dev.plateforme_de_dons.service;
+
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+
+// Principal stocké dans la session : l'identifiant évite de relire l'utilisateur par son nom
+@Getter
+public class AuthenticatedUser extends org.springframework.security.core.userdetails.User {
+
+    private final Long id;
+
+    public AuthenticatedUser(Long id, String username, String password, boolean enabled,
+                             Collection<? extends GrantedAuthority> authorities) {
+        super(username, password, enabled, true, true, true, authorities);
+        this.id = id;
+    }
+}
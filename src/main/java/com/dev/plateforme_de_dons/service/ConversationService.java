@@ -0,0 +1,129 @@
+package com.dev.plateforme_de_dons.service;
+
+import com.dev.plateforme_de_dons.config.ConditionalInsert;
+import com.dev.plateforme_de_dons.model.Conversation;
+import com.dev.plateforme_de_dons.model.Message;
+import com.dev.plateforme_de_dons.model.User;
+import com.dev.plateforme_de_dons.repository.AnnonceRepository;
+import com.dev.plateforme_de_dons.repository.ConversationRepository;
+import com.dev.plateforme_de_dons.repository.MessageRepository;
+import com.dev.plateforme_de_dons.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Tient à jour la table conversations dans la transaction de l'envoi ou de la lecture des messages
+@Service
+@RequiredArgsConstructor
+@Transactional
+@Slf4j
+public class ConversationService {
+
+    private static final int BACKFILL_BATCH_SIZE = 1000;
+
+    // Premier message envoyé au même moment par les deux participants : un seul fil est créé
+    private static final String INSERT_SQL = "INSERT INTO conversations (user_a_id, user_b_id, annonce_id, annonce_key) "
+            + "SELECT CAST(? AS BIGINT), CAST(? AS BIGINT), CAST(? AS BIGINT), CAST(? AS BIGINT) FROM (VALUES (0)) "
+            + "WHERE NOT EXISTS (SELECT 1 FROM conversations WHERE user_a_id = ? AND user_b_id = ? AND annonce_key = ?)";
+
+    private final ConversationRepository conversationRepository;
+    private final MessageRepository messageRepository;
+    private final UserRepository userRepository;
+    private final AnnonceRepository annonceRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    public Conversation recordMessage(Message message) {
+        Long senderId = message.getSender().getId();
+        Long receiverId = message.getReceiver().getId();
+        Long annonceId = message.getAnnonce() != null ? message.getAnnonce().getId() : null;
+        Long userAId = Math.min(senderId, receiverId);
+        Long userBId = Math.max(senderId, receiverId);
+        long annonceKey = Conversation.annonceKey(annonceId);
+
+        Conversation conversation = conversationRepository.findForUpdate(userAId, userBId, annonceKey)
+                .orElseGet(() -> {
+                    insertIfAbsent(userAId, userBId, annonceId);
+                    return conversationRepository.findForUpdate(userAId, userBId, annonceKey).orElseThrow();
+                });
+
+        conversation.setLastMessage(message);
+        conversation.setLastMessageAt(message.getSentAt() != null ? message.getSentAt() : LocalDateTime.now());
+        conversation.addUnread(receiverId, 1);
+        return conversationRepository.save(conversation);
+    }
+
+    // Le lecteur a lu `count` messages de plus dans le fil qu'il partage avec partnerId
+    public void markRead(Long readerId, Long partnerId, long annonceKey, int count) {
+        if (count <= 0) {
+            return;
+        }
+        conversationRepository
+                .findForUpdate(Math.min(readerId, partnerId), Math.max(readerId, partnerId), annonceKey)
+                .ifPresent(conversation -> conversation.addUnread(readerId, -count));
+    }
+
+    @Transactional(readOnly = true)
+    public Page<Conversation> findInbox(User user, Pageable pageable) {
+        return conversationRepository.findInbox(user, pageable);
+    }
+
+    // Construit la table à partir des messages existants lors du premier démarrage
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (conversationRepository.count() > 0 || messageRepository.count() == 0) {
+            return;
+        }
+
+        Map<String, Conversation> conversations = new HashMap<>();
+        Long lastId = 0L;
+        List<MessageRepository.MessageSummary> batch;
+        do {
+            batch = messageRepository.findSummariesAfter(lastId, PageRequest.of(0, BACKFILL_BATCH_SIZE));
+            for (MessageRepository.MessageSummary summary : batch) {
+                Long userAId = Math.min(summary.getSenderId(), summary.getReceiverId());
+                Long userBId = Math.max(summary.getSenderId(), summary.getReceiverId());
+                String key = userAId + ":" + userBId + ":" + Conversation.annonceKey(summary.getAnnonceId());
+
+                Conversation conversation = conversations.computeIfAbsent(key,
+                        k -> newConversation(summary.getSenderId(), summary.getReceiverId(), summary.getAnnonceId()));
+                conversation.setLastMessage(messageRepository.getReferenceById(summary.getId()));
+                conversation.setLastMessageAt(summary.getSentAt());
+                if (!summary.isRead()) {
+                    conversation.addUnread(summary.getReceiverId(), 1);
+                }
+                lastId = summary.getId();
+            }
+        } while (batch.size() == BACKFILL_BATCH_SIZE);
+
+        conversationRepository.saveAll(conversations.values());
+        log.info("Table des conversations initialisée : {} conversations", conversations.size());
+    }
+
+    private void insertIfAbsent(Long userAId, Long userBId, Long annonceId) {
+        long annonceKey = Conversation.annonceKey(annonceId);
+        ConditionalInsert.execute(jdbcTemplate, INSERT_SQL, userAId, userBId, annonceId, annonceKey, userAId, userBId, annonceKey);
+    }
+
+    private Conversation newConversation(Long firstUserId, Long secondUserId, Long annonceId) {
+        Conversation conversation = new Conversation();
+        conversation.setUserA(userRepository.getReferenceById(Math.min(firstUserId, secondUserId)));
+        conversation.setUserB(userRepository.getReferenceById(Math.max(firstUserId, secondUserId)));
+        if (annonceId != null) {
+            conversation.setAnnonce(annonceRepository.getReferenceById(annonceId));
+        }
+        conversation.setAnnonceKey(Conversation.annonceKey(annonceId));
+        return conversation;
+    }
+}
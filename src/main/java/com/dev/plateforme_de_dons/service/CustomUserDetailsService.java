@@ -3,20 +3,28 @@ package com.dev.plateforme_de_dons.service;
 import com.dev.plateforme_de_dons.model.User;
 import com.dev.plateforme_de_dons.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Collections;
+import java.util.List;
 
 @Service
 @RequiredArgsConstructor
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
+    private final UserCache userCache;
+
+    // Comptes d'exploitation (accès à /actuator/metrics), en plus du rôle utilisateur
+    @Value("${app.security.admin-usernames:}")
+    private List<String> adminUsernames;
 
     @Override
     @Transactional(readOnly = true)
@@ -24,14 +32,38 @@ public class CustomUserDetailsService implements UserDetailsService {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("Utilisateur non trouvé: " + username));
 
-        return new org.springframework.security.core.userdetails.User(
+        return new AuthenticatedUser(
+                user.getId(),
                 user.getUsername(),
                 user.getPassword(),
                 user.isEnabled(),
-                true,
-                true,
-                true,
-                Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER"))
+                authorities(user.getUsername())
+        );
+    }
+
+    private List<GrantedAuthority> authorities(String username) {
+        if (adminUsernames.contains(username)) {
+            return List.of(new SimpleGrantedAuthority("ROLE_USER"), new SimpleGrantedAuthority("ROLE_ADMIN"));
+        }
+        return List.of(new SimpleGrantedAuthority("ROLE_USER"));
+    }
+
+    // Appelé par DaoAuthenticationProvider après une connexion réussie quand le hash stocké
+    // n'utilise pas l'encodeur par défaut actuel : le mot de passe est déjà rehaché
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        User user = userRepository.findByUsername(userDetails.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException("Utilisateur non trouvé: " + userDetails.getUsername()));
+        user.setPassword(newPassword);
+        userCache.evict(user.getId());
+
+        return new AuthenticatedUser(
+                user.getId(),
+                user.getUsername(),
+                newPassword,
+                user.isEnabled(),
+                userDetails.getAuthorities()
         );
     }
 }
@@ -0,0 +1,67 @@
+package com.dev.plateforme_de_dons.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Deltas de compteurs de favoris en attente d'écriture, répartis sur plusieurs verrous
+// pour que les clics simultanés sur des annonces différentes ne se bloquent pas
+@Component
+public class FavoriteCountBuffer {
+
+    private static final int STRIPES = 16;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    public FavoriteCountBuffer() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    public void add(Long annonceId, int delta) {
+        Stripe stripe = stripeFor(annonceId);
+        synchronized (stripe) {
+            stripe.deltas.merge(annonceId, delta, Integer::sum);
+        }
+    }
+
+    public int pending(Long annonceId) {
+        Stripe stripe = stripeFor(annonceId);
+        synchronized (stripe) {
+            return stripe.deltas.getOrDefault(annonceId, 0);
+        }
+    }
+
+    // Récupère et vide tous les deltas non nuls
+    public Map<Long, Integer> drain() {
+        Map<Long, Integer> drained = new HashMap<>();
+        for (Stripe stripe : stripes) {
+            Map<Long, Integer> deltas;
+            synchronized (stripe) {
+                deltas = stripe.deltas;
+                stripe.deltas = new HashMap<>();
+            }
+            deltas.forEach((annonceId, delta) -> {
+                if (delta != 0) {
+                    drained.put(annonceId, delta);
+                }
+            });
+        }
+        return drained;
+    }
+
+    // Remet en attente des deltas dont l'écriture a échoué
+    public void restore(Map<Long, Integer> deltas) {
+        deltas.forEach(this::add);
+    }
+
+    private Stripe stripeFor(Long annonceId) {
+        return stripes[Math.floorMod(annonceId.hashCode(), STRIPES)];
+    }
+
+    private static final class Stripe {
+        private Map<Long, Integer> deltas = new HashMap<>();
+    }
+}
@@ -1,23 +1,35 @@
 package com.dev.plateforme_de_dons.service;
 
+import com.dev.plateforme_de_dons.config.AfterCommit;
+import com.dev.plateforme_de_dons.dto.AnnonceCardDto;
 import com.dev.plateforme_de_dons.model.Annonce;
 import com.dev.plateforme_de_dons.model.Favorite;
 import com.dev.plateforme_de_dons.model.User;
 import com.dev.plateforme_de_dons.repository.AnnonceRepository;
 import com.dev.plateforme_de_dons.repository.FavoriteRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
 @Service
 @RequiredArgsConstructor
 @Transactional
+@Slf4j
 public class FavoriteService {
 
     private final FavoriteRepository favoriteRepository;
     private final AnnonceRepository annonceRepository;
+    private final FavoriteCountBuffer favoriteCountBuffer;
 
     public Favorite addToFavorites(User user, Long annonceId) {
         Annonce annonce = annonceRepository.findById(annonceId)
@@ -28,19 +40,52 @@ public class FavoriteService {
         }
 
         Favorite favorite = new Favorite(user, annonce);
-        return favoriteRepository.save(favorite);
+        Favorite saved = favoriteRepository.save(favorite);
+        recordFavoriteDelta(annonce.getId(), 1);
+        return saved;
     }
 
     public void removeFromFavorites(User user, Long annonceId) {
         Annonce annonce = annonceRepository.findById(annonceId)
                 .orElseThrow(() -> new IllegalArgumentException("Annonce non trouvée"));
 
-        favoriteRepository.deleteByUserAndAnnonce(user, annonce);
+        if (favoriteRepository.deleteByUserAndAnnonce(user, annonce) > 0) {
+            recordFavoriteDelta(annonce.getId(), -1);
+        }
+    }
+
+    // Écrit les deltas en attente : un UPDATE par valeur de delta distincte. Si la transaction
+    // est annulée, que ce soit à l'UPDATE ou au commit, les deltas retournent dans le tampon.
+    public int flushFavoriteCounts() {
+        Map<Long, Integer> deltas = favoriteCountBuffer.drain();
+        if (deltas.isEmpty()) {
+            return 0;
+        }
+        AfterCommit.onRollback(() -> favoriteCountBuffer.restore(deltas));
+
+        Map<Integer, List<Long>> idsByDelta = new TreeMap<>();
+        deltas.forEach((annonceId, delta) -> idsByDelta.computeIfAbsent(delta, d -> new ArrayList<>()).add(annonceId));
+        idsByDelta.forEach((delta, ids) -> annonceRepository.incrementFavoriteCount(ids, delta));
+        return deltas.size();
+    }
+
+    // Recalcule les compteurs qui ont divergé de la table favorites ; au démarrage, initialise
+    // aussi la colonne pour les annonces existantes avant le premier passage planifié
+    @EventListener(ApplicationReadyEvent.class)
+    public int reconcileFavoriteCounts() {
+        flushFavoriteCounts();
+        int repaired = annonceRepository.reconcileFavoriteCounts();
+        if (repaired > 0) {
+            log.warn("{} compteurs de favoris corrigés", repaired);
+        }
+        return repaired;
     }
 
     @Transactional(readOnly = true)
-    public Page<Favorite> getFavorites(User user, Pageable pageable) {
-        return favoriteRepository.findByUser(user, pageable);
+    public Page<AnnonceCardDto> getFavoriteCards(User user, Pageable pageable) {
+        Page<AnnonceCardDto> cards = favoriteRepository.findCardsByUser(user, pageable);
+        cards.forEach(card -> card.setFavoriteCount(card.getFavoriteCount() + favoriteCountBuffer.pending(card.getId())));
+        return cards;
     }
 
     @Transactional(readOnly = true)
@@ -52,4 +97,9 @@ public class FavoriteService {
     public long countFavorites(User user) {
         return favoriteRepository.countByUser(user);
     }
+
+    // Le delta n'est pris en compte qu'une fois le favori réellement enregistré
+    private void recordFavoriteDelta(Long annonceId, int delta) {
+        AfterCommit.run(() -> favoriteCountBuffer.add(annonceId, delta));
+    }
 }
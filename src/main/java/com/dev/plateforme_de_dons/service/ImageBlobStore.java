@@ -0,0 +1,183 @@
+package com.dev.plateforme_de_dons.service;
+
+import com.dev.plateforme_de_dons.config.AfterCommit;
+import com.dev.plateforme_de_dons.config.ConditionalInsert;
+import com.dev.plateforme_de_dons.model.ImageBlob;
+import com.dev.plateforme_de_dons.model.ImageFormat;
+import com.dev.plateforme_de_dons.repository.ImageBlobRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Objects;
+import java.util.Optional;
+
+// Stockage adressé par le contenu : blobs/{2 premiers caractères}/{sha256}.{ext}.
+// Une même photo envoyée pour plusieurs annonces ou lots n'existe qu'une fois sur disque.
+@Service
+@RequiredArgsConstructor
+@Transactional
+@Slf4j
+public class ImageBlobStore {
+
+    static final String BLOB_DIR = "blobs";
+    private static final int BUFFER_SIZE = 8192;
+    private static final int MAX_STORE_ATTEMPTS = 5;
+
+    // Deux uploads simultanés d'un même contenu nouveau : une seule ligne, l'autre attend son verrou
+    private static final String INSERT_SQL = "INSERT INTO image_blobs (hash, storage_path, size, content_type, ref_count, created_at) "
+            + "SELECT CAST(? AS VARCHAR(64)), CAST(? AS VARCHAR(255)), CAST(? AS BIGINT), CAST(? AS VARCHAR(255)), 0, CURRENT_TIMESTAMP "
+            + "FROM (VALUES (0)) WHERE NOT EXISTS (SELECT 1 FROM image_blobs WHERE hash = ?)";
+
+    private final ImageBlobRepository imageBlobRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.upload.dir:uploads}")
+    private String uploadDir;
+
+    // Une seule lecture du flux : reconnaissance du format sur les premiers octets, plafond de
+    // taille et SHA-256 calculés pendant l'écriture du fichier temporaire, sans transaction ni verrou.
+    // Le fichier est ensuite renommé (pas recopié) à sa place définitive par store().
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public StagedBlob stage(InputStream content, long maxBytes) throws IOException {
+        byte[] header = content.readNBytes(ImageFormat.HEADER_SIZE);
+        if (header.length == 0) {
+            throw new IllegalArgumentException("Le fichier est vide");
+        }
+        ImageFormat format = ImageFormat.sniff(header)
+                .orElseThrow(() -> new IllegalArgumentException("Type de fichier non autorisé. Formats acceptés : JPEG, PNG, GIF, WebP"));
+
+        Path tempDir = Paths.get(uploadDir, BLOB_DIR, "tmp");
+        Files.createDirectories(tempDir);
+        Path temp = Files.createTempFile(tempDir, "upload-", ".tmp");
+        try {
+            MessageDigest digest = sha256();
+            long size = header.length;
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                digest.update(header);
+                out.write(header);
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while ((read = content.read(buffer)) != -1) {
+                    size += read;
+                    if (size > maxBytes) {
+                        throw new IllegalArgumentException("Le fichier est trop volumineux. Taille maximale : "
+                                + maxBytes / (1024 * 1024) + " MB");
+                    }
+                    digest.update(buffer, 0, read);
+                    out.write(buffer, 0, read);
+                }
+            }
+            return new StagedBlob(temp, HexFormat.of().formatHex(digest.digest()), size, format);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    // Rattache le fichier préparé au blob de même contenu, ou le publie sous blobs/.
+    // Le fichier n'est déplacé qu'une fois la ligne du blob créée et verrouillée ; si la transaction
+    // échoue ensuite, le fichier publié pour un blob neuf est retiré avec la ligne.
+    public ImageBlob store(StagedBlob staged) throws IOException {
+        try {
+            String hash = staged.hash();
+            ImageBlob blob = insertAndLock(staged);
+
+            boolean created = blob.getRefCount() == 0;
+            Path target = Paths.get(uploadDir, blob.getStoragePath());
+            if (created || !Files.exists(target)) {
+                Files.createDirectories(target.getParent());
+                Files.move(staged.file(), target, StandardCopyOption.ATOMIC_MOVE);
+                if (created) {
+                    Object fileKey = Files.readAttributes(target, BasicFileAttributes.class).fileKey();
+                    AfterCommit.onRollback(() -> deletePublished(target, fileKey));
+                }
+            } else {
+                log.debug("Contenu {} déjà stocké, {} références", hash, blob.getRefCount());
+            }
+            blob.setRefCount(blob.getRefCount() + 1);
+            return imageBlobRepository.save(blob);
+        } finally {
+            discard(staged);
+        }
+    }
+
+    // La ligne vue par l'insertion conditionnelle peut être supprimée par un release() concurrent
+    // avant d'être verrouillée : on recommence, l'insertion suivante la recrée.
+    private ImageBlob insertAndLock(StagedBlob staged) {
+        String hash = staged.hash();
+        for (int attempt = 1; ; attempt++) {
+            ConditionalInsert.execute(jdbcTemplate, INSERT_SQL, hash, blobPath(hash, staged.format().getExtension()),
+                    staged.size(), staged.format().getContentType(), hash);
+            Optional<ImageBlob> blob = imageBlobRepository.findForUpdate(hash);
+            if (blob.isPresent()) {
+                return blob.get();
+            }
+            if (attempt == MAX_STORE_ATTEMPTS) {
+                throw new IllegalStateException("Impossible de réserver le contenu " + hash);
+            }
+            log.debug("Contenu {} supprimé pendant l'envoi, nouvelle tentative", hash);
+        }
+    }
+
+    public void discard(StagedBlob staged) throws IOException {
+        Files.deleteIfExists(staged.file());
+    }
+
+    // Vrai quand plus aucune image ne référence ce contenu : l'appelant supprime alors les fichiers
+    public boolean release(String hash) {
+        return imageBlobRepository.findForUpdate(hash)
+                .map(blob -> {
+                    if (blob.getRefCount() <= 1) {
+                        imageBlobRepository.delete(blob);
+                        return true;
+                    }
+                    blob.setRefCount(blob.getRefCount() - 1);
+                    return false;
+                })
+                .orElse(true);
+    }
+
+    // Sauf si un upload suivant du même contenu a déjà republié le fichier entre-temps
+    private static void deletePublished(Path target, Object fileKey) {
+        try {
+            if (Files.exists(target)
+                    && Objects.equals(fileKey, Files.readAttributes(target, BasicFileAttributes.class).fileKey())) {
+                Files.delete(target);
+            }
+        } catch (IOException e) {
+            log.warn("Impossible de retirer le blob {} après rollback : {}", target, e.getMessage());
+        }
+    }
+
+    static String blobPath(String hash, String extension) {
+        return BLOB_DIR + "/" + hash.substring(0, 2) + "/" + hash + extension;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+
+    // Upload lu, haché et écrit dans blobs/tmp, en attente de store() ou discard()
+    public record StagedBlob(Path file, String hash, long size, ImageFormat format) {
+    }
+}
@@ -0,0 +1,170 @@
+package com.dev.plateforme_de_dons.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+
+// Octets des petits fichiers image les plus demandés (déclinaisons thumb / card des grilles),
+// gardés hors du tas dans des buffers directs. Le poids de chaque entrée est sa taille en
+// octets et Caffeine (W-TinyLFU) évince quand le plafond est atteint. Les fichiers trop gros
+// ne sont jamais mis en cache et restent servis en flux depuis le disque.
+@Component
+public class ImageBytesCache {
+
+    private final Cache<Path, CachedImage> cache;
+    private final long maxEntryBytes;
+
+    public ImageBytesCache(MeterRegistry meterRegistry,
+                           @Value("${app.images.cache.max-bytes:33554432}") long maxBytes,
+                           @Value("${app.images.cache.max-entry-bytes:262144}") long maxEntryBytes) {
+        this.maxEntryBytes = maxEntryBytes;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Path file, CachedImage image) -> image.bytes.capacity())
+                // Éviction sur le thread appelant : le plafond est tenu dès le retour de get()
+                .executor(Runnable::run)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "imageBytes");
+        Gauge.builder("image.cache.bytes", this, ImageBytesCache::weightedSize)
+                .description("Octets d'images gardés en mémoire directe")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    // Clé = chemin du fichier : les images qui partagent un même blob partagent aussi l'entrée
+    public Resource get(Path file) throws IOException {
+        CachedImage cached = cache.getIfPresent(file);
+        if (cached != null) {
+            return cached.resource();
+        }
+
+        if (!Files.isRegularFile(file)) {
+            throw new NoSuchFileException(file.toString());
+        }
+        long size = Files.size(file);
+        if (size > maxEntryBytes) {
+            return new FileSystemResource(file);
+        }
+
+        // putIfAbsent via asMap() : un chargement concurrent du même fichier ne compte pas un second miss
+        CachedImage loaded = load(file, size);
+        CachedImage existing = cache.asMap().putIfAbsent(file, loaded);
+        return (existing != null ? existing : loaded).resource();
+    }
+
+    public void invalidate(Collection<Path> files) {
+        cache.invalidateAll(files);
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long weightedSize() {
+        return cache.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0L))
+                .orElse(0L);
+    }
+
+    private static CachedImage load(Path file, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect((int) size);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // lecture jusqu'à remplir le buffer
+            }
+        }
+        buffer.flip();
+        return new CachedImage(buffer.asReadOnlyBuffer(), Files.getLastModifiedTime(file).toMillis());
+    }
+
+    private record CachedImage(ByteBuffer bytes, long lastModified) {
+
+        Resource resource() {
+            return new ByteBufferResource(bytes.duplicate(), lastModified);
+        }
+    }
+
+    // Ressource lue directement dans le buffer partagé, chaque requête ayant sa propre position
+    private static final class ByteBufferResource extends AbstractResource {
+
+        private final ByteBuffer bytes;
+        private final long lastModified;
+
+        ByteBufferResource(ByteBuffer bytes, long lastModified) {
+            this.bytes = bytes;
+            this.lastModified = lastModified;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            ByteBuffer view = bytes.duplicate();
+            return new InputStream() {
+                @Override
+                public int read() {
+                    return view.hasRemaining() ? view.get() & 0xFF : -1;
+                }
+
+                @Override
+                public int read(byte[] target, int offset, int length) {
+                    if (!view.hasRemaining()) {
+                        return -1;
+                    }
+                    int count = Math.min(length, view.remaining());
+                    view.get(target, offset, count);
+                    return count;
+                }
+
+                @Override
+                public long skip(long n) {
+                    int count = (int) Math.max(0, Math.min(n, view.remaining()));
+                    view.position(view.position() + count);
+                    return count;
+                }
+
+                @Override
+                public int available() {
+                    return view.remaining();
+                }
+            };
+        }
+
+        @Override
+        public long contentLength() {
+            return bytes.remaining();
+        }
+
+        @Override
+        public long lastModified() {
+            return lastModified;
+        }
+
+        @Override
+        public boolean exists() {
+            return true;
+        }
+
+        @Override
+        public String getDescription() {
+            return "Image en cache mémoire (" + bytes.remaining() + " octets)";
+        }
+    }
+}
@@ -1,26 +1,42 @@
 package com.dev.plateforme_de_dons.service;
 
+import com.dev.plateforme_de_dons.config.AfterCommit;
 import com.dev.plateforme_de_dons.dto.ImageDto;
 import com.dev.plateforme_de_dons.model.Annonce;
 import com.dev.plateforme_de_dons.model.Image;
+import com.dev.plateforme_de_dons.model.ImageBlob;
+import com.dev.plateforme_de_dons.model.ImageVariant;
 import com.dev.plateforme_de_dons.model.Lot;
+import com.dev.plateforme_de_dons.repository.AnnonceRepository;
 import com.dev.plateforme_de_dons.repository.ImageRepository;
+import com.dev.plateforme_de_dons.repository.LotRepository;
+import com.dev.plateforme_de_dons.service.ImageBlobStore.StagedBlob;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -29,72 +45,147 @@ import java.util.stream.Collectors;
 public class ImageService {
 
     private final ImageRepository imageRepository;
+    private final AnnonceRepository annonceRepository;
+    private final LotRepository lotRepository;
+    private final ImageBlobStore imageBlobStore;
+    private final ImageVariantService imageVariantService;
+    private final ImageBytesCache imageBytesCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Executor uploadExecutor;
 
     @Value("${app.upload.dir:uploads}")
     private String uploadDir;
 
-    private static final List<String> ALLOWED_CONTENT_TYPES = List.of(
-            "image/jpeg", "image/jpg", "image/png", "image/gif", "image/webp"
-    );
-
     private static final long MAX_FILE_SIZE = 5 * 1024 * 1024;
 
     public Image uploadImageForAnnonce(MultipartFile file, Annonce annonce, boolean isPrimary) throws IOException {
-        validateImage(file);
-
-        String filename = generateUniqueFilename(file.getOriginalFilename());
-        String storagePath = "annonces/" + annonce.getId();
-        Path uploadPath = Paths.get(uploadDir, storagePath);
-
-         Files.createDirectories(uploadPath);
-
-         Path filePath = uploadPath.resolve(filename);
-        Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
+        return attachToAnnonce(stage(file), file.getOriginalFilename(), annonce, isPrimary);
+    }
 
-         if (isPrimary) {
-            annonce.getImages().forEach(img -> img.setPrimary(false));
+    // Fichiers d'un même formulaire : lus, contrôlés et hachés en parallèle sur uploadExecutor,
+    // puis enregistrés dans l'ordre d'envoi pour que le premier puisse devenir l'image principale
+    public List<Image> uploadImagesForAnnonce(List<MultipartFile> files, Annonce annonce, boolean firstIsPrimary) throws IOException {
+        List<MultipartFile> nonEmpty = files.stream()
+                .filter(file -> !file.isEmpty())
+                .toList();
+        List<StagedBlob> staged = stageAll(nonEmpty);
+
+        List<Image> images = new ArrayList<>();
+        try {
+            for (int i = 0; i < staged.size(); i++) {
+                images.add(attachToAnnonce(staged.get(i), nonEmpty.get(i).getOriginalFilename(),
+                        annonce, firstIsPrimary && i == 0));
+            }
+        } finally {
+            for (StagedBlob blob : staged) {
+                imageBlobStore.discard(blob);
+            }
         }
+        return images;
+    }
 
-        Image image = new Image(
-                filename,
-                file.getOriginalFilename(),
-                file.getContentType(),
-                file.getSize(),
-                storagePath + "/" + filename
-        );
-        image.setAnnonce(annonce);
-        image.setPrimary(isPrimary);
+    public Image uploadImageForLot(MultipartFile file, Lot lot, boolean isPrimary) throws IOException {
+        Image image = storeImage(stage(file), file.getOriginalFilename());
+        image.setLot(lot);
+        return saveAttached(image, isPrimary);
+    }
 
-        return imageRepository.save(image);
+    private Image attachToAnnonce(StagedBlob staged, String originalFilename, Annonce annonce, boolean isPrimary) throws IOException {
+        Image image = storeImage(staged, originalFilename);
+        image.setAnnonce(annonce);
+        return saveAttached(image, isPrimary);
     }
 
-    public Image uploadImageForLot(MultipartFile file, Lot lot, boolean isPrimary) throws IOException {
-        validateImage(file);
+    // Une annonce ou un lot sans image principale prend la première image reçue
+    private Image saveAttached(Image image, boolean isPrimary) {
+        Long currentPrimaryId = ownerPrimaryImageId(image);
+        boolean primary = isPrimary || currentPrimaryId == null;
+        if (primary && currentPrimaryId != null) {
+            imageRepository.findById(currentPrimaryId).ifPresent(this::clearPrimary);
+        }
+        image.setPrimary(primary);
 
-        String filename = generateUniqueFilename(file.getOriginalFilename());
-        String storagePath = "lots/" + lot.getId();
-        Path uploadPath = Paths.get(uploadDir, storagePath);
+        Image saved = saveUploaded(image);
+        if (primary) {
+            setOwnerPrimaryImageId(saved, saved.getId());
+        }
+        return saved;
+    }
 
-        Files.createDirectories(uploadPath);
+    // Le type déclaré par le client est ignoré : le format vient des premiers octets du flux
+    private StagedBlob stage(MultipartFile file) throws IOException {
+        if (file.getSize() > MAX_FILE_SIZE) {
+            throw new IllegalArgumentException("Le fichier est trop volumineux. Taille maximale : 5 MB");
+        }
+        try (InputStream content = file.getInputStream()) {
+            return imageBlobStore.stage(content, MAX_FILE_SIZE);
+        }
+    }
 
-        Path filePath = uploadPath.resolve(filename);
-        Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
+    private List<StagedBlob> stageAll(List<MultipartFile> files) throws IOException {
+        List<CompletableFuture<StagedBlob>> futures = files.stream()
+                .map(file -> CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return stage(file);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, uploadExecutor))
+                .toList();
+
+        List<StagedBlob> staged = new ArrayList<>();
+        Throwable failure = null;
+        for (CompletableFuture<StagedBlob> future : futures) {
+            try {
+                staged.add(future.join());
+            } catch (CompletionException e) {
+                failure = failure != null ? failure : e.getCause();
+            }
+        }
+        if (failure == null) {
+            return staged;
+        }
 
-        if (isPrimary) {
-            lot.getImages().forEach(img -> img.setPrimary(false));
+        // Un fichier refusé fait échouer tout le formulaire : les autres fichiers préparés sont jetés
+        for (StagedBlob blob : staged) {
+            imageBlobStore.discard(blob);
+        }
+        if (failure instanceof UncheckedIOException e) {
+            throw e.getCause();
         }
+        if (failure instanceof RuntimeException e) {
+            throw e;
+        }
+        throw new IOException(failure);
+    }
 
+    // Le fichier rejoint le blob de même contenu s'il existe déjà ; ses déclinaisons aussi
+    private Image storeImage(StagedBlob staged, String originalFilename) throws IOException {
+        ImageBlob blob = imageBlobStore.store(staged);
+
+        String storagePath = blob.getStoragePath();
         Image image = new Image(
-                filename,
-                file.getOriginalFilename(),
-                file.getContentType(),
-                file.getSize(),
-                storagePath + "/" + filename
+                storagePath.substring(storagePath.lastIndexOf('/') + 1),
+                originalFilename,
+                blob.getContentType(),
+                blob.getSize(),
+                storagePath
         );
-        image.setLot(lot);
-        image.setPrimary(isPrimary);
+        image.setContentHash(blob.getHash());
+        imageRepository.findFirstByContentHashAndThumbPathIsNotNull(blob.getHash()).ifPresent(existing -> {
+            image.setThumbPath(existing.getThumbPath());
+            image.setCardPath(existing.getCardPath());
+            image.setFullPath(existing.getFullPath());
+        });
+        return image;
+    }
 
-        return imageRepository.save(image);
+    private Image saveUploaded(Image image) {
+        Image saved = imageRepository.save(image);
+        if (saved.getThumbPath() == null) {
+            eventPublisher.publishEvent(new ImageUploadedEvent(saved.getId()));
+        }
+        return saved;
     }
 
     @Transactional(readOnly = true)
@@ -112,58 +203,130 @@ public class ImageService {
         return imageRepository.findByLot(lot);
     }
 
+    // Petits fichiers depuis le cache mémoire, les autres en flux depuis le disque, jamais via un byte[].
+    // Sans taille demandée, ou tant que la déclinaison n'est pas prête, l'original est servi.
     @Transactional(readOnly = true)
-    public byte[] getImageBytes(Image image) throws IOException {
-        Path imagePath = Paths.get(uploadDir, image.getStoragePath());
-        return Files.readAllBytes(imagePath);
+    public Resource getImageResource(Image image, ImageVariant variant) throws IOException {
+        return imageBytesCache.get(Paths.get(uploadDir, resolvePath(image, variant)));
+    }
+
+    public boolean isVariantReady(Image image, ImageVariant variant) {
+        return variant == null || image.getVariantPath(variant) != null;
+    }
+
+    public String getContentType(Image image, ImageVariant variant) {
+        String path = resolvePath(image, variant);
+        if (path.equals(image.getStoragePath())) {
+            return image.getContentType();
+        }
+        return path.endsWith(".png") ? "image/png" : "image/jpeg";
+    }
+
+    private String resolvePath(Image image, ImageVariant variant) {
+        String variantPath = variant != null ? image.getVariantPath(variant) : null;
+        return variantPath != null ? variantPath : image.getStoragePath();
     }
 
-    public void deleteImage(Long imageId) throws IOException {
+    // ETag fort calculé sur les seules métadonnées, sans lire le fichier : le nom du blob est le
+    // SHA-256 du contenu, donc un même contenu partagé par plusieurs images a un seul ETag.
+    // Les images antérieures, jamais réécrites, combinent id, chemin servi et taille.
+    public String computeETag(Image image, ImageVariant variant) {
+        String path = resolvePath(image, variant);
+        if (image.getContentHash() != null) {
+            String name = path.substring(path.lastIndexOf('/') + 1);
+            int dot = name.lastIndexOf('.');
+            return "\"" + (dot > 0 ? name.substring(0, dot) : name) + "\"";
+        }
+        return "\"" + image.getId() + "-" + Integer.toHexString(path.hashCode())
+                + "-" + Long.toHexString(image.getSize() != null ? image.getSize() : 0) + "\"";
+    }
+
+    public void deleteImage(Long imageId) {
         Image image = imageRepository.findById(imageId)
                 .orElseThrow(() -> new IllegalArgumentException("Image non trouvée"));
 
-         Path imagePath = Paths.get(uploadDir, image.getStoragePath());
-        Files.deleteIfExists(imagePath);
+        imageRepository.delete(image);
 
-         imageRepository.delete(image);
+        if (imageId.equals(ownerPrimaryImageId(image))) {
+            Optional<Image> successor = image.getAnnonce() != null
+                    ? imageRepository.findFirstByAnnonceAndIdNotOrderByIdAsc(image.getAnnonce(), imageId)
+                    : imageRepository.findFirstByLotAndIdNotOrderByIdAsc(image.getLot(), imageId);
+            successor.ifPresent(next -> next.setPrimary(true));
+            setOwnerPrimaryImageId(image, successor.map(Image::getId).orElse(null));
+        }
+
+        // Les fichiers ne disparaissent qu'avec la dernière image qui partage ce contenu, et seulement
+        // au commit : après un rollback, l'image et son blob pointent toujours vers des fichiers présents
+        if (image.getContentHash() == null || imageBlobStore.release(image.getContentHash())) {
+            AfterCommit.run(() -> deleteStoredFiles(image));
+        }
+    }
+
+    private void deleteStoredFiles(Image image) {
+        try {
+            Files.deleteIfExists(Paths.get(uploadDir, image.getStoragePath()));
+            imageVariantService.deleteVariantFiles(image);
+        } catch (IOException e) {
+            log.warn("Impossible de supprimer les fichiers de l'image {} : {}", image.getId(), e.getMessage());
+        }
+        imageBytesCache.invalidate(storedFiles(image));
     }
 
     public void setPrimaryImage(Long imageId) {
         Image image = imageRepository.findById(imageId)
                 .orElseThrow(() -> new IllegalArgumentException("Image non trouvée"));
 
-        if (image.getAnnonce() != null) {
-            imageRepository.findByAnnonce(image.getAnnonce())
-                    .forEach(img -> img.setPrimary(false));
-        } else if (image.getLot() != null) {
-            imageRepository.findByLot(image.getLot())
-                    .forEach(img -> img.setPrimary(false));
+        Long previousId = ownerPrimaryImageId(image);
+        if (previousId != null && !previousId.equals(imageId)) {
+            imageRepository.findById(previousId).ifPresent(this::clearPrimary);
         }
 
         image.setPrimary(true);
         imageRepository.save(image);
+        setOwnerPrimaryImageId(image, imageId);
     }
 
-    private void validateImage(MultipartFile file) {
-        if (file.isEmpty()) {
-            throw new IllegalArgumentException("Le fichier est vide");
-        }
+    // L'ancienne image principale quitte les grilles : ses octets n'ont plus à occuper le cache
+    private void clearPrimary(Image img) {
+        imageBytesCache.invalidate(storedFiles(img));
+        img.setPrimary(false);
+    }
 
-        if (!ALLOWED_CONTENT_TYPES.contains(file.getContentType())) {
-            throw new IllegalArgumentException("Type de fichier non autorisé. Formats acceptés : JPEG, PNG, GIF, WebP");
+    private Long ownerPrimaryImageId(Image image) {
+        if (image.getAnnonce() != null) {
+            return image.getAnnonce().getPrimaryImageId();
         }
+        return image.getLot() != null ? image.getLot().getPrimaryImageId() : null;
+    }
 
-        if (file.getSize() > MAX_FILE_SIZE) {
-            throw new IllegalArgumentException("Le fichier est trop volumineux. Taille maximale : 5 MB");
+    // UPDATE ciblé : ni la version ni les autres colonnes de l'annonce ou du lot ne sont touchées
+    private void setOwnerPrimaryImageId(Image image, Long primaryImageId) {
+        if (image.getAnnonce() != null) {
+            annonceRepository.updatePrimaryImageId(image.getAnnonce().getId(), primaryImageId);
+            image.getAnnonce().setPrimaryImageId(primaryImageId);
+        } else if (image.getLot() != null) {
+            lotRepository.updatePrimaryImageId(image.getLot().getId(), primaryImageId);
+            image.getLot().setPrimaryImageId(primaryImageId);
         }
     }
 
-    private String generateUniqueFilename(String originalFilename) {
-        String extension = "";
-        if (originalFilename != null && originalFilename.contains(".")) {
-            extension = originalFilename.substring(originalFilename.lastIndexOf("."));
+    // Annonces et lots enregistrés avant la dénormalisation de l'image principale
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillPrimaryImageIds() {
+        int annonces = annonceRepository.backfillPrimaryImageIds();
+        int lots = lotRepository.backfillPrimaryImageIds();
+        if (annonces + lots > 0) {
+            log.info("Image principale rattrapée pour {} annonces et {} lots", annonces, lots);
         }
-        return UUID.randomUUID().toString() + extension;
+    }
+
+    private List<Path> storedFiles(Image image) {
+        return Stream.concat(Stream.of(image.getStoragePath()),
+                        Stream.of(ImageVariant.values()).map(image::getVariantPath))
+                .filter(Objects::nonNull)
+                .distinct()
+                .map(path -> Paths.get(uploadDir, path))
+                .toList();
     }
 
     public ImageDto convertToDto(Image image) {
@@ -0,0 +1,5 @@
+package com.dev.plateforme_de_dons.service;
+
+// Publié à l'enregistrement d'une image, ses déclinaisons sont générées après commit
+public record ImageUploadedEvent(Long imageId) {
+}
@@ -0,0 +1,47 @@
+package com.dev.plateforme_de_dons.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+// Les déclinaisons sont produites sur le pool borné imageExecutor : l'upload rend la main
+// dès que l'original est écrit, et l'original est servi tant que la déclinaison manque
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ImageVariantListener {
+
+    private final ImageVariantService imageVariantService;
+
+    @Value("${app.images.variants.backfill-on-startup:false}")
+    private boolean backfillOnStartup;
+
+    @Async("imageExecutor")
+    @TransactionalEventListener
+    public void onImageUploaded(ImageUploadedEvent event) {
+        try {
+            imageVariantService.generateVariants(event.imageId());
+        } catch (Exception e) {
+            log.error("Error generating variants for image {}: {}", event.imageId(), e.getMessage(), e);
+        }
+    }
+
+    // Un seul worker parcourt les fichiers existants sous uploads/, les autres restent aux uploads
+    @Async("imageExecutor")
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        if (!backfillOnStartup) {
+            return;
+        }
+        try {
+            imageVariantService.backfillMissingVariants();
+        } catch (Exception e) {
+            log.error("Error backfilling image variants: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.dev.plateforme_de_dons.service;
+
+import com.dev.plateforme_de_dons.model.Image;
+import com.dev.plateforme_de_dons.model.ImageVariant;
+import com.dev.plateforme_de_dons.repository.ImageRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+// Génère les déclinaisons thumb / card / full d'une image avec ImageIO et Java2D uniquement.
+// Appelé depuis le pool borné imageExecutor : aucune transaction n'est ouverte pendant le
+// décodage, seule la mise à jour finale des chemins passe par la base.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ImageVariantService {
+
+    private static final int BACKFILL_BATCH_SIZE = 100;
+    private static final float JPEG_QUALITY = 0.85f;
+
+    private final ImageRepository imageRepository;
+
+    @Value("${app.upload.dir:uploads}")
+    private String uploadDir;
+
+    public void generateVariants(Long imageId) {
+        imageRepository.findById(imageId).ifPresent(this::generateVariants);
+    }
+
+    public void generateVariants(Image image) {
+        Path original = Paths.get(uploadDir, image.getStoragePath());
+        Map<ImageVariant, String> paths = new EnumMap<>(ImageVariant.class);
+
+        try {
+            BufferedImage source = read(original, ImageVariant.FULL.getMaxDimension());
+            for (ImageVariant variant : ImageVariant.values()) {
+                paths.put(variant, source != null
+                        ? writeVariant(image, source, variant)
+                        : image.getStoragePath());
+            }
+            if (source == null) {
+                log.warn("Image {} : format non décodable ({}), l'original servira pour toutes les tailles",
+                        image.getId(), image.getContentType());
+            }
+        } catch (NoSuchFileException e) {
+            log.warn("Image {} : fichier {} introuvable, déclinaisons non générées", image.getId(), original);
+            return;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Image {} : échec de la génération des déclinaisons ({}), l'original sera servi",
+                    image.getId(), e.getMessage());
+            deleteGenerated(image, paths);
+            paths.clear();
+            for (ImageVariant variant : ImageVariant.values()) {
+                paths.put(variant, image.getStoragePath());
+            }
+        }
+
+        int updated = imageRepository.updateVariantPaths(image.getId(),
+                paths.get(ImageVariant.THUMB), paths.get(ImageVariant.CARD), paths.get(ImageVariant.FULL));
+        if (updated == 0) {
+            // Image supprimée pendant la génération
+            deleteGenerated(image, paths);
+        }
+    }
+
+    // Rattrapage des images enregistrées avant l'existence des déclinaisons (ou perdues par le pool)
+    public int backfillMissingVariants() {
+        int processed = 0;
+        Long lastId = 0L;
+        List<Image> batch;
+        do {
+            batch = imageRepository.findWithoutVariantsAfter(lastId, PageRequest.of(0, BACKFILL_BATCH_SIZE));
+            for (Image image : batch) {
+                generateVariants(image);
+                lastId = image.getId();
+                processed++;
+            }
+        } while (batch.size() == BACKFILL_BATCH_SIZE);
+
+        if (processed > 0) {
+            log.info("Déclinaisons d'images rattrapées : {} images traitées", processed);
+        }
+        return processed;
+    }
+
+    // Fichiers de déclinaison propres à l'image (hors original), pour la suppression
+    public void deleteVariantFiles(Image image) throws IOException {
+        for (ImageVariant variant : ImageVariant.values()) {
+            String path = image.getVariantPath(variant);
+            if (path != null && !path.equals(image.getStoragePath())) {
+                Files.deleteIfExists(Paths.get(uploadDir, path));
+            }
+        }
+    }
+
+    private String writeVariant(Image image, BufferedImage source, ImageVariant variant) throws IOException {
+        int longest = Math.max(source.getWidth(), source.getHeight());
+        if (longest <= variant.getMaxDimension()) {
+            // Pas d'agrandissement : l'original tient déjà dans la taille demandée
+            return image.getStoragePath();
+        }
+
+        boolean alpha = source.getColorModel().hasAlpha();
+        String relativePath = variantPath(image.getStoragePath(), variant, alpha ? "png" : "jpg");
+        Path target = Paths.get(uploadDir, relativePath);
+        Path temp = Files.createTempFile(target.getParent(), variant.getSuffix(), ".tmp");
+        try {
+            BufferedImage scaled = resize(source, variant.getMaxDimension(), alpha);
+            if (alpha) {
+                ImageIO.write(scaled, "png", temp.toFile());
+            } else {
+                writeJpeg(scaled, temp);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return relativePath;
+    }
+
+    // annonces/12/abc.jpeg -> annonces/12/abc_thumb.jpg
+    static String variantPath(String storagePath, ImageVariant variant, String extension) {
+        int slash = storagePath.lastIndexOf('/');
+        int dot = storagePath.lastIndexOf('.');
+        String base = dot > slash ? storagePath.substring(0, dot) : storagePath;
+        return base + "_" + variant.getSuffix() + "." + extension;
+    }
+
+    // Sous-échantillonnage dès le décodage : un original de 6000 px n'est jamais chargé en entier
+    private static BufferedImage read(Path path, int maxDimension) throws IOException {
+        if (!Files.isRegularFile(path)) {
+            throw new NoSuchFileException(path.toString());
+        }
+        try (ImageInputStream input = ImageIO.createImageInputStream(path.toFile())) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int longest = Math.max(reader.getWidth(0), reader.getHeight(0));
+                int step = Math.max(1, longest / (maxDimension * 2));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Réductions successives par moitié : meilleur rendu qu'une seule interpolation bilinéaire
+    private static BufferedImage resize(BufferedImage source, int maxDimension, boolean alpha) {
+        double scale = (double) maxDimension / Math.max(source.getWidth(), source.getHeight());
+        int targetWidth = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int targetHeight = Math.max(1, (int) Math.round(source.getHeight() * scale));
+
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            BufferedImage next = new BufferedImage(width, height,
+                    alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    private static void writeJpeg(BufferedImage image, Path target) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(target.toFile())) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private void deleteGenerated(Image image, Map<ImageVariant, String> paths) {
+        // Déclinaisons d'un blob partagé : encore utilisées par les autres images de même contenu
+        if (image.getContentHash() != null
+                && imageRepository.existsByContentHashAndIdNot(image.getContentHash(), image.getId())) {
+            return;
+        }
+        for (String path : paths.values()) {
+            if (path != null && !path.equals(image.getStoragePath())) {
+                try {
+                    Files.deleteIfExists(Paths.get(uploadDir, path));
+                } catch (IOException e) {
+                    log.warn("Impossible de supprimer la déclinaison {} : {}", path, e.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.dev.plateforme_de_dons.service;
+
+import com.dev.plateforme_de_dons.model.Keyword;
+import com.dev.plateforme_de_dons.repository.KeywordRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Dictionnaire nom -> id des mots-clés, borné en taille et chargé au démarrage.
+// Un nom présent est connu en base : seuls les noms absents passent par l'insertion.
+// Les entités sont ensuite lues en une requête (keywords.name IN ...) pour la collection JPA.
+@Component
+@Slf4j
+public class KeywordDictionary {
+
+    // Insertion conditionnelle portable ; la contrainte unique sur keywords.name reste l'arbitre
+    // quand deux transactions créent le même mot-clé au même moment
+    private static final String INSERT_SQL = "INSERT INTO keywords (name) "
+            + "SELECT CAST(? AS VARCHAR(50)) FROM (VALUES (0)) WHERE NOT EXISTS (SELECT 1 FROM keywords WHERE name = ?)";
+
+    private final Cache<String, Long> cache;
+    private final KeywordRepository keywordRepository;
+    private final KeywordSuggestionIndex suggestionIndex;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate insertTransaction;
+    private final int maxSize;
+
+    public KeywordDictionary(KeywordRepository keywordRepository,
+                             KeywordSuggestionIndex suggestionIndex,
+                             JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.keywords.dictionary.max-size:50000}") int maxSize) {
+        this.keywordRepository = keywordRepository;
+        this.suggestionIndex = suggestionIndex;
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxSize = maxSize;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "keywordDictionary");
+        // Transaction propre et courte : le mot-clé est visible des autres requêtes dès l'insertion,
+        // même si l'annonce qui l'a créé échoue ensuite (il reste alors inutilisé)
+        this.insertTransaction = new TransactionTemplate(transactionManager);
+        this.insertTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement("SELECT id, name FROM keywords ORDER BY id");
+            statement.setMaxRows(maxSize);
+            return statement;
+        }, rs -> {
+            cache.put(rs.getString("name"), rs.getLong("id"));
+        });
+        log.info("Dictionnaire des mots-clés chargé : {} entrées", cache.estimatedSize());
+    }
+
+    // Noms déjà normalisés (minuscules, sans espaces autour) ; crée ceux qui n'existent pas encore
+    public List<Keyword> resolve(Collection<String> names) {
+        if (names.isEmpty()) {
+            return List.of();
+        }
+        Set<String> missing = new HashSet<>(names);
+        missing.removeAll(cache.getAllPresent(names).keySet());
+        insertMissing(missing);
+
+        List<Keyword> keywords = new ArrayList<>(keywordRepository.findByNameIn(names));
+        if (keywords.size() < names.size()) {
+            // Mot-clé supprimé depuis sa mise en cache : on le recrée
+            Set<String> deleted = new HashSet<>(names);
+            keywords.forEach(k -> deleted.remove(k.getName()));
+            cache.invalidateAll(deleted);
+            insertMissing(deleted);
+            keywords.addAll(keywordRepository.findByNameIn(deleted));
+            missing.addAll(deleted);
+        }
+
+        keywords.forEach(k -> cache.put(k.getName(), k.getId()));
+        // Mots-clés créés : aussitôt proposés par l'autocomplétion, sans attendre la reconstruction
+        keywords.stream()
+                .filter(k -> missing.contains(k.getName()))
+                .forEach(k -> suggestionIndex.add(k.getId(), k.getName(), 0));
+        return keywords;
+    }
+
+    public Long getId(String name) {
+        return cache.getIfPresent(name);
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    private void insertMissing(Set<String> names) {
+        if (names.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = names.stream().map(name -> new Object[]{name, name}).toList();
+        try {
+            insertTransaction.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_SQL, args));
+        } catch (DuplicateKeyException e) {
+            // Insertion concurrente du même nom validée entre-temps : NOT EXISTS l'écarte désormais
+            insertTransaction.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_SQL, args));
+        }
+    }
+}
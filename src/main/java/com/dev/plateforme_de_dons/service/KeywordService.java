@@ -0,0 +1,65 @@
+package com.dev.plateforme_de_dons.service;
+
+import com.dev.plateforme_de_dons.config.AfterCommit;
+import com.dev.plateforme_de_dons.dto.KeywordUsageDto;
+import com.dev.plateforme_de_dons.model.Keyword;
+import com.dev.plateforme_de_dons.repository.KeywordRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+@Transactional
+@Slf4j
+public class KeywordService {
+
+    public static final int MAX_POPULAR_LIMIT = 100;
+
+    private final KeywordRepository keywordRepository;
+    private final KeywordSuggestionIndex suggestionIndex;
+
+    // Appelé dans la transaction qui change les mots-clés ou le statut d'une annonce active
+    public void addUsage(Collection<Keyword> keywords, int delta) {
+        List<Long> ids = keywords.stream()
+                .map(Keyword::getId)
+                .toList();
+        if (!ids.isEmpty() && delta != 0) {
+            keywordRepository.incrementUsageCount(ids, delta);
+            AfterCommit.run(() -> suggestionIndex.adjust(ids, delta));
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public List<KeywordUsageDto> findPopular(int limit) {
+        int bounded = Math.max(1, Math.min(limit, MAX_POPULAR_LIMIT));
+        return keywordRepository.findTopUsage(PageRequest.of(0, bounded));
+    }
+
+    // Servi par l'index en mémoire, sans requête SQL ni connexion
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<KeywordUsageDto> suggest(String prefix, int limit) {
+        int bounded = Math.max(1, Math.min(limit, MAX_POPULAR_LIMIT));
+        return suggestionIndex.suggest(prefix, bounded);
+    }
+
+    // Filet de sécurité (modifications hors AnnonceService, Data REST) ; initialise aussi la colonne.
+    // L'index d'autocomplétion est reconstruit à partir des compteurs corrigés.
+    @EventListener(ApplicationReadyEvent.class)
+    public int reconcileUsageCounts() {
+        int repaired = keywordRepository.reconcileUsageCounts();
+        if (repaired > 0) {
+            log.warn("{} compteurs d'utilisation de mots-clés corrigés", repaired);
+        }
+        suggestionIndex.rebuild(keywordRepository.findAllUsage());
+        return repaired;
+    }
+}
@@ -0,0 +1,229 @@
+package com.dev.plateforme_de_dons.service;
+
+import com.dev.plateforme_de_dons.dto.KeywordUsageDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Trie des noms de mots-clés sans accents pour l'autocomplétion. Chaque nœud garde ses
+// meilleures complétions (popularité puis nom) : une suggestion ne coûte que la descente du
+// préfixe, sans parcours du sous-arbre ni accès à la base. Enfants en tableaux triés, et
+// listes de complétions dimensionnées au sous-arbre : une branche isolée ne porte qu'une entrée.
+@Component
+@Slf4j
+public class KeywordSuggestionIndex {
+
+    private static final Comparator<Suggestion> BY_POPULARITY = Comparator
+            .comparingInt((Suggestion s) -> s.weight).reversed()
+            .thenComparing(s -> s.name);
+
+    private final int maxResults;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Node root = new Node();
+    private Map<Long, Suggestion> byId = new HashMap<>();
+
+    public KeywordSuggestionIndex(@Value("${app.keywords.suggest.max-results:10}") int maxResults) {
+        this.maxResults = maxResults;
+    }
+
+    public void rebuild(Collection<KeywordUsageDto> keywords) {
+        Node newRoot = new Node();
+        Map<Long, Suggestion> newById = new HashMap<>();
+        for (KeywordUsageDto keyword : keywords) {
+            Suggestion suggestion = new Suggestion(keyword.getId(), keyword.getName(), keyword.getCount());
+            newById.put(suggestion.id, suggestion);
+            insert(newRoot, suggestion);
+        }
+        computeTop(newRoot);
+
+        lock.writeLock().lock();
+        try {
+            root = newRoot;
+            byId = newById;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Index d'autocomplétion des mots-clés reconstruit : {} mots-clés", newById.size());
+    }
+
+    // Nouveau mot-clé : insertion et mise à jour des seuls nœuds du chemin
+    public void add(Long id, String name, int weight) {
+        lock.writeLock().lock();
+        try {
+            if (byId.containsKey(id)) {
+                return;
+            }
+            Suggestion suggestion = new Suggestion(id, name, weight);
+            byId.put(id, suggestion);
+            refreshPath(insert(root, suggestion));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void adjust(Collection<Long> ids, int delta) {
+        lock.writeLock().lock();
+        try {
+            for (Long id : ids) {
+                Suggestion suggestion = byId.get(id);
+                if (suggestion != null) {
+                    suggestion.weight = Math.max(0, suggestion.weight + delta);
+                    refreshPath(path(suggestion.key));
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<KeywordUsageDto> suggest(String prefix, int limit) {
+        String key = TextAnalyzer.fold(prefix).trim();
+        if (key.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            for (int i = 0; i < key.length() && node != null; i++) {
+                node = node.child(key.charAt(i));
+            }
+            if (node == null) {
+                return List.of();
+            }
+            int count = Math.min(limit, node.top.length);
+            List<KeywordUsageDto> results = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                Suggestion suggestion = node.top[i];
+                results.add(new KeywordUsageDto(suggestion.id, suggestion.name, suggestion.weight));
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return byId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Renvoie le chemin racine -> nœud terminal
+    private static List<Node> insert(Node root, Suggestion suggestion) {
+        List<Node> path = new ArrayList<>(suggestion.key.length() + 1);
+        Node node = root;
+        path.add(node);
+        for (int i = 0; i < suggestion.key.length(); i++) {
+            node = node.getOrCreateChild(suggestion.key.charAt(i));
+            path.add(node);
+        }
+        node.entries = append(node.entries, suggestion);
+        return path;
+    }
+
+    private List<Node> path(String key) {
+        List<Node> path = new ArrayList<>(key.length() + 1);
+        Node node = root;
+        path.add(node);
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.child(key.charAt(i));
+            path.add(node);
+        }
+        return path;
+    }
+
+    // Du nœud terminal vers la racine : le top d'un nœud ne dépend que de ses entrées et du top de ses enfants
+    private void refreshPath(List<Node> path) {
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Node node = path.get(i);
+            if (node != null) {
+                node.top = best(node);
+            }
+        }
+    }
+
+    private void computeTop(Node node) {
+        for (Node child : node.children) {
+            computeTop(child);
+        }
+        node.top = best(node);
+    }
+
+    private Suggestion[] best(Node node) {
+        List<Suggestion> candidates = new ArrayList<>(Arrays.asList(node.entries));
+        for (Node child : node.children) {
+            candidates.addAll(Arrays.asList(child.top));
+        }
+        candidates.sort(BY_POPULARITY);
+        return candidates.subList(0, Math.min(maxResults, candidates.size())).toArray(Suggestion[]::new);
+    }
+
+    private static Suggestion[] append(Suggestion[] array, Suggestion suggestion) {
+        Suggestion[] copy = Arrays.copyOf(array, array.length + 1);
+        copy[array.length] = suggestion;
+        return copy;
+    }
+
+    private static final class Suggestion {
+
+        private final Long id;
+        private final String name;
+        private final String key;
+        private int weight;
+
+        private Suggestion(Long id, String name, int weight) {
+            this.id = id;
+            this.name = name;
+            this.key = TextAnalyzer.fold(name);
+            this.weight = weight;
+        }
+    }
+
+    private static final class Node {
+
+        private static final char[] NO_LABELS = new char[0];
+        private static final Node[] NO_CHILDREN = new Node[0];
+        private static final Suggestion[] NO_SUGGESTIONS = new Suggestion[0];
+
+        private char[] labels = NO_LABELS;
+        private Node[] children = NO_CHILDREN;
+        private Suggestion[] entries = NO_SUGGESTIONS;
+        private Suggestion[] top = NO_SUGGESTIONS;
+
+        private Node child(char c) {
+            int index = Arrays.binarySearch(labels, c);
+            return index >= 0 ? children[index] : null;
+        }
+
+        private Node getOrCreateChild(char c) {
+            int index = Arrays.binarySearch(labels, c);
+            if (index >= 0) {
+                return children[index];
+            }
+            int insertAt = -index - 1;
+            Node child = new Node();
+
+            char[] newLabels = new char[labels.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(labels, 0, newLabels, 0, insertAt);
+            System.arraycopy(children, 0, newChildren, 0, insertAt);
+            newLabels[insertAt] = c;
+            newChildren[insertAt] = child;
+            System.arraycopy(labels, insertAt, newLabels, insertAt + 1, labels.length - insertAt);
+            System.arraycopy(children, insertAt, newChildren, insertAt + 1, children.length - insertAt);
+
+            labels = newLabels;
+            children = newChildren;
+            return child;
+        }
+    }
+}
@@ -12,8 +12,11 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -108,6 +111,16 @@ public class LotService {
         return lotRepository.findByActiveTrue(pageable);
     }
 
+    // Annonces de plusieurs lots en une seule requête, regroupées par lot
+    @Transactional(readOnly = true)
+    public Map<Long, List<Annonce>> findAnnoncesByLotIds(Collection<Long> lotIds) {
+        if (lotIds.isEmpty()) {
+            return Map.of();
+        }
+        return annonceRepository.findByLotIdIn(lotIds).stream()
+                .collect(Collectors.groupingBy(annonce -> annonce.getLot().getId()));
+    }
+
     public void deactivateLot(Long id, User owner) {
         Lot lot = lotRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Lot non trouvé"));
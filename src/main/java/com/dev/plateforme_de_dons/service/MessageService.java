@@ -1,8 +1,10 @@
 package com.dev.plateforme_de_dons.service;
 
 import com.dev.plateforme_de_dons.dto.ConversationDto;
+import com.dev.plateforme_de_dons.dto.CursorPage;
 import com.dev.plateforme_de_dons.dto.MessageDto;
 import com.dev.plateforme_de_dons.model.Annonce;
+import com.dev.plateforme_de_dons.model.Conversation;
 import com.dev.plateforme_de_dons.model.Message;
 import com.dev.plateforme_de_dons.model.User;
 import com.dev.plateforme_de_dons.repository.AnnonceRepository;
@@ -10,10 +12,14 @@ import com.dev.plateforme_de_dons.repository.MessageRepository;
 import com.dev.plateforme_de_dons.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -26,6 +32,9 @@ public class MessageService {
     private final UserRepository userRepository;
     private final AnnonceRepository annonceRepository;
     private final NotificationService notificationService;
+    private final ConversationService conversationService;
+    private final NotificationPushService notificationPushService;
+    private final UnreadCountCache unreadCountCache;
 
     public Message sendMessage(MessageDto dto, User sender) {
         User receiver = userRepository.findById(dto.getReceiverId())
@@ -47,63 +56,18 @@ public class MessageService {
         }
 
         message = messageRepository.save(message);
+        conversationService.recordMessage(message);
 
+        unreadCountCache.addMessages(receiver.getId(), 1);
         notificationService.createMessageNotification(receiver, sender, message);
+        notificationPushService.messageReceived(receiver.getId(), convertToDto(message));
 
         return message;
     }
 
     @Transactional(readOnly = true)
-    public List<ConversationDto> getConversationsWithLastMessage(User user) {
-        List<Message> allMessages = messageRepository.findAllByUser(user, Pageable.unpaged()).getContent();
-
-        Map<ConversationKey, List<Message>> groupedConversations = new HashMap<>();
-
-        for (Message message : allMessages) {
-            User partner = message.getSender().getId().equals(user.getId())
-                    ? message.getReceiver()
-                    : message.getSender();
-
-            Long annonceId = message.getAnnonce() != null ? message.getAnnonce().getId() : null;
-            ConversationKey key = new ConversationKey(partner.getId(), annonceId);
-
-            groupedConversations.computeIfAbsent(key, k -> new ArrayList<>()).add(message);
-        }
-
-        List<ConversationDto> conversations = new ArrayList<>();
-
-        for (Map.Entry<ConversationKey, List<Message>> entry : groupedConversations.entrySet()) {
-            ConversationKey key = entry.getKey();
-            List<Message> messages = entry.getValue();
-            messages.sort(Comparator.comparing(Message::getSentAt));
-
-            Message lastMessage = messages.get(messages.size() - 1);
-            User partner = lastMessage.getSender().getId().equals(user.getId())
-                    ? lastMessage.getReceiver()
-                    : lastMessage.getSender();
-
-            long unreadCount = messages.stream()
-                    .filter(m -> m.getReceiver().getId().equals(user.getId()))
-                    .filter(m -> !m.isRead())
-                    .count();
-
-            ConversationDto conv = new ConversationDto();
-            conv.setPartner(partner);
-            conv.setLastMessage(convertToDto(lastMessage));
-            conv.setUnreadCount(unreadCount);
-            conv.setAnnonceId(key.annonceId);
-            if (key.annonceId != null && lastMessage.getAnnonce() != null) {
-                conv.setAnnonceTitre(lastMessage.getAnnonce().getTitre());
-            }
-
-            conversations.add(conv);
-        }
-
-        conversations.sort((c1, c2) ->
-                c2.getLastMessage().getSentAt().compareTo(c1.getLastMessage().getSentAt())
-        );
-
-        return conversations;
+    public Page<ConversationDto> getConversations(User user, Pageable pageable) {
+        return conversationService.findInbox(user, pageable).map(conversation -> convertToDto(conversation, user));
     }
 
     @Transactional(readOnly = true)
@@ -121,9 +85,33 @@ public class MessageService {
         return messageRepository.findAllByUser(user, pageable);
     }
 
+    // Les `size` messages précédant le curseur (les plus récents sans curseur), dans l'ordre chronologique.
+    // Le curseur suivant pointe sur le plus ancien message renvoyé tant qu'il en reste avant lui.
     @Transactional(readOnly = true)
-    public List<Message> getConversation(User user1, User user2, Annonce annonce) {
-        return messageRepository.findConversation(user1, user2, annonce);
+    public CursorPage<Message> getConversationPage(User user1, User user2, Annonce annonce, String before, int size) {
+        LocalDateTime beforeSentAt = null;
+        Long beforeId = null;
+        if (before != null && !before.isBlank()) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(before), StandardCharsets.UTF_8);
+                String[] parts = raw.split("\\|", 2);
+                beforeSentAt = LocalDateTime.parse(parts[0]);
+                beforeId = Long.valueOf(parts[1]);
+            } catch (IllegalArgumentException | DateTimeParseException | ArrayIndexOutOfBoundsException e) {
+                throw new IllegalArgumentException("Curseur de pagination invalide");
+            }
+        }
+
+        List<Message> window = new ArrayList<>(messageRepository.findConversationBefore(
+                user1, user2, annonce, beforeSentAt, beforeId, PageRequest.of(0, size + 1)));
+        boolean hasOlder = window.size() > size;
+        if (hasOlder) {
+            window.remove(size);
+        }
+        Collections.reverse(window);
+
+        String nextCursor = hasOlder ? encodeCursor(window.get(0)) : null;
+        return new CursorPage<>(window, nextCursor);
     }
 
     @Transactional(readOnly = true)
@@ -136,7 +124,7 @@ public class MessageService {
 
     @Transactional(readOnly = true)
     public long getUnreadCount(User user) {
-        return messageRepository.countByReceiverAndReadFalse(user);
+        return unreadCountCache.getUnreadMessages(user.getId());
     }
 
     public void markAsRead(Long messageId, User user) {
@@ -147,19 +135,40 @@ public class MessageService {
             throw new IllegalArgumentException("Vous n'êtes pas autorisé à marquer ce message comme lu");
         }
 
+        if (message.isRead()) {
+            return;
+        }
         message.markAsRead();
         messageRepository.save(message);
+        conversationService.markRead(user.getId(), message.getSender().getId(), annonceKey(message), 1);
+        unreadCountCache.addMessages(user.getId(), -1);
+        notificationPushService.unreadCountsChanged(user.getId());
     }
 
-    public void markConversationAsRead(User currentUser, User otherUser, Annonce annonce) {
-        List<Message> messages = messageRepository.findConversation(currentUser, otherUser, annonce);
-        messages.stream()
-                .filter(m -> m.getReceiver().getId().equals(currentUser.getId()))
-                .filter(m -> !m.isRead())
-                .forEach(m -> {
-                    m.markAsRead();
-                    messageRepository.save(m);
-                });
+    // Marque lus, en une requête, les messages reçus de otherUser jusqu'à upToMessageId (tous si null)
+    public int markConversationAsRead(User currentUser, User otherUser, Annonce annonce, Long upToMessageId) {
+        // Sans annonce précisée, le fil couvre toutes les conversations entre les deux utilisateurs :
+        // le détail par annonce sert à tenir à jour chacune d'elles
+        List<MessageRepository.UnreadByAnnonce> unreadByAnnonce = annonce == null
+                ? messageRepository.countUnreadByAnnonce(currentUser, otherUser, upToMessageId)
+                : List.of();
+
+        int updated = messageRepository.markConversationAsRead(currentUser, otherUser, annonce, upToMessageId);
+        if (updated == 0) {
+            return 0;
+        }
+
+        if (annonce != null) {
+            conversationService.markRead(currentUser.getId(), otherUser.getId(), Conversation.annonceKey(annonce.getId()), updated);
+        } else {
+            for (MessageRepository.UnreadByAnnonce group : unreadByAnnonce) {
+                conversationService.markRead(currentUser.getId(), otherUser.getId(),
+                        Conversation.annonceKey(group.getAnnonceId()), (int) group.getUnread());
+            }
+        }
+        unreadCountCache.addMessages(currentUser.getId(), -updated);
+        notificationPushService.unreadCountsChanged(currentUser.getId());
+        return updated;
     }
 
     @Transactional(readOnly = true)
@@ -184,32 +193,30 @@ public class MessageService {
         return dto;
     }
 
+    public ConversationDto convertToDto(Conversation conversation, User user) {
+        ConversationDto dto = new ConversationDto();
+        dto.setPartner(conversation.getPartner(user.getId()));
+        dto.setLastMessage(convertToDto(conversation.getLastMessage()));
+        dto.setUnreadCount(conversation.getUnreadCount(user.getId()));
+        if (conversation.getAnnonce() != null) {
+            dto.setAnnonceId(conversation.getAnnonce().getId());
+            dto.setAnnonceTitre(conversation.getAnnonce().getTitre());
+        }
+        return dto;
+    }
+
     public List<MessageDto> convertToDtoList(List<Message> messages) {
         return messages.stream()
                 .map(this::convertToDto)
                 .collect(Collectors.toList());
     }
 
-    private static class ConversationKey {
-        private final Long partnerId;
-        private final Long annonceId;
-
-        public ConversationKey(Long partnerId, Long annonceId) {
-            this.partnerId = partnerId;
-            this.annonceId = annonceId;
-        }
-
-        @Override
-        public boolean equals(Object o) {
-            if (this == o) return true;
-            if (o == null || getClass() != o.getClass()) return false;
-            ConversationKey that = (ConversationKey) o;
-            return Objects.equals(partnerId, that.partnerId) && Objects.equals(annonceId, that.annonceId);
-        }
+    private String encodeCursor(Message oldest) {
+        String raw = oldest.getSentAt() + "|" + oldest.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
 
-        @Override
-        public int hashCode() {
-            return Objects.hash(partnerId, annonceId);
-        }
+    private long annonceKey(Message message) {
+        return Conversation.annonceKey(message.getAnnonce() != null ? message.getAnnonce().getId() : null);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,204 @@
+package com.dev.plateforme_de_dons.service;
+
+import com.dev.plateforme_de_dons.model.Notification;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// Insertion JDBC par lots : avec un id IDENTITY, Hibernate ne regroupe pas les INSERT.
+// Chaque lot est validé séparément, sauf si l'appelant a déjà ouvert une transaction.
+@Component
+@Slf4j
+public class NotificationBatchWriter {
+
+    private static final String INSERT_SQL = "INSERT INTO notifications "
+            + "(user_id, sender_id, title, message, type, annonce_id, saved_search_id, read, created_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, FALSE, ?)";
+
+    // Alerte de recherche : ignorée si elle existe déjà pour ce couple (recherche, annonce)
+    private static final String INSERT_ALERT_SQL = "INSERT INTO notifications "
+            + "(user_id, sender_id, title, message, type, annonce_id, saved_search_id, read, created_at) "
+            + "SELECT CAST(? AS BIGINT), CAST(? AS BIGINT), CAST(? AS VARCHAR(200)), CAST(? AS VARCHAR(1000)), "
+            + "CAST(? AS VARCHAR(255)), CAST(? AS BIGINT), CAST(? AS BIGINT), FALSE, CAST(? AS TIMESTAMP) "
+            + "FROM (VALUES (0)) WHERE NOT EXISTS "
+            + "(SELECT 1 FROM notifications WHERE saved_search_id = CAST(? AS BIGINT) AND annonce_id = CAST(? AS BIGINT))";
+
+    private static final String UNIQUE_VIOLATION = "23505";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public NotificationBatchWriter(JdbcTemplate jdbcTemplate,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${app.notifications.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    public int write(List<Notification> notifications) {
+        int written = 0;
+        for (int from = 0; from < notifications.size(); from += batchSize) {
+            List<Notification> chunk = notifications.subList(from, Math.min(from + batchSize, notifications.size()));
+            written += transactionTemplate.execute(status -> insertChunk(chunk));
+        }
+        if (written > 1) {
+            log.debug("{} notifications insérées par lots de {}", written, batchSize);
+        }
+        return written;
+    }
+
+    // Au plus une alerte par (recherche, annonce), garanti par l'index unique de notifications :
+    // le traitement à chaud et le rattrapage peuvent traiter la même annonce en même temps.
+    // Renvoie les seules notifications insérées, avec leur id.
+    public List<Notification> writeAlerts(List<Notification> alerts) {
+        List<Notification> written = new ArrayList<>(alerts.size());
+        for (int from = 0; from < alerts.size(); from += batchSize) {
+            List<Notification> chunk = alerts.subList(from, Math.min(from + batchSize, alerts.size()));
+            written.addAll(transactionTemplate.execute(status -> insertAlertChunk(chunk)));
+        }
+        return written;
+    }
+
+    // Le lot passe d'un bloc sauf si une alerte concurrente, pas encore visible, prend la même clé :
+    // le lot est alors annulé jusqu'au point de sauvegarde et rejoué ligne à ligne, doublons ignorés.
+    private List<Notification> insertAlertChunk(List<Notification> chunk) {
+        return jdbcTemplate.execute((ConnectionCallback<List<Notification>>) connection -> {
+            LocalDateTime now = LocalDateTime.now();
+            Savepoint savepoint = connection.setSavepoint();
+            try {
+                List<Notification> inserted = insertAlerts(connection, chunk, now);
+                connection.releaseSavepoint(savepoint);
+                return inserted;
+            } catch (SQLException e) {
+                connection.rollback(savepoint);
+                if (!isUniqueViolation(e)) {
+                    throw e;
+                }
+            }
+
+            List<Notification> inserted = new ArrayList<>(chunk.size());
+            for (Notification alert : chunk) {
+                Savepoint rowSavepoint = connection.setSavepoint();
+                try {
+                    inserted.addAll(insertAlerts(connection, List.of(alert), now));
+                    connection.releaseSavepoint(rowSavepoint);
+                } catch (SQLException e) {
+                    connection.rollback(rowSavepoint);
+                    if (!isUniqueViolation(e)) {
+                        throw e;
+                    }
+                }
+            }
+            return inserted;
+        });
+    }
+
+    private static List<Notification> insertAlerts(Connection connection, List<Notification> alerts, LocalDateTime now)
+            throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(INSERT_ALERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+            for (Notification alert : alerts) {
+                bind(ps, alert, now);
+                ps.setLong(9, alert.getSavedSearch().getId());
+                ps.setLong(10, alert.getAnnonce().getId());
+                ps.addBatch();
+            }
+            int[] counts = ps.executeBatch();
+
+            List<Notification> inserted = new ArrayList<>(alerts.size());
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                for (int i = 0; i < counts.length; i++) {
+                    if (counts[i] != 0 && keys.next()) {
+                        alerts.get(i).setId(keys.getLong(1));
+                        inserted.add(alerts.get(i));
+                    }
+                }
+            }
+            return inserted;
+        }
+    }
+
+    private static boolean isUniqueViolation(SQLException e) {
+        for (SQLException current = e; current != null; current = current.getNextException()) {
+            if (UNIQUE_VIOLATION.equals(current.getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int insertChunk(List<Notification> chunk) {
+        LocalDateTime now = LocalDateTime.now();
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+
+        int[] counts = jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        bind(ps, chunk.get(i), now);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return chunk.size();
+                    }
+                },
+                keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < keys.size() && i < chunk.size(); i++) {
+            Object id = keys.get(i).values().iterator().next();
+            chunk.get(i).setId(((Number) id).longValue());
+        }
+
+        int written = 0;
+        for (int count : counts) {
+            written += count == Statement.SUCCESS_NO_INFO ? 1 : count;
+        }
+        return written;
+    }
+
+    private static void bind(PreparedStatement ps, Notification notification, LocalDateTime now) throws SQLException {
+        if (notification.getCreatedAt() == null) {
+            notification.setCreatedAt(now);
+        }
+        ps.setLong(1, notification.getUser().getId());
+        setNullableId(ps, 2, notification.getSender() != null ? notification.getSender().getId() : null);
+        ps.setString(3, notification.getTitle());
+        ps.setString(4, notification.getMessage());
+        ps.setString(5, notification.getType() != null ? notification.getType().name() : null);
+        setNullableId(ps, 6, notification.getAnnonce() != null ? notification.getAnnonce().getId() : null);
+        setNullableId(ps, 7, notification.getSavedSearch() != null ? notification.getSavedSearch().getId() : null);
+        ps.setTimestamp(8, Timestamp.valueOf(notification.getCreatedAt()));
+    }
+
+    private static void setNullableId(PreparedStatement ps, int index, Long id) throws SQLException {
+        if (id != null) {
+            ps.setLong(index, id);
+        } else {
+            ps.setNull(index, Types.BIGINT);
+        }
+    }
+}
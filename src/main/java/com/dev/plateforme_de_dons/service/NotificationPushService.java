@@ -0,0 +1,87 @@
+package com.dev.plateforme_de_dons.service;
+
+import com.dev.plateforme_de_dons.config.AfterCommit;
+import com.dev.plateforme_de_dons.dto.MessageDto;
+import com.dev.plateforme_de_dons.model.Notification;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.*;
+
+// Pousse vers les navigateurs connectés les notifications créées et les compteurs de non-lus.
+// Rien n'est envoyé avant le commit. Notifications et messages sont publiés même sans connexion
+// ouverte : ils sont ainsi rejoués à la reconnexion (Last-Event-ID). Les compteurs, eux, ne sont
+// calculés que pour un utilisateur connecté.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationPushService {
+
+    public static final String NOTIFICATION_EVENT = "notification";
+    public static final String MESSAGE_EVENT = "message";
+    public static final String UNREAD_COUNT_EVENT = "unread-count";
+
+    private final NotificationStreamRegistry streamRegistry;
+    private final UnreadCountCache unreadCountCache;
+
+    public SseEmitter subscribe(Long userId, Long lastEventId) {
+        SseEmitter emitter = streamRegistry.connect(userId, lastEventId);
+        sendUnreadCounts(userId);
+        return emitter;
+    }
+
+    public void notificationsCreated(List<Notification> notifications) {
+        Map<Long, List<Map<String, Object>>> payloads = new LinkedHashMap<>();
+        for (Notification notification : notifications) {
+            payloads.computeIfAbsent(notification.getUser().getId(), id -> new ArrayList<>()).add(toPayload(notification));
+        }
+        if (payloads.isEmpty()) {
+            return;
+        }
+        AfterCommit.run(() -> payloads.forEach((userId, userPayloads) -> {
+            userPayloads.forEach(payload -> streamRegistry.publish(userId, NOTIFICATION_EVENT, payload));
+            if (streamRegistry.isConnected(userId)) {
+                sendUnreadCounts(userId);
+            }
+        }));
+    }
+
+    public void messageReceived(Long receiverId, MessageDto message) {
+        AfterCommit.run(() -> streamRegistry.publish(receiverId, MESSAGE_EVENT, message));
+    }
+
+    public void unreadCountsChanged(Long userId) {
+        if (streamRegistry.isConnected(userId)) {
+            AfterCommit.run(() -> sendUnreadCounts(userId));
+        }
+    }
+
+    public Map<String, Object> getUnreadCounts(Long userId) {
+        Map<String, Object> counts = new HashMap<>();
+        counts.put("notifications", unreadCountCache.getUnreadNotifications(userId));
+        counts.put("messages", unreadCountCache.getUnreadMessages(userId));
+        return counts;
+    }
+
+    private void sendUnreadCounts(Long userId) {
+        try {
+            streamRegistry.push(userId, UNREAD_COUNT_EVENT, getUnreadCounts(userId));
+        } catch (Exception e) {
+            log.warn("Impossible d'envoyer les compteurs de l'utilisateur {} : {}", userId, e.getMessage());
+        }
+    }
+
+    private Map<String, Object> toPayload(Notification notification) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("id", notification.getId());
+        payload.put("type", notification.getType());
+        payload.put("title", notification.getTitle());
+        payload.put("message", notification.getMessage());
+        payload.put("createdAt", notification.getCreatedAt());
+        payload.put("annonceId", notification.getAnnonce() != null ? notification.getAnnonce().getId() : null);
+        payload.put("senderId", notification.getSender() != null ? notification.getSender().getId() : null);
+        return payload;
+    }
+}
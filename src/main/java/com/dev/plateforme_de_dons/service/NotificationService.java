@@ -2,12 +2,18 @@ package com.dev.plateforme_de_dons.service;
 
 import com.dev.plateforme_de_dons.model.*;
 import com.dev.plateforme_de_dons.repository.NotificationRepository;
+import com.dev.plateforme_de_dons.repository.SavedSearchRepository;
+import com.dev.plateforme_de_dons.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Service
@@ -16,6 +22,11 @@ import java.util.Optional;
 public class NotificationService {
 
     private final NotificationRepository notificationRepository;
+    private final NotificationBatchWriter notificationBatchWriter;
+    private final UserRepository userRepository;
+    private final SavedSearchRepository savedSearchRepository;
+    private final NotificationPushService notificationPushService;
+    private final UnreadCountCache unreadCountCache;
 
     public Notification createNotification(User user, String title, String message, NotificationType type) {
         Notification notification = new Notification();
@@ -23,19 +34,39 @@ public class NotificationService {
         notification.setTitle(title);
         notification.setMessage(message);
         notification.setType(type);
-        return notificationRepository.save(notification);
+        notification = notificationRepository.save(notification);
+        unreadCountCache.addNotifications(user.getId(), 1);
+        notificationPushService.notificationsCreated(List.of(notification));
+        return notification;
     }
 
-    public Notification createNewAnnonceNotification(User user, Annonce annonce, SavedSearch savedSearch) {
-        Notification notification = new Notification();
-        notification.setUser(user);
-        notification.setTitle("Nouvelle annonce correspondante");
-        notification.setMessage("L'annonce \"" + annonce.getTitre() + "\" correspond à votre recherche \"" + savedSearch.getName() + "\"");
-        notification.setType(NotificationType.NEW_ANNONCE_MATCH);
-        notification.setAnnonce(annonce);
-        notification.setSavedSearch(savedSearch);
-        notification.setSender(annonce.getOwner());
-        return notificationRepository.save(notification);
+    // Une notification par recherche sauvegardée, insérées par lots (voir NotificationBatchWriter) ;
+    // celles déjà présentes pour cette annonce ne sont ni recréées, ni comptées, ni poussées
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<Notification> createNewAnnonceNotifications(Annonce annonce, List<SavedSearchRepository.AlertRecipient> recipients) {
+        List<Notification> notifications = new ArrayList<>(recipients.size());
+        for (SavedSearchRepository.AlertRecipient recipient : recipients) {
+            Notification notification = new Notification();
+            notification.setUser(userRepository.getReferenceById(recipient.getUserId()));
+            notification.setTitle("Nouvelle annonce correspondante");
+            notification.setMessage("L'annonce \"" + annonce.getTitre() + "\" correspond à votre recherche \"" + recipient.getName() + "\"");
+            notification.setType(NotificationType.NEW_ANNONCE_MATCH);
+            notification.setAnnonce(annonce);
+            notification.setSavedSearch(savedSearchRepository.getReferenceById(recipient.getId()));
+            notification.setSender(annonce.getOwner());
+            notifications.add(notification);
+        }
+        List<Notification> created = notificationBatchWriter.writeAlerts(notifications);
+        for (Notification notification : created) {
+            unreadCountCache.addNotifications(notification.getUser().getId(), 1);
+        }
+        notificationPushService.notificationsCreated(created);
+        return created;
+    }
+
+    @Transactional(readOnly = true)
+    public List<Long> findNotifiedSavedSearchIds(Annonce annonce, Collection<Long> savedSearchIds) {
+        return notificationRepository.findSavedSearchIdsNotifiedForAnnonce(annonce.getId(), savedSearchIds);
     }
 
     public Notification createMessageNotification(User user, User sender, Message message) {
@@ -49,7 +80,10 @@ public class NotificationService {
             notification.setAnnonce(message.getAnnonce());
             notification.setMessage("Vous avez reçu un message de " + sender.getUsername() + " à propos de \"" + message.getAnnonce().getTitre() + "\"");
         }
-        return notificationRepository.save(notification);
+        notificationBatchWriter.write(List.of(notification));
+        unreadCountCache.addNotifications(user.getId(), 1);
+        notificationPushService.notificationsCreated(List.of(notification));
+        return notification;
     }
 
     @Transactional(readOnly = true)
@@ -64,21 +98,25 @@ public class NotificationService {
 
     @Transactional(readOnly = true)
     public long getUnreadCount(User user) {
-        return notificationRepository.countByUserAndReadFalse(user);
+        return unreadCountCache.getUnreadNotifications(user.getId());
     }
 
     public void markAsRead(Long notificationId, User user) {
         Optional<Notification> notifOpt = notificationRepository.findById(notificationId);
         if (notifOpt.isPresent()) {
             Notification notification = notifOpt.get();
-            if (notification.getUser().getId().equals(user.getId())) {
+            if (notification.getUser().getId().equals(user.getId()) && !notification.isRead()) {
                 notification.markAsRead();
                 notificationRepository.save(notification);
+                unreadCountCache.addNotifications(user.getId(), -1);
+                notificationPushService.unreadCountsChanged(user.getId());
             }
         }
     }
 
     public void markAllAsRead(User user) {
         notificationRepository.markAllAsReadForUser(user);
+        unreadCountCache.clearNotifications(user.getId());
+        notificationPushService.unreadCountsChanged(user.getId());
     }
 }
\ No newline at end of file
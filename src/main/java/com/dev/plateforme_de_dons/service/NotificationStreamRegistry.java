@@ -0,0 +1,180 @@
+package com.dev.plateforme_de_dons.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Connexions SSE ouvertes par utilisateur. Les SseEmitter reposent sur le mode asynchrone
+// du servlet : une connexion inactive n'occupe aucun thread, seulement cet objet.
+// Les derniers événements de chaque utilisateur sont gardés pour rejouer ceux qu'un
+// navigateur a manqués pendant une reconnexion (en-tête Last-Event-ID).
+@Component
+@Slf4j
+public class NotificationStreamRegistry {
+
+    private final Map<Long, Set<SseEmitter>> emitters = new ConcurrentHashMap<>();
+    private final Map<Long, Deque<StreamEvent>> recentEvents = new ConcurrentHashMap<>();
+    // Amorcé sur l'horloge pour que les ids restent croissants après un redémarrage
+    private final AtomicLong sequence = new AtomicLong(System.currentTimeMillis());
+
+    private final long timeoutMs;
+    private final long reconnectDelayMs;
+    private final int replaySize;
+    private final long replayTtlMs;
+
+    public NotificationStreamRegistry(@Value("${app.notifications.stream.timeout-ms:1800000}") long timeoutMs,
+                                      @Value("${app.notifications.stream.reconnect-delay-ms:3000}") long reconnectDelayMs,
+                                      @Value("${app.notifications.stream.replay-size:50}") int replaySize,
+                                      @Value("${app.notifications.stream.replay-ttl-ms:300000}") long replayTtlMs) {
+        this.timeoutMs = timeoutMs;
+        this.reconnectDelayMs = reconnectDelayMs;
+        this.replaySize = replaySize;
+        this.replayTtlMs = replayTtlMs;
+    }
+
+    public SseEmitter connect(Long userId, Long lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        emitters.compute(userId, (id, userEmitters) -> {
+            Set<SseEmitter> set = userEmitters != null ? userEmitters : new CopyOnWriteArraySet<>();
+            set.add(emitter);
+            return set;
+        });
+
+        Runnable cleanup = () -> removeEmitter(userId, emitter);
+        emitter.onCompletion(cleanup);
+        emitter.onTimeout(cleanup);
+        emitter.onError(e -> cleanup.run());
+
+        try {
+            emitter.send(SseEmitter.event().comment("connected").reconnectTime(reconnectDelayMs));
+            if (lastEventId != null) {
+                for (StreamEvent event : eventsAfter(userId, lastEventId)) {
+                    emitter.send(event.toSse());
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            removeEmitter(userId, emitter);
+            emitter.completeWithError(e);
+        }
+        return emitter;
+    }
+
+    public boolean isConnected(Long userId) {
+        return emitters.containsKey(userId);
+    }
+
+    public int connectionCount() {
+        return emitters.values().stream().mapToInt(Set::size).sum();
+    }
+
+    // Événement numéroté, conservé pour être rejoué après une reconnexion
+    public void publish(Long userId, String name, Object data) {
+        StreamEvent event = new StreamEvent(sequence.incrementAndGet(), name, data, System.currentTimeMillis());
+        Deque<StreamEvent> events = recentEvents.computeIfAbsent(userId, id -> new ArrayDeque<>());
+        synchronized (events) {
+            events.addLast(event);
+            while (events.size() > replaySize) {
+                events.removeFirst();
+            }
+        }
+        deliver(userId, event::toSse);
+    }
+
+    // État courant (ex. compteurs) : inutile de le rejouer, le suivant le remplace
+    public void push(Long userId, String name, Object data) {
+        deliver(userId, () -> SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON));
+    }
+
+    // Commentaire SSE périodique : garde la connexion ouverte à travers les proxys
+    // et détecte les navigateurs partis sans fermer proprement
+    public void heartbeat() {
+        emitters.forEach((userId, userEmitters) -> {
+            for (SseEmitter emitter : userEmitters) {
+                send(userId, emitter, SseEmitter.event().comment("ping"));
+            }
+        });
+        pruneRecentEvents();
+    }
+
+    // Un builder par connexion : SseEventBuilder n'est pas réutilisable après build()
+    private void deliver(Long userId, Supplier<SseEmitter.SseEventBuilder> event) {
+        Set<SseEmitter> userEmitters = emitters.get(userId);
+        if (userEmitters == null) {
+            return;
+        }
+        for (SseEmitter emitter : userEmitters) {
+            send(userId, emitter, event.get());
+        }
+    }
+
+    private void send(Long userId, SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Connexion SSE fermée pour l'utilisateur {} : {}", userId, e.getMessage());
+            removeEmitter(userId, emitter);
+            try {
+                emitter.completeWithError(e);
+            } catch (IllegalStateException ignored) {
+                // déjà terminé
+            }
+        }
+    }
+
+    private void removeEmitter(Long userId, SseEmitter emitter) {
+        emitters.computeIfPresent(userId, (id, userEmitters) -> {
+            userEmitters.remove(emitter);
+            return userEmitters.isEmpty() ? null : userEmitters;
+        });
+    }
+
+    private List<StreamEvent> eventsAfter(Long userId, long lastEventId) {
+        Deque<StreamEvent> events = recentEvents.get(userId);
+        if (events == null) {
+            return List.of();
+        }
+        List<StreamEvent> missed = new ArrayList<>();
+        synchronized (events) {
+            for (StreamEvent event : events) {
+                if (event.id() > lastEventId) {
+                    missed.add(event);
+                }
+            }
+        }
+        return missed;
+    }
+
+    private void pruneRecentEvents() {
+        long limit = System.currentTimeMillis() - replayTtlMs;
+        recentEvents.entrySet().removeIf(entry -> {
+            Deque<StreamEvent> events = entry.getValue();
+            synchronized (events) {
+                while (!events.isEmpty() && events.peekFirst().createdAt() < limit) {
+                    events.removeFirst();
+                }
+                return events.isEmpty();
+            }
+        });
+    }
+
+    private record StreamEvent(long id, String name, Object data, long createdAt) {
+
+        SseEmitter.SseEventBuilder toSse() {
+            return SseEmitter.event().id(String.valueOf(id)).name(name).data(data, MediaType.APPLICATION_JSON);
+        }
+    }
+}
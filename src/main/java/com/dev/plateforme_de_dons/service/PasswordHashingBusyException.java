@@ -0,0 +1,17 @@
+package com.dev.plateforme_de_dons.service;
+
+import lombok.Getter;
+import org.springframework.security.authentication.AuthenticationServiceException;
+
+// Pool de hachage saturé. Hérite d'AuthenticationServiceException pour que le filtre de
+// connexion la transmette au gestionnaire d'échec (réponse 503) au lieu d'une erreur 500.
+@Getter
+public class PasswordHashingBusyException extends AuthenticationServiceException {
+
+    private final long retryAfterSeconds;
+
+    public PasswordHashingBusyException(long retryAfterSeconds) {
+        super("Le service est momentanément surchargé, veuillez réessayer dans quelques secondes");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
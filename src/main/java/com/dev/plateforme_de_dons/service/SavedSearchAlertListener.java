@@ -0,0 +1,28 @@
+package com.dev.plateforme_de_dons.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+// Alertes quasi temps réel : chaque annonce enregistrée est confrontée aux recherches
+// sauvegardées sur le pool borné alertExecutor, une fois la transaction validée
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SavedSearchAlertListener {
+
+    private final SavedSearchService savedSearchService;
+
+    @Async("alertExecutor")
+    @TransactionalEventListener
+    public void onAnnonceSaved(AnnonceSavedEvent event) {
+        try {
+            int notified = savedSearchService.notifyMatchingSearches(event.annonceId());
+            log.debug("Annonce {} : {} recherches notifiées", event.annonceId(), notified);
+        } catch (Exception e) {
+            log.error("Error matching annonce {} against saved searches: {}", event.annonceId(), e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package com.dev.plateforme_de_dons.service;
+
+import com.dev.plateforme_de_dons.config.AfterCommit;
+import com.dev.plateforme_de_dons.model.Annonce;
+import com.dev.plateforme_de_dons.model.EtatObjet;
+import com.dev.plateforme_de_dons.model.Keyword;
+import com.dev.plateforme_de_dons.model.ModeLivraison;
+import com.dev.plateforme_de_dons.model.SavedSearch;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Index inversé des recherches sauvegardées : chaque recherche est rangée sous une seule clé
+// (son critère le plus sélectif), chaque annonce génère toutes les clés qu'elle peut satisfaire,
+// puis seules les recherches candidates sont vérifiées entièrement.
+@Component
+@Slf4j
+public class SavedSearchMatcher {
+
+    private static final int MIN_PREFIX_LENGTH = 3;
+    private static final int TRIGRAM = 3;
+    private static final String MATCH_ALL = "*";
+
+    private final Map<String, Set<Long>> buckets = new HashMap<>();
+    private final Map<Long, IndexedSearch> searches = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Comme pour AnnonceSearchIndex : visible seulement une fois la transaction validée
+    public void index(SavedSearch savedSearch) {
+        if (savedSearch.getId() == null) {
+            return;
+        }
+        if (!savedSearch.isNotificationsEnabled()) {
+            remove(savedSearch.getId());
+            return;
+        }
+
+        IndexedSearch search = new IndexedSearch(savedSearch);
+        AfterCommit.run(() -> put(search));
+    }
+
+    public void remove(Long savedSearchId) {
+        AfterCommit.run(() -> {
+            lock.writeLock().lock();
+            try {
+                removeInternal(savedSearchId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    public void rebuild(Collection<SavedSearch> savedSearches) {
+        lock.writeLock().lock();
+        try {
+            buckets.clear();
+            searches.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        savedSearches.stream()
+                .filter(savedSearch -> savedSearch.getId() != null && savedSearch.isNotificationsEnabled())
+                .forEach(savedSearch -> put(new IndexedSearch(savedSearch)));
+        log.info("Index des recherches sauvegardées reconstruit : {} recherches, {} clés", size(), bucketCount());
+    }
+
+    // Ids des recherches sauvegardées auxquelles correspond l'annonce, publiée après leur création
+    public List<Long> match(Annonce annonce) {
+        if (!annonce.isActive()) {
+            return List.of();
+        }
+        ProbedAnnonce probe = new ProbedAnnonce(annonce);
+
+        lock.readLock().lock();
+        try {
+            Set<Long> candidates = new HashSet<>(buckets.getOrDefault(MATCH_ALL, Collections.emptySet()));
+            for (String key : probe.keys()) {
+                candidates.addAll(buckets.getOrDefault(key, Collections.emptySet()));
+            }
+
+            List<Long> matches = new ArrayList<>();
+            for (Long id : candidates) {
+                IndexedSearch search = searches.get(id);
+                if (search != null && search.matches(probe)) {
+                    matches.add(id);
+                }
+            }
+            Collections.sort(matches);
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return searches.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int bucketCount() {
+        lock.readLock().lock();
+        try {
+            return buckets.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void put(IndexedSearch search) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(search.id);
+            for (String key : search.anchors) {
+                buckets.computeIfAbsent(key, k -> new HashSet<>()).add(search.id);
+            }
+            searches.put(search.id, search);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeInternal(Long savedSearchId) {
+        IndexedSearch search = searches.remove(savedSearchId);
+        if (search == null) {
+            return;
+        }
+        for (String key : search.anchors) {
+            Set<Long> ids = buckets.get(key);
+            if (ids != null) {
+                ids.remove(savedSearchId);
+                if (ids.isEmpty()) {
+                    buckets.remove(key);
+                }
+            }
+        }
+    }
+
+    private static String termKey(String stem) {
+        return "t:" + stem;
+    }
+
+    private static String prefixKey(String term) {
+        return "p:" + term.substring(0, MIN_PREFIX_LENGTH);
+    }
+
+    private static String keywordKey(String keyword) {
+        return "k:" + keyword;
+    }
+
+    private static String zoneKey(String trigram) {
+        return "z:" + trigram;
+    }
+
+    private static String etatKey(EtatObjet etatObjet) {
+        return "e:" + etatObjet.name();
+    }
+
+    private static String modeKey(ModeLivraison modeLivraison) {
+        return "m:" + modeLivraison.name();
+    }
+
+    private static final class IndexedSearch {
+
+        private final Long id;
+        private final List<String> tokens;
+        private final String zone;
+        private final EtatObjet etatObjet;
+        private final ModeLivraison modeLivraison;
+        private final Set<String> keywords = new HashSet<>();
+        private final LocalDateTime since;
+        private final Set<String> anchors;
+
+        IndexedSearch(SavedSearch savedSearch) {
+            this.id = savedSearch.getId();
+            this.tokens = TextAnalyzer.tokenize(savedSearch.getQuery());
+            this.zone = TextAnalyzer.fold(savedSearch.getZoneGeographique()).trim();
+            this.etatObjet = savedSearch.getEtatObjet();
+            this.modeLivraison = savedSearch.getModeLivraison();
+            if (savedSearch.getKeywords() != null) {
+                for (String keyword : savedSearch.getKeywords().split(",")) {
+                    if (!keyword.isBlank()) {
+                        keywords.add(keyword.trim().toLowerCase());
+                    }
+                }
+            }
+            this.since = savedSearch.getCreatedAt();
+            this.anchors = chooseAnchors();
+        }
+
+        // Un terme de la requête est obligatoire : le plus long est le plus sélectif.
+        // Les mots-clés sont alternatifs, la recherche est donc rangée sous chacun d'eux.
+        private Set<String> chooseAnchors() {
+            if (!tokens.isEmpty()) {
+                int best = 0;
+                for (int i = 1; i < tokens.size(); i++) {
+                    if (tokens.get(i).length() > tokens.get(best).length()) {
+                        best = i;
+                    }
+                }
+                return Set.of(isPrefix(best)
+                        ? prefixKey(tokens.get(best))
+                        : termKey(TextAnalyzer.stem(tokens.get(best))));
+            }
+            if (!keywords.isEmpty()) {
+                Set<String> keys = new HashSet<>();
+                keywords.forEach(keyword -> keys.add(keywordKey(keyword)));
+                return keys;
+            }
+            if (zone.length() >= TRIGRAM) {
+                return Set.of(zoneKey(zone.substring(0, TRIGRAM)));
+            }
+            if (etatObjet != null) {
+                return Set.of(etatKey(etatObjet));
+            }
+            if (modeLivraison != null) {
+                return Set.of(modeKey(modeLivraison));
+            }
+            return Set.of(MATCH_ALL);
+        }
+
+        private boolean isPrefix(int index) {
+            return index == tokens.size() - 1 && tokens.get(index).length() >= MIN_PREFIX_LENGTH;
+        }
+
+        // Mêmes règles que la recherche : tous les termes, le dernier aussi en préfixe,
+        // zone contenue, un mot-clé au moins
+        boolean matches(ProbedAnnonce annonce) {
+            if (since != null && annonce.datePublication != null && !annonce.datePublication.isAfter(since)) {
+                return false;
+            }
+            if (etatObjet != null && etatObjet != annonce.etatObjet) {
+                return false;
+            }
+            if (modeLivraison != null && modeLivraison != annonce.modeLivraison) {
+                return false;
+            }
+            if (!zone.isEmpty() && !annonce.zone.contains(zone)) {
+                return false;
+            }
+            if (!keywords.isEmpty() && Collections.disjoint(keywords, annonce.keywords)) {
+                return false;
+            }
+            for (int i = 0; i < tokens.size(); i++) {
+                if (!annonce.hasTerm(tokens.get(i), isPrefix(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static final class ProbedAnnonce {
+
+        private final Set<String> terms = new HashSet<>();
+        private final Set<String> keywords = new HashSet<>();
+        private final String zone;
+        private final EtatObjet etatObjet;
+        private final ModeLivraison modeLivraison;
+        private final LocalDateTime datePublication;
+
+        ProbedAnnonce(Annonce annonce) {
+            terms.addAll(TextAnalyzer.analyze(annonce.getTitre()));
+            terms.addAll(TextAnalyzer.analyze(annonce.getDescription()));
+            for (Keyword keyword : annonce.getKeywords()) {
+                keywords.add(keyword.getName().toLowerCase());
+                terms.addAll(TextAnalyzer.analyze(keyword.getName()));
+            }
+            this.zone = TextAnalyzer.fold(annonce.getZoneGeographique());
+            this.etatObjet = annonce.getEtatObjet();
+            this.modeLivraison = annonce.getModeLivraison();
+            this.datePublication = annonce.getDatePublication();
+        }
+
+        Set<String> keys() {
+            Set<String> keys = new HashSet<>();
+            for (String term : terms) {
+                keys.add(termKey(term));
+                if (term.length() >= MIN_PREFIX_LENGTH) {
+                    keys.add(prefixKey(term));
+                }
+            }
+            keywords.forEach(keyword -> keys.add(keywordKey(keyword)));
+            for (int i = 0; i + TRIGRAM <= zone.length(); i++) {
+                keys.add(zoneKey(zone.substring(i, i + TRIGRAM)));
+            }
+            if (etatObjet != null) {
+                keys.add(etatKey(etatObjet));
+            }
+            if (modeLivraison != null) {
+                keys.add(modeKey(modeLivraison));
+            }
+            return keys;
+        }
+
+        boolean hasTerm(String token, boolean prefix) {
+            if (terms.contains(TextAnalyzer.stem(token))) {
+                return true;
+            }
+            return prefix && terms.stream().anyMatch(term -> term.startsWith(token));
+        }
+    }
+}
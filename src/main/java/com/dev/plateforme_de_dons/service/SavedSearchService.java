@@ -2,30 +2,45 @@ package com.dev.plateforme_de_dons.service;
 
 import com.dev.plateforme_de_dons.dto.SavedSearchDto;
 import com.dev.plateforme_de_dons.dto.SearchCriteriaDto;
+import com.dev.plateforme_de_dons.model.AlertCheckpoint;
 import com.dev.plateforme_de_dons.model.Annonce;
 import com.dev.plateforme_de_dons.model.SavedSearch;
 import com.dev.plateforme_de_dons.model.User;
+import com.dev.plateforme_de_dons.repository.AlertCheckpointRepository;
+import com.dev.plateforme_de_dons.repository.AnnonceRepository;
 import com.dev.plateforme_de_dons.repository.SavedSearchRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.util.Arrays;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Transactional
+@Slf4j
 public class SavedSearchService {
 
+    private static final String CATCH_UP_CHECKPOINT = "saved-search-alerts";
+
     private final SavedSearchRepository savedSearchRepository;
-    private final AnnonceService annonceService;
+    private final AnnonceRepository annonceRepository;
     private final NotificationService notificationService;
+    private final SavedSearchMatcher savedSearchMatcher;
+    private final AlertCheckpointRepository alertCheckpointRepository;
+
+    @Value("${app.alerts.catch-up-batch-size:200}")
+    private int catchUpBatchSize;
 
     public SavedSearch saveSearch(SavedSearchDto dto, User user) {
         SavedSearch savedSearch = new SavedSearch();
@@ -39,7 +54,9 @@ public class SavedSearchService {
         savedSearch.setNotificationsEnabled(dto.isNotificationsEnabled());
         savedSearch.setLastNotificationAt(LocalDateTime.now());
 
-        return savedSearchRepository.save(savedSearch);
+        SavedSearch saved = savedSearchRepository.save(savedSearch);
+        savedSearchMatcher.index(saved);
+        return saved;
     }
 
     public SavedSearch saveSearchFromCriteria(String name, SearchCriteriaDto criteria, User user, boolean notificationsEnabled) {
@@ -73,7 +90,9 @@ public class SavedSearchService {
         savedSearch.setKeywords(dto.getKeywords());
         savedSearch.setNotificationsEnabled(dto.isNotificationsEnabled());
 
-        return savedSearchRepository.save(savedSearch);
+        SavedSearch saved = savedSearchRepository.save(savedSearch);
+        savedSearchMatcher.index(saved);
+        return saved;
     }
 
     public void toggleNotifications(Long id, User user) {
@@ -86,6 +105,7 @@ public class SavedSearchService {
 
         savedSearch.setNotificationsEnabled(!savedSearch.isNotificationsEnabled());
         savedSearchRepository.save(savedSearch);
+        savedSearchMatcher.index(savedSearch);
     }
 
     @Transactional(readOnly = true)
@@ -107,29 +127,74 @@ public class SavedSearchService {
         }
 
         savedSearchRepository.delete(savedSearch);
+        savedSearchMatcher.remove(id);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuildMatcher() {
+        savedSearchMatcher.rebuild(savedSearchRepository.findByNotificationsEnabledTrue());
+    }
+
+    // Notifie les recherches correspondant à l'annonce qui ne l'ont pas déjà été. Le traitement à
+    // chaud et le rattrapage périodique peuvent voir la même annonce au même moment : la lecture
+    // ci-dessous écarte les alertes déjà validées, l'index unique (recherche, annonce) et l'insertion
+    // conditionnelle de NotificationBatchWriter.writeAlerts écartent celles en cours d'écriture.
+    // Hors transaction englobante, les notifications sont validées par lots.
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public int notifyMatchingSearches(Long annonceId) {
+        List<Annonce> annonces = annonceRepository.findAllWithKeywordsByIdIn(List.of(annonceId));
+        return annonces.isEmpty() ? 0 : notifyMatchingSearches(annonces.get(0));
+    }
+
+    private int notifyMatchingSearches(Annonce annonce) {
+        List<Long> matchingIds = savedSearchMatcher.match(annonce);
+        if (matchingIds.isEmpty()) {
+            return 0;
+        }
+
+        Set<Long> pending = new HashSet<>(matchingIds);
+        pending.removeAll(notificationService.findNotifiedSavedSearchIds(annonce, matchingIds));
+        if (pending.isEmpty()) {
+            return 0;
+        }
+
+        List<SavedSearchRepository.AlertRecipient> recipients = savedSearchRepository.findAlertRecipientsByIdIn(pending);
+        int created = notificationService.createNewAnnonceNotifications(annonce, recipients).size();
+        savedSearchRepository.markNotified(pending, LocalDateTime.now());
+        return created;
     }
 
+    // Filet de sécurité : reprend les annonces publiées depuis le dernier point de contrôle
+    // (événements perdus, redémarrage), par lots triés sur (datePublication, id)
+    @Transactional(propagation = Propagation.SUPPORTS)
     public void checkAndNotifyNewAnnonces() {
-        List<SavedSearch> savedSearches = savedSearchRepository.findByNotificationsEnabledTrue();
-
-        for (SavedSearch savedSearch : savedSearches) {
-            LocalDateTime since = savedSearch.getLastNotificationAt() != null
-                    ? savedSearch.getLastNotificationAt()
-                    : savedSearch.getCreatedAt();
-
-            List<Annonce> newAnnonces = annonceService.findNewMatchingAnnonces(savedSearch, since);
-
-            if (!newAnnonces.isEmpty()) {
-                for (Annonce annonce : newAnnonces) {
-                    notificationService.createNewAnnonceNotification(
-                            savedSearch.getUser(),
-                            annonce,
-                            savedSearch
-                    );
-                }
-                savedSearch.setLastNotificationAt(LocalDateTime.now());
-                savedSearchRepository.save(savedSearch);
+        AlertCheckpoint checkpoint = alertCheckpointRepository.findById(CATCH_UP_CHECKPOINT)
+                .orElseGet(() -> new AlertCheckpoint(CATCH_UP_CHECKPOINT, LocalDateTime.now(), 0L));
+
+        int processed = 0;
+        int notified = 0;
+        List<Long> ids;
+        do {
+            ids = annonceRepository.findActiveIdsPublishedAfter(
+                    checkpoint.getLastDatePublication(), checkpoint.getLastAnnonceId(), PageRequest.of(0, catchUpBatchSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+
+            List<Annonce> annonces = new ArrayList<>(annonceRepository.findAllWithKeywordsByIdIn(ids));
+            annonces.sort(Comparator.comparing(Annonce::getDatePublication).thenComparing(Annonce::getId));
+            for (Annonce annonce : annonces) {
+                notified += notifyMatchingSearches(annonce);
+                checkpoint.setLastDatePublication(annonce.getDatePublication());
+                checkpoint.setLastAnnonceId(annonce.getId());
             }
+            processed += annonces.size();
+        } while (ids.size() == catchUpBatchSize);
+
+        alertCheckpointRepository.save(checkpoint);
+        if (processed > 0) {
+            log.info("Rattrapage des alertes : {} annonces, {} notifications", processed, notified);
         }
     }
 
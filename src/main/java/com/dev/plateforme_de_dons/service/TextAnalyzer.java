@@ -0,0 +1,75 @@
+package com.dev.plateforme_de_dons.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+public final class TextAnalyzer {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^a-z0-9]+");
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "le", "la", "les", "un", "une", "des", "de", "du", "au", "aux",
+            "et", "ou", "en", "a", "l", "d", "s", "n", "y", "ce", "ces", "cet", "cette",
+            "pour", "par", "sur", "sous", "dans", "avec", "sans", "est", "sont",
+            "que", "qui", "ne", "pas", "plus", "tres", "se", "sa", "son", "ses"
+    );
+
+    private TextAnalyzer() {
+    }
+
+    public static String fold(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("")
+                .toLowerCase(Locale.ROOT)
+                .replace("œ", "oe")
+                .replace("æ", "ae");
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARATORS.split(fold(text))) {
+            if (!token.isEmpty() && !STOP_WORDS.contains(token)) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    public static List<String> analyze(String text) {
+        List<String> terms = new ArrayList<>();
+        for (String token : tokenize(text)) {
+            terms.add(stem(token));
+        }
+        return terms;
+    }
+
+    // Stemmer léger pour le français (pluriels et terminaisons -e/-er/-é)
+    public static String stem(String token) {
+        String word = token;
+        if (word.length() > 5 && word.endsWith("aux")) {
+            word = word.substring(0, word.length() - 3) + "al";
+        }
+        if (word.length() > 3 && (word.endsWith("s") || word.endsWith("x"))) {
+            word = word.substring(0, word.length() - 1);
+        }
+        if (word.length() > 3 && word.endsWith("r")) {
+            word = word.substring(0, word.length() - 1);
+        }
+        if (word.length() > 3 && word.endsWith("e")) {
+            word = word.substring(0, word.length() - 1);
+        }
+        if (word.length() > 4 && word.charAt(word.length() - 1) == word.charAt(word.length() - 2)
+                && Character.isLetter(word.charAt(word.length() - 1))) {
+            word = word.substring(0, word.length() - 1);
+        }
+        return word;
+    }
+}
@@ -0,0 +1,103 @@
+package com.dev.plateforme_de_dons.service;
+
+import com.dev.plateforme_de_dons.config.AfterCommit;
+import com.dev.plateforme_de_dons.repository.MessageRepository;
+import com.dev.plateforme_de_dons.repository.NotificationRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Compteurs de messages et notifications non lus par utilisateur, gardés en mémoire.
+// Une entrée absente est initialisée depuis la base au premier accès ; ensuite elle suit
+// les deltas appliqués après commit. L'expiration après écriture force une relecture
+// régulière, ce qui borne l'écart en cas de modification faite hors des services.
+@Component
+public class UnreadCountCache {
+
+    private final Cache<Long, Counters> cache;
+    private final MessageRepository messageRepository;
+    private final NotificationRepository notificationRepository;
+
+    public UnreadCountCache(MessageRepository messageRepository,
+                            NotificationRepository notificationRepository,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.unread-counts.max-size:10000}") long maxSize,
+                            @Value("${app.unread-counts.ttl-ms:600000}") long ttlMs) {
+        this.messageRepository = messageRepository;
+        this.notificationRepository = notificationRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "unreadCounts");
+    }
+
+    public long getUnreadMessages(Long userId) {
+        return counters(userId).messages.get();
+    }
+
+    public long getUnreadNotifications(Long userId) {
+        return counters(userId).notifications.get();
+    }
+
+    // Lecture via asMap() : les mises à jour ne faussent pas les statistiques hit/miss
+    public void addMessages(Long userId, long delta) {
+        AfterCommit.run(() -> {
+            Counters counters = cache.asMap().get(userId);
+            if (counters != null) {
+                add(counters.messages, delta);
+            }
+        });
+    }
+
+    public void addNotifications(Long userId, long delta) {
+        AfterCommit.run(() -> {
+            Counters counters = cache.asMap().get(userId);
+            if (counters != null) {
+                add(counters.notifications, delta);
+            }
+        });
+    }
+
+    public void clearNotifications(Long userId) {
+        AfterCommit.run(() -> {
+            Counters counters = cache.asMap().get(userId);
+            if (counters != null) {
+                counters.notifications.set(0);
+            }
+        });
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    private Counters counters(Long userId) {
+        return cache.get(userId, id -> new Counters(
+                messageRepository.countByReceiverIdAndReadFalse(id),
+                notificationRepository.countByUserIdAndReadFalse(id)));
+    }
+
+    private static void add(AtomicLong counter, long delta) {
+        counter.accumulateAndGet(delta, (current, d) -> Math.max(0, current + d));
+    }
+
+    private static final class Counters {
+
+        private final AtomicLong messages;
+        private final AtomicLong notifications;
+
+        Counters(long messages, long notifications) {
+            this.messages = new AtomicLong(messages);
+            this.notifications = new AtomicLong(notifications);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.dev.plateforme_de_dons.service;
+
+import com.dev.plateforme_de_dons.config.AfterCommit;
+import com.dev.plateforme_de_dons.model.User;
+import com.dev.plateforme_de_dons.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+// Utilisateurs connectés gardés quelques instants en mémoire, par identifiant.
+// Les entités sont détachées : seuls les champs simples sont lus, jamais les collections.
+// UserService invalide l'entrée après chaque modification ; la durée de vie courte borne
+// l'écart pour les modifications faites hors du service.
+@Component
+public class UserCache {
+
+    private final Cache<Long, User> cache;
+    private final UserRepository userRepository;
+
+    public UserCache(UserRepository userRepository,
+                     MeterRegistry meterRegistry,
+                     @Value("${app.users.cache.max-size:10000}") long maxSize,
+                     @Value("${app.users.cache.ttl-ms:60000}") long ttlMs) {
+        this.userRepository = userRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "users");
+    }
+
+    public Optional<User> get(Long id) {
+        return Optional.ofNullable(cache.get(id, key -> userRepository.findById(key).orElse(null)));
+    }
+
+    // Principal sans identifiant (authentification de test, jeton externe) : une lecture par nom,
+    // puis l'entrée est partagée avec les accès par identifiant
+    public Optional<User> getByUsername(String username) {
+        Optional<User> user = userRepository.findByUsername(username);
+        user.ifPresent(u -> cache.put(u.getId(), u));
+        return user;
+    }
+
+    public void evict(Long id) {
+        if (id == null) {
+            return;
+        }
+        // Invalidation immédiate et après commit : une lecture concurrente ne peut pas
+        // remettre en cache l'état précédant la modification
+        cache.invalidate(id);
+        AfterCommit.run(() -> cache.invalidate(id));
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+}
@@ -10,6 +10,7 @@ document.addEventListener('DOMContentLoaded', function() {
     initializeFormValidation();
     initializeLazyLoading();
     initializeSkeletonLoaders();
+    initializeNotificationStream();
 });
 
 function initializeAlerts() {
@@ -261,10 +262,10 @@ function initializeSearchSuggestions() {
 }
 
 function fetchSearchSuggestions(query, inputElement) {
-    fetch(`/api/keywords?query=${encodeURIComponent(query)}`)
+    fetch(`/api/keywords/suggest?q=${encodeURIComponent(query)}`)
         .then(response => response.json())
-        .then(suggestions => {
-            displaySearchSuggestions(suggestions, inputElement);
+        .then(data => {
+            displaySearchSuggestions(data.suggestions || [], inputElement);
         })
         .catch(error => {
             console.error('Erreur lors de la récupération des suggestions:', error);
@@ -472,6 +473,42 @@ function createSkeleton(type) {
     }
 }
 
+function initializeNotificationStream() {
+    const holder = document.querySelector('[data-notification-stream]');
+    if (!holder || !('EventSource' in window)) {
+        return;
+    }
+
+    // EventSource se reconnecte seul et renvoie Last-Event-ID au serveur
+    const source = new EventSource(holder.dataset.notificationStream);
+
+    source.addEventListener('unread-count', function(e) {
+        const counts = JSON.parse(e.data);
+        updateBadge('unreadMessagesBadge', counts.messages);
+        updateBadge('unreadNotificationsBadge', counts.notifications);
+    });
+
+    source.addEventListener('notification', function(e) {
+        const notification = JSON.parse(e.data);
+        const toast = document.createElement('span');
+        toast.textContent = notification.title + ' : ' + notification.message;
+        showNotification(toast.innerHTML, 'info');
+    });
+
+    window.addEventListener('beforeunload', function() {
+        source.close();
+    });
+}
+
+function updateBadge(id, count) {
+    const badge = document.getElementById(id);
+    if (!badge) {
+        return;
+    }
+    badge.textContent = count;
+    badge.classList.toggle('d-none', !count);
+}
+
 function fetchAPI(url, options = {}) {
     const defaultOptions = {
         headers: {
@@ -0,0 +1,112 @@
+package com.dev.plateforme_de_dons.config;
+
+import com.dev.plateforme_de_dons.service.PasswordHashingBusyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedPasswordEncoderTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private SimpleMeterRegistry meterRegistry;
+    private ThreadPoolTaskExecutor executor;
+
+    // Encodeur factice : "hash:" + mot de passe, bloqué sur le verrou pour le mot de passe "slow"
+    private final PasswordEncoder fake = new PasswordEncoder() {
+        @Override
+        public String encode(CharSequence rawPassword) {
+            if ("slow".contentEquals(rawPassword)) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return "hash:" + rawPassword;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return encodedPassword.equals("hash:" + rawPassword);
+        }
+    };
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    void encodeAndMatches_ShouldRunOnPoolAndRecordLatency() {
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(fake, executor, meterRegistry, 1000, 5);
+
+        String hash = encoder.encode("secret");
+
+        assertEquals("hash:secret", hash);
+        assertTrue(encoder.matches("secret", hash));
+        assertFalse(encoder.matches("other", hash));
+        assertEquals(1, meterRegistry.get("password.hash").tag("operation", "encode").timer().count());
+        assertEquals(2, meterRegistry.get("password.hash").tag("operation", "matches").timer().count());
+        assertEquals(0.0, meterRegistry.get("password.hash.queue").gauge().value());
+    }
+
+    @Test
+    void encode_ShouldRejectWithRetryAfter_WhenQueueFull() throws Exception {
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(fake, executor, meterRegistry, 5000, 7);
+        // Un hachage en cours, un autre en file : la file (capacité 1) est pleine
+        Thread running = new Thread(() -> encoder.encode("slow"));
+        Thread queued = new Thread(() -> encoder.encode("slow"));
+        running.start();
+        waitUntil(() -> executor.getActiveCount() == 1);
+        queued.start();
+        waitUntil(() -> executor.getThreadPoolExecutor().getQueue().size() == 1);
+
+        assertEquals(1.0, meterRegistry.get("password.hash.queue").gauge().value());
+        PasswordHashingBusyException e = assertThrows(PasswordHashingBusyException.class,
+                () -> encoder.encode("secret"));
+        assertEquals(7, e.getRetryAfterSeconds());
+        assertEquals(1.0, meterRegistry.get("password.hash.rejected").counter().count());
+
+        release.countDown();
+        running.join(5000);
+        queued.join(5000);
+    }
+
+    @Test
+    void encode_ShouldGiveUp_WhenWaitExceedsTimeout() {
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(fake, executor, meterRegistry, 50, 5);
+
+        assertThrows(PasswordHashingBusyException.class, () -> encoder.encode("slow"));
+        assertEquals(1.0, meterRegistry.get("password.hash.rejected").counter().count());
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "condition non atteinte");
+            Thread.sleep(5);
+        }
+    }
+}
@@ -1,21 +1,37 @@
 package com.dev.plateforme_de_dons.controller;
 
+import com.dev.plateforme_de_dons.model.Annonce;
 import com.dev.plateforme_de_dons.model.EtatObjet;
 import com.dev.plateforme_de_dons.model.ModeLivraison;
 import com.dev.plateforme_de_dons.model.User;
+import com.dev.plateforme_de_dons.repository.AnnonceRepository;
 import com.dev.plateforme_de_dons.repository.UserRepository;
+import com.dev.plateforme_de_dons.service.AuthenticatedUser;
+import com.dev.plateforme_de_dons.service.UserCache;
+import com.jayway.jsonpath.JsonPath;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpSession;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestBuilders.formLogin;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.response.SecurityMockMvcResultMatchers.authenticated;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -33,6 +49,12 @@ class AnnonceControllerIntegrationTest {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private AnnonceRepository annonceRepository;
+
+    @Autowired
+    private UserCache userCache;
+
     private User testUser;
 
     @BeforeEach
@@ -59,6 +81,61 @@ class AnnonceControllerIntegrationTest {
                 .andExpect(jsonPath("$.annonces").isArray());
     }
 
+    @Test
+    void listAnnonces_ShouldReturnCursorWindow_WhenCursorProvided() throws Exception {
+        mockMvc.perform(get("/annonces")
+                        .param("cursor", "")
+                        .param("size", "1")
+                        .param("withTotal", "true")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.annonces").isArray())
+                .andExpect(jsonPath("$.hasNext").isBoolean())
+                .andExpect(jsonPath("$.totalElements").isNumber())
+                .andExpect(jsonPath("$.totalPages").doesNotExist());
+    }
+
+    @Test
+    void listAnnonces_ShouldWalkAllPagesWithoutDuplicates_WhenFollowingNextCursor() throws Exception {
+        List<Long> createdIds = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            Annonce annonce = new Annonce();
+            annonce.setTitre("Annonce curseur " + i);
+            annonce.setDescription("Description de l'annonce " + i);
+            annonce.setEtatObjet(EtatObjet.BON_ETAT);
+            annonce.setZoneGeographique("Paris");
+            annonce.setModeLivraison(ModeLivraison.MAIN_PROPRE);
+            annonce.setOwner(testUser);
+            createdIds.add(annonceRepository.save(annonce).getId());
+        }
+
+        List<Long> seenIds = new ArrayList<>();
+        String cursor = "";
+        while (cursor != null) {
+            String body = mockMvc.perform(get("/annonces")
+                            .param("cursor", cursor)
+                            .param("size", "2")
+                            .accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+
+            List<Number> ids = JsonPath.read(body, "$.annonces[*].id");
+            ids.forEach(id -> seenIds.add(id.longValue()));
+            cursor = JsonPath.read(body, "$.nextCursor");
+        }
+
+        assertEquals(seenIds.size(), new HashSet<>(seenIds).size());
+        assertTrue(seenIds.containsAll(createdIds));
+    }
+
+    @Test
+    void listAnnonces_ShouldReturn400_WhenCursorInvalid() throws Exception {
+        mockMvc.perform(get("/annonces")
+                        .param("cursor", "pas-un-curseur")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @WithMockUser(username = "testuser")
     void showCreateForm_ShouldReturnForm_WhenAuthenticated() throws Exception {
@@ -96,6 +173,27 @@ class AnnonceControllerIntegrationTest {
                 .andExpect(view().name("annonces/form"));
     }
 
+    @Test
+    void currentUser_ShouldComeFromCache_WhenLoggedInWithForm() throws Exception {
+        MvcResult login = mockMvc.perform(formLogin().user("testuser").password("password"))
+                .andExpect(authenticated().withAuthentication(authentication -> assertEquals(testUser.getId(),
+                        assertInstanceOf(AuthenticatedUser.class, authentication.getPrincipal()).getId())))
+                .andReturn();
+        MockHttpSession session = (MockHttpSession) login.getRequest().getSession(false);
+
+        long hits = userCache.stats().hitCount();
+        long misses = userCache.stats().missCount();
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(get("/annonces/mes-annonces").session(session))
+                    .andExpect(status().isOk())
+                    .andExpect(view().name("annonces/my-annonces"));
+        }
+
+        // Une seule lecture de users pour les trois requêtes
+        assertEquals(1, userCache.stats().missCount() - misses);
+        assertEquals(2, userCache.stats().hitCount() - hits);
+    }
+
     @Test
     void viewAnnonce_ShouldReturn404_WhenNotFound() throws Exception {
         mockMvc.perform(get("/annonces/99999"))
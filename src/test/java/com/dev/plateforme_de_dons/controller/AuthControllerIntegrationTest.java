@@ -0,0 +1,80 @@
+package com.dev.plateforme_de_dons.controller;
+
+import com.dev.plateforme_de_dons.model.User;
+import com.dev.plateforme_de_dons.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestBuilders.formLogin;
+import static org.springframework.security.test.web.servlet.response.SecurityMockMvcResultMatchers.authenticated;
+import static org.springframework.security.test.web.servlet.response.SecurityMockMvcResultMatchers.unauthenticated;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "app.security.admin-usernames=opsadmin")
+@AutoConfigureMockMvc
+@Transactional
+class AuthControllerIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Test
+    void login_ShouldRehashLegacyPassword_WhenEncoderChanged() throws Exception {
+        // Hash bcrypt sans préfixe et de coût 4, comme ceux enregistrés avant DelegatingPasswordEncoder
+        User user = new User("legacy", "legacy@example.com", new BCryptPasswordEncoder(4).encode("password"));
+        user = userRepository.save(user);
+
+        mockMvc.perform(formLogin().user("legacy").password("password"))
+                .andExpect(authenticated());
+
+        String stored = userRepository.findById(user.getId()).orElseThrow().getPassword();
+        assertTrue(stored.startsWith("{bcrypt}$2a$10$"), stored);
+        assertTrue(passwordEncoder.matches("password", stored));
+    }
+
+    @Test
+    void login_ShouldGrantAdminRoleOnlyToConfiguredAccounts() throws Exception {
+        userRepository.save(new User("opsadmin", "opsadmin@example.com", passwordEncoder.encode("password")));
+        userRepository.save(new User("bob", "bob@example.com", passwordEncoder.encode("password")));
+
+        mockMvc.perform(formLogin().user("opsadmin").password("password"))
+                .andExpect(authenticated().withRoles("USER", "ADMIN"));
+        mockMvc.perform(formLogin().user("bob").password("password"))
+                .andExpect(authenticated().withRoles("USER"));
+    }
+
+    @Test
+    void metrics_ShouldBeReservedToAdmins() throws Exception {
+        mockMvc.perform(get("/actuator/metrics").with(user("bob").roles("USER")))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/actuator/metrics/cache.gets").with(user("bob").roles("USER")))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/actuator/metrics").with(user("opsadmin").roles("USER", "ADMIN")))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void login_ShouldRedirectToError_WhenPasswordWrong() throws Exception {
+        userRepository.save(new User("alice", "alice@example.com", passwordEncoder.encode("password")));
+
+        mockMvc.perform(formLogin().user("alice").password("wrong"))
+                .andExpect(unauthenticated())
+                .andExpect(redirectedUrl("/login?error=true"));
+    }
+}
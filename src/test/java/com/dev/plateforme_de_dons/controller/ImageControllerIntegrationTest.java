@@ -0,0 +1,123 @@
+package com.dev.plateforme_de_dons.controller;
+
+import com.dev.plateforme_de_dons.model.Image;
+import com.dev.plateforme_de_dons.repository.ImageRepository;
+import com.dev.plateforme_de_dons.service.ImageService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = "app.upload.dir=target/test-uploads")
+@AutoConfigureMockMvc
+@Transactional
+@WithMockUser(username = "imageviewer")
+class ImageControllerIntegrationTest {
+
+    private static final String CONTENT = "0123456789abcdefghij";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ImageRepository imageRepository;
+
+    @Autowired
+    private ImageService imageService;
+
+    private Image image;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Path dir = Paths.get("target/test-uploads/annonces/0");
+        Files.createDirectories(dir);
+        Files.writeString(dir.resolve("stream-test.png"), CONTENT, StandardCharsets.US_ASCII);
+
+        image = imageRepository.save(new Image("stream-test.png", "photo.png", "image/png",
+                (long) CONTENT.length(), "annonces/0/stream-test.png"));
+    }
+
+    @Test
+    void getImage_ShouldStreamFileWithCacheHeaders() throws Exception {
+        String etag = mockMvc.perform(get("/api/images/" + image.getId()))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("image/png"))
+                .andExpect(content().string(CONTENT))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=31536000, public, immutable"))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        assertNotNull(etag);
+        mockMvc.perform(get("/api/images/" + image.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void getImage_ShouldAnswerNotModifiedWithoutReadingFile() throws Exception {
+        String etag = imageService.computeETag(image, null);
+        Files.delete(Paths.get("target/test-uploads", image.getStoragePath()));
+
+        mockMvc.perform(get("/api/images/" + image.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=31536000, public, immutable"));
+    }
+
+    @Test
+    void getImage_ShouldServeRequestedByteRange() throws Exception {
+        mockMvc.perform(get("/api/images/" + image.getId()).header(HttpHeaders.RANGE, "bytes=10-14"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 10-14/20"))
+                .andExpect(content().string("abcde"));
+    }
+
+    @Test
+    void getImage_ShouldServeRequestedVariant() throws Exception {
+        Path dir = Paths.get("target/test-uploads/annonces/0");
+        Files.writeString(dir.resolve("stream-test_thumb.jpg"), "thumb", StandardCharsets.US_ASCII);
+        image.setThumbPath("annonces/0/stream-test_thumb.jpg");
+        imageRepository.save(image);
+
+        mockMvc.perform(get("/api/images/" + image.getId()).param("size", "thumb"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("image/jpeg"))
+                .andExpect(content().string("thumb"))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=31536000, public, immutable"));
+
+        // Déclinaison pas encore générée : original avec un cache court
+        mockMvc.perform(get("/api/images/" + image.getId()).param("size", "card"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("image/png"))
+                .andExpect(content().string(CONTENT))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=60, public"));
+
+        mockMvc.perform(get("/api/images/" + image.getId()).param("size", "poster"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getImage_ShouldReturnNotFoundWhenFileIsMissing() throws Exception {
+        Image orphan = imageRepository.save(new Image("missing.png", "missing.png", "image/png",
+                1L, "annonces/0/missing.png"));
+
+        mockMvc.perform(get("/api/images/" + orphan.getId()))
+                .andExpect(status().isNotFound());
+    }
+}
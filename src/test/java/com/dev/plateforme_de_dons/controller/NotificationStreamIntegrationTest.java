@@ -0,0 +1,144 @@
+package com.dev.plateforme_de_dons.controller;
+
+import com.dev.plateforme_de_dons.dto.MessageDto;
+import com.dev.plateforme_de_dons.model.User;
+import com.dev.plateforme_de_dons.repository.UserRepository;
+import com.dev.plateforme_de_dons.service.NotificationPushService;
+import com.dev.plateforme_de_dons.service.NotificationStreamRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class NotificationStreamIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private NotificationStreamRegistry streamRegistry;
+
+    @Autowired
+    private NotificationPushService notificationPushService;
+
+    private User streamUser;
+
+    @BeforeEach
+    void setUp() {
+        streamUser = new User("streamuser", "stream@example.com", "password");
+        streamUser.setEnabled(true);
+        streamUser = userRepository.save(streamUser);
+    }
+
+    @Test
+    void stream_ShouldRequireAuthentication() throws Exception {
+        mockMvc.perform(get("/notifications/stream").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().is3xxRedirection());
+    }
+
+    @Test
+    @WithMockUser(username = "streamuser")
+    void stream_ShouldSendUnreadCountsOnConnect() throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(get("/notifications/stream")
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn().getResponse();
+
+        String body = response.getContentAsString();
+        assertTrue(body.contains("retry:"));
+        assertTrue(body.contains("event:" + NotificationPushService.UNREAD_COUNT_EVENT));
+        assertTrue(body.contains("\"notifications\":0"));
+        assertTrue(streamRegistry.isConnected(streamUser.getId()));
+
+        streamRegistry.publish(streamUser.getId(), NotificationPushService.NOTIFICATION_EVENT, Map.of("title", "En direct"));
+
+        assertTrue(response.getContentAsString().contains("En direct"));
+    }
+
+    @Test
+    @WithMockUser(username = "streamuser")
+    void stream_ShouldReplayEventsAfterLastEventId() throws Exception {
+        Long userId = streamUser.getId();
+        streamRegistry.publish(userId, NotificationPushService.NOTIFICATION_EVENT, Map.of("title", "Premier"));
+        streamRegistry.publish(userId, NotificationPushService.NOTIFICATION_EVENT, Map.of("title", "Second"));
+
+        String firstBody = mockMvc.perform(get("/notifications/stream")
+                        .header("Last-Event-ID", "0")
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn().getResponse().getContentAsString();
+        assertTrue(firstBody.contains("Premier"));
+        assertTrue(firstBody.contains("Second"));
+
+        String firstId = firstBody.lines()
+                .filter(line -> line.startsWith("id:"))
+                .findFirst()
+                .orElseThrow()
+                .substring(3);
+
+        String replayed = mockMvc.perform(get("/notifications/stream")
+                        .header("Last-Event-ID", firstId)
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn().getResponse().getContentAsString();
+
+        assertFalse(replayed.contains("Premier"));
+        assertTrue(replayed.contains("Second"));
+    }
+
+    @Test
+    @WithMockUser(username = "streamuser")
+    void stream_ShouldReplayMessageSentWhileLastTabWasReconnecting() throws Exception {
+        Long userId = streamUser.getId();
+        streamRegistry.publish(userId, NotificationPushService.NOTIFICATION_EVENT, Map.of("title", "Avant coupure"));
+        MvcResult first = mockMvc.perform(get("/notifications/stream")
+                        .header("Last-Event-ID", "0")
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String lastId = first.getResponse().getContentAsString().lines()
+                .filter(line -> line.startsWith("id:"))
+                .reduce((a, b) -> b)
+                .orElseThrow()
+                .substring(3);
+
+        first.getRequest().getAsyncContext().complete();
+        assertFalse(streamRegistry.isConnected(userId));
+
+        MessageDto message = new MessageDto();
+        message.setContent("Pendant la coupure");
+        // Hors transaction de test : publié tout de suite, comme après le commit de l'envoi
+        CompletableFuture.runAsync(() -> notificationPushService.messageReceived(userId, message)).join();
+
+        String replayed = mockMvc.perform(get("/notifications/stream")
+                        .header("Last-Event-ID", lastId)
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn().getResponse().getContentAsString();
+
+        assertFalse(replayed.contains("Avant coupure"));
+        assertTrue(replayed.contains("event:" + NotificationPushService.MESSAGE_EVENT));
+        assertTrue(replayed.contains("Pendant la coupure"));
+    }
+}
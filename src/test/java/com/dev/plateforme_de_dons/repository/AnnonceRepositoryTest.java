@@ -1,12 +1,16 @@
 package com.dev.plateforme_de_dons.repository;
 
+import com.dev.plateforme_de_dons.dto.AnnonceCardDto;
 import com.dev.plateforme_de_dons.model.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 
 import java.util.List;
 
@@ -24,6 +28,12 @@ class AnnonceRepositoryTest {
     @Autowired
     private KeywordRepository keywordRepository;
 
+    @Autowired
+    private FavoriteRepository favoriteRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
     private User testUser;
 
     @BeforeEach
@@ -122,6 +132,93 @@ class AnnonceRepositoryTest {
         assertEquals("Annonce Meubles", result.getContent().get(0).getTitre());
     }
 
+    @Test
+    void incrementFavoriteCount_ShouldApplyDeltaToAllGivenAnnonces() {
+        Annonce first = createAnnonce("Première annonce", true);
+        Annonce second = createAnnonce("Seconde annonce", true);
+
+        int updated = annonceRepository.incrementFavoriteCount(List.of(first.getId(), second.getId()), 2);
+        entityManager.clear();
+
+        assertEquals(2, updated);
+        assertEquals(2, annonceRepository.findById(first.getId()).orElseThrow().getFavoriteCount());
+        assertEquals(2, annonceRepository.findById(second.getId()).orElseThrow().getFavoriteCount());
+    }
+
+    @Test
+    void reconcileFavoriteCounts_ShouldRepairDriftedCounters() {
+        Annonce annonce = createAnnonce("Annonce favorite", true);
+        Annonce untouched = createAnnonce("Annonce sans favori", true);
+        favoriteRepository.save(new Favorite(testUser, annonce));
+        annonceRepository.incrementFavoriteCount(List.of(annonce.getId()), 5);
+
+        int repaired = annonceRepository.reconcileFavoriteCounts();
+        entityManager.clear();
+
+        assertEquals(1, repaired);
+        assertEquals(1, annonceRepository.findById(annonce.getId()).orElseThrow().getFavoriteCount());
+        assertEquals(0, annonceRepository.findById(untouched.getId()).orElseThrow().getFavoriteCount());
+    }
+
+    @Test
+    void findCards_ShouldProjectCardColumnsAndCountDistinctAnnonces() {
+        Keyword bois = keywordRepository.save(new Keyword("bois"));
+        Keyword chene = keywordRepository.save(new Keyword("chene"));
+        Annonce annonce = createAnnonce("Table en chêne massif", true);
+        annonce.setDescription("x".repeat(400));
+        annonce.addKeyword(bois);
+        annonce.addKeyword(chene);
+        annonceRepository.save(annonce);
+        createAnnonce("Annonce inactive", false);
+
+        // Deux mots-clés correspondants : la jointure ramène deux lignes pour une seule annonce
+        Specification<Annonce> spec = (root, query, cb) -> {
+            query.distinct(true);
+            return cb.and(cb.isTrue(root.get("active")), root.join("keywords").get("name").in("bois", "chene"));
+        };
+        Page<AnnonceCardDto> cards = annonceRepository.findCards(spec,
+                PageRequest.of(0, 1, Sort.by(Sort.Direction.DESC, "datePublication")));
+
+        assertEquals(1, cards.getTotalElements());
+        AnnonceCardDto card = cards.getContent().get(0);
+        assertEquals(annonce.getId(), card.getId());
+        assertEquals("Table en chêne massif", card.getTitre());
+        assertEquals(AnnonceCardDto.EXCERPT_LENGTH, card.getExcerpt().length());
+        assertEquals("testuser", card.getOwnerUsername());
+        assertNull(card.getImageUrl());
+    }
+
+    @Test
+    void findCardsAfter_ShouldContinueFromKeysetPosition() {
+        for (int i = 1; i <= 3; i++) {
+            createAnnonce("Annonce " + i, true);
+        }
+        Specification<Annonce> active = (root, query, cb) -> cb.isTrue(root.get("active"));
+
+        List<AnnonceCardDto> first = annonceRepository.findCardsAfter(active, null, null, 2);
+        AnnonceCardDto last = first.get(1);
+        List<AnnonceCardDto> rest = annonceRepository.findCardsAfter(active, last.getDatePublication(), last.getId(), 2);
+
+        assertEquals(2, first.size());
+        assertEquals(1, rest.size());
+        assertTrue(first.stream().noneMatch(card -> card.getId().equals(rest.get(0).getId())));
+    }
+
+    @Test
+    void findCardsByUser_ShouldReturnFavoriteCards() {
+        User fan = userRepository.save(new User("fan", "fan@test.com", "password123"));
+        Annonce annonce = createAnnonce("Lampe favorite", true);
+        createAnnonce("Lampe ignorée", true);
+        favoriteRepository.save(new Favorite(fan, annonce));
+
+        Page<AnnonceCardDto> cards = favoriteRepository.findCardsByUser(fan,
+                PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "createdAt")));
+
+        assertEquals(1, cards.getTotalElements());
+        assertEquals("Lampe favorite", cards.getContent().get(0).getTitre());
+        assertEquals("testuser", cards.getContent().get(0).getOwnerUsername());
+    }
+
     private Annonce createAnnonce(String titre, boolean active) {
         Annonce annonce = new Annonce();
         annonce.setTitre(titre);
@@ -0,0 +1,106 @@
+package com.dev.plateforme_de_dons.service;
+
+import com.dev.plateforme_de_dons.model.*;
+import com.dev.plateforme_de_dons.repository.AnnonceRepository;
+import com.dev.plateforme_de_dons.repository.KeywordRepository;
+import com.dev.plateforme_de_dons.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Banc d'essai : mvn test -Dtest=AnnonceCardBenchmarkTest -Dbenchmark=true
+@SpringBootTest
+@Transactional
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class AnnonceCardBenchmarkTest {
+
+    private static final int ANNONCES = 120;
+    private static final int PAGE_SIZE = 12;
+    private static final int ITERATIONS = 200;
+
+    @Autowired
+    private AnnonceService annonceService;
+
+    @Autowired
+    private AnnonceRepository annonceRepository;
+
+    @Autowired
+    private KeywordRepository keywordRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void compareFullDtosWithCards() throws Exception {
+        createAnnonces();
+        Pageable pageable = PageRequest.of(0, PAGE_SIZE, Sort.by(Sort.Direction.DESC, "datePublication"));
+
+        Callable<List<?>> dtos = () -> annonceService.convertToDtos(annonceService.findAllActive(pageable)).getContent();
+        Callable<List<?>> cards = () -> annonceService.findActiveCards(pageable).getContent();
+
+        assertEquals(dtos.call().size(), cards.call().size());
+        report("AnnonceDto", dtos);
+        report("AnnonceCardDto", cards);
+    }
+
+    private void report(String label, Callable<List<?>> page) throws Exception {
+        for (int i = 0; i < ITERATIONS / 4; i++) {
+            page.call();
+            entityManager.clear();
+        }
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long json = 0;
+        long allocated = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < ITERATIONS; i++) {
+            json = objectMapper.writeValueAsBytes(page.call()).length;
+            entityManager.clear();
+        }
+        allocated = threads.getCurrentThreadAllocatedBytes() - allocated;
+
+        System.out.printf("%s : %d octets JSON par page | %d octets alloués par page%n",
+                label, json, allocated / ITERATIONS);
+    }
+
+    private void createAnnonces() {
+        User owner = userRepository.save(new User("benchowner", "benchowner@example.com", "password123"));
+        List<Keyword> keywords = List.of(
+                keywordRepository.save(new Keyword("bench-meuble")),
+                keywordRepository.save(new Keyword("bench-bois")),
+                keywordRepository.save(new Keyword("bench-salon")));
+
+        for (int i = 0; i < ANNONCES; i++) {
+            Annonce annonce = new Annonce();
+            annonce.setTitre("Annonce de banc d'essai " + i);
+            annonce.setDescription(("Description détaillée de l'objet " + i + ". ").repeat(40));
+            annonce.setEtatObjet(EtatObjet.BON_ETAT);
+            annonce.setZoneGeographique("Paris");
+            annonce.setModeLivraison(ModeLivraison.MAIN_PROPRE);
+            annonce.setOwner(owner);
+            annonce.setActive(true);
+            keywords.forEach(annonce::addKeyword);
+            annonceRepository.save(annonce);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+}
@@ -0,0 +1,212 @@
+package com.dev.plateforme_de_dons.service;
+
+import com.dev.plateforme_de_dons.dto.SearchCriteriaDto;
+import com.dev.plateforme_de_dons.model.Annonce;
+import com.dev.plateforme_de_dons.model.EtatObjet;
+import com.dev.plateforme_de_dons.model.Keyword;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnnonceSearchIndexTest {
+
+    private AnnonceSearchIndex searchIndex;
+
+    @BeforeEach
+    void setUp() {
+        searchIndex = new AnnonceSearchIndex();
+    }
+
+    @Test
+    void search_ShouldIgnoreAccentsAndPlurals() {
+        searchIndex.index(createAnnonce(1L, "Canapé en cuir", "Très bon canapé trois places"));
+        searchIndex.index(createAnnonce(2L, "Table basse", "Table en bois massif"));
+
+        assertEquals(Optional.of(Set.of(1L)), searchIndex.search("canape"));
+        assertEquals(Optional.of(Set.of(1L)), searchIndex.search("CANAPÉS"));
+        assertEquals(Optional.of(Set.of(2L)), searchIndex.search("tables"));
+    }
+
+    @Test
+    void search_ShouldRequireAllTermsAndMatchLastTermAsPrefix() {
+        searchIndex.index(createAnnonce(1L, "Chaise de jardin", "Chaise pliante en métal"));
+        searchIndex.index(createAnnonce(2L, "Chaise de bureau", "Chaise à roulettes"));
+
+        assertEquals(Optional.of(Set.of(1L)), searchIndex.search("chaise jard"));
+        assertEquals(Optional.of(Set.of(1L, 2L)), searchIndex.search("chai"));
+        assertEquals(Optional.of(Set.of()), searchIndex.search("chaise cuisine"));
+    }
+
+    @Test
+    void search_ShouldMatchKeywords() {
+        Annonce annonce = createAnnonce(1L, "Lot de livres", "Romans policiers en bon état");
+        annonce.addKeyword(new Keyword("bandes-dessinées"));
+        searchIndex.index(annonce);
+
+        assertEquals(Optional.of(Set.of(1L)), searchIndex.search("dessinee"));
+    }
+
+    @Test
+    void search_ShouldReturnEmptyOptional_WhenOnlyStopWords() {
+        searchIndex.index(createAnnonce(1L, "Vélo enfant", "Vélo pour enfant de 6 ans"));
+
+        assertTrue(searchIndex.search("de la").isEmpty());
+    }
+
+    @Test
+    void index_ShouldReplaceTermsAndDropInactiveAnnonces() {
+        Annonce annonce = createAnnonce(1L, "Lampe de chevet", "Lampe ancienne");
+        searchIndex.index(annonce);
+
+        annonce.setTitre("Lustre de salon");
+        annonce.setDescription("Lustre en cristal");
+        searchIndex.index(annonce);
+
+        assertEquals(Optional.of(Set.of()), searchIndex.search("lampe"));
+        assertEquals(Optional.of(Set.of(1L)), searchIndex.search("lustre"));
+
+        annonce.setActive(false);
+        searchIndex.index(annonce);
+
+        assertEquals(0, searchIndex.size());
+        assertEquals(0, searchIndex.termCount());
+    }
+
+    @Test
+    void index_ShouldOnlyApplyChangesOfCommittedTransactions() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            searchIndex.index(createAnnonce(1L, "Lampe de chevet", "Lampe ancienne"));
+            assertEquals(Optional.of(Set.of()), searchIndex.search("lampe"));
+            complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+            assertEquals(Optional.of(Set.of()), searchIndex.search("lampe"));
+
+            searchIndex.index(createAnnonce(2L, "Lampe de bureau", "Lampe articulée"));
+            complete(TransactionSynchronization.STATUS_COMMITTED);
+            assertEquals(Optional.of(Set.of(2L)), searchIndex.search("lampe"));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void rebuild_ShouldReplaceWholeIndex() {
+        searchIndex.index(createAnnonce(1L, "Vélo enfant", "Vélo rouge"));
+
+        searchIndex.rebuild(List.of(createAnnonce(2L, "Poussette", "Poussette pliable")));
+
+        assertEquals(1, searchIndex.size());
+        assertEquals(Optional.of(Set.of()), searchIndex.search("velo"));
+        assertEquals(Optional.of(Set.of(2L)), searchIndex.search("poussette"));
+    }
+
+    @Test
+    void rank_ShouldRankTitleMatchesAboveDescriptionMatches() {
+        searchIndex.index(createAnnonce(1L, "Armoire ancienne", "Livrée avec une lampe de bureau"));
+        searchIndex.index(createAnnonce(2L, "Lampe de bureau", "Lampe articulée, ampoule fournie"));
+        searchIndex.index(createAnnonce(3L, "Étagère murale", "Bois clair, trois niveaux"));
+
+        assertEquals(List.of(2L, 1L), searchIndex.rank(criteria("lampe")));
+    }
+
+    @Test
+    void rank_ShouldBoostKeywordMatchesAndRecentAnnonces() {
+        Annonce old = createAnnonce(1L, "Jouets divers", "Jouets en bois pour enfants");
+        old.setDatePublication(LocalDateTime.now().minusDays(300));
+        Annonce recent = createAnnonce(2L, "Jouets divers", "Jouets en bois pour enfants");
+        recent.setDatePublication(LocalDateTime.now());
+        Annonce tagged = createAnnonce(3L, "Caisse de jouets", "Voitures miniatures");
+        tagged.addKeyword(new Keyword("jouets"));
+        tagged.setDatePublication(LocalDateTime.now().minusDays(300));
+        searchIndex.index(old);
+        searchIndex.index(recent);
+        searchIndex.index(tagged);
+
+        List<Long> ranked = searchIndex.rank(criteria("jouets"));
+
+        assertTrue(ranked.indexOf(2L) < ranked.indexOf(1L));
+        assertTrue(ranked.indexOf(3L) < ranked.indexOf(1L));
+    }
+
+    @Test
+    void rank_ShouldApplyCriteriaFilters() {
+        Annonce neuf = createAnnonce(1L, "Vélo de course", "Vélo léger");
+        neuf.setEtatObjet(EtatObjet.NEUF);
+        neuf.setZoneGeographique("Clermont-Ferrand");
+        Annonce use = createAnnonce(2L, "Vélo de ville", "Vélo avec panier");
+        use.setEtatObjet(EtatObjet.BON_ETAT);
+        use.setZoneGeographique("Lyon");
+        searchIndex.index(neuf);
+        searchIndex.index(use);
+
+        SearchCriteriaDto byEtat = criteria("velo");
+        byEtat.setEtatObjet(EtatObjet.BON_ETAT);
+        SearchCriteriaDto byZone = criteria("velo");
+        byZone.setZoneGeographique("clermont");
+
+        assertEquals(List.of(2L), searchIndex.rank(byEtat));
+        assertEquals(List.of(1L), searchIndex.rank(byZone));
+    }
+
+    @Test
+    void filter_ShouldListMatchesNewestFirstAfterCursor() {
+        LocalDateTime now = LocalDateTime.now();
+        Annonce ancienne = createAnnonce(1L, "Vélo de course", "Vélo léger");
+        ancienne.setDatePublication(now.minusDays(3));
+        Annonce recente = createAnnonce(2L, "Vélo de ville", "Vélo avec panier");
+        recente.setDatePublication(now.minusDays(1));
+        Annonce memeDate = createAnnonce(3L, "Vélo enfant", "Petit vélo");
+        memeDate.setDatePublication(now.minusDays(1));
+        searchIndex.index(ancienne);
+        searchIndex.index(recente);
+        searchIndex.index(memeDate);
+        searchIndex.index(createAnnonce(4L, "Table basse", "Table en bois"));
+
+        assertEquals(List.of(3L, 2L, 1L), searchIndex.filter(criteria("velo"), null, null));
+        assertEquals(List.of(2L, 1L), searchIndex.filter(criteria("velo"), now.minusDays(1), 3L));
+        assertEquals(List.of(1L), searchIndex.filter(criteria("velo"), now.minusDays(1), 2L));
+    }
+
+    @Test
+    void filter_ShouldMatchNothing_WhenOnlyStopWords() {
+        searchIndex.index(createAnnonce(1L, "Vélo enfant", "Vélo pour enfant de 6 ans"));
+
+        assertEquals(List.of(), searchIndex.filter(criteria("de la"), null, null));
+    }
+
+    private SearchCriteriaDto criteria(String query) {
+        SearchCriteriaDto criteria = new SearchCriteriaDto();
+        criteria.setQuery(query);
+        return criteria;
+    }
+
+    private Annonce createAnnonce(Long id, String titre, String description) {
+        Annonce annonce = new Annonce();
+        annonce.setId(id);
+        annonce.setTitre(titre);
+        annonce.setDescription(description);
+        annonce.setActive(true);
+        return annonce;
+    }
+
+    // Simule la fin d'une transaction : callbacks puis remise à zéro des synchronisations
+    private static void complete(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationManager.initSynchronization();
+        for (TransactionSynchronization synchronization : synchronizations) {
+            if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                synchronization.afterCommit();
+            }
+            synchronization.afterCompletion(status);
+        }
+    }
+}
@@ -1,16 +1,18 @@
 package com.dev.plateforme_de_dons.service;
 
+import com.dev.plateforme_de_dons.dto.AnnonceCardDto;
 import com.dev.plateforme_de_dons.dto.AnnonceDto;
 import com.dev.plateforme_de_dons.dto.SearchCriteriaDto;
 import com.dev.plateforme_de_dons.model.*;
 import com.dev.plateforme_de_dons.repository.AnnonceRepository;
-import com.dev.plateforme_de_dons.repository.KeywordRepository;
+import com.dev.plateforme_de_dons.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
@@ -18,9 +20,11 @@ import org.springframework.data.domain.Pageable;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -30,7 +34,25 @@ class AnnonceServiceTest {
     private AnnonceRepository annonceRepository;
 
     @Mock
-    private KeywordRepository keywordRepository;
+    private KeywordDictionary keywordDictionary;
+
+    @Mock
+    private KeywordService keywordService;
+
+    @Mock
+    private FavoriteCountBuffer favoriteCountBuffer;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private ImageService imageService;
+
+    @Mock
+    private AnnonceSearchIndex searchIndex;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
 
     @InjectMocks
     private AnnonceService annonceService;
@@ -54,9 +76,8 @@ class AnnonceServiceTest {
 
     @Test
     void createAnnonce_ShouldCreateSuccessfully() {
-        when(keywordRepository.findByNameIgnoreCase("meubles")).thenReturn(Optional.empty());
-        when(keywordRepository.findByNameIgnoreCase("salon")).thenReturn(Optional.empty());
-        when(keywordRepository.save(any(Keyword.class))).thenAnswer(i -> i.getArgument(0));
+        when(keywordDictionary.resolve(Set.of("meubles", "salon")))
+                .thenReturn(List.of(new Keyword("meubles"), new Keyword("salon")));
         when(annonceRepository.save(any(Annonce.class))).thenAnswer(i -> {
             Annonce a = i.getArgument(0);
             a.setId(1L);
@@ -70,8 +91,11 @@ class AnnonceServiceTest {
         assertEquals(EtatObjet.BON_ETAT, result.getEtatObjet());
         assertEquals(owner, result.getOwner());
         assertTrue(result.isActive());
+        assertEquals(Set.of(new Keyword("meubles"), new Keyword("salon")), result.getKeywords());
 
         verify(annonceRepository).save(any(Annonce.class));
+        verify(searchIndex).index(result);
+        verify(eventPublisher).publishEvent(any(AnnonceSavedEvent.class));
     }
 
     @Test
@@ -112,6 +136,31 @@ class AnnonceServiceTest {
         verify(annonceRepository).save(any(Annonce.class));
     }
 
+    @Test
+    void updateAnnonce_ShouldOnlyResolveAddedKeywords() {
+        Annonce existingAnnonce = new Annonce();
+        existingAnnonce.setId(1L);
+        existingAnnonce.setOwner(owner);
+        existingAnnonce.setKeywords(new java.util.HashSet<>(Set.of(new Keyword("meubles"), new Keyword("bois"))));
+
+        when(annonceRepository.findById(1L)).thenReturn(Optional.of(existingAnnonce));
+        when(annonceRepository.save(any(Annonce.class))).thenAnswer(i -> i.getArgument(0));
+        when(keywordDictionary.resolve(Set.of("salon"))).thenReturn(List.of(new Keyword("salon")));
+
+        Annonce result = annonceService.updateAnnonce(1L, validDto, owner);
+
+        assertEquals(Set.of(new Keyword("meubles"), new Keyword("salon")), result.getKeywords());
+        verify(keywordDictionary).resolve(Set.of("salon"));
+    }
+
+    @Test
+    void createAnnonce_ShouldThrow_WhenKeywordTooShort() {
+        validDto.setKeywordsInput("meubles, x");
+
+        assertThrows(IllegalArgumentException.class, () -> annonceService.createAnnonce(validDto, owner));
+        verify(annonceRepository, never()).save(any());
+    }
+
     @Test
     void updateAnnonce_ShouldThrow_WhenNotOwner() {
         User otherUser = new User("other", "other@test.com", "pass");
@@ -143,6 +192,47 @@ class AnnonceServiceTest {
 
         assertFalse(existingAnnonce.isActive());
         verify(annonceRepository).save(existingAnnonce);
+        verify(searchIndex).remove(1L);
+    }
+
+    @Test
+    void search_ShouldReturnEmptyPage_WhenIndexHasNoCandidates() {
+        SearchCriteriaDto criteria = new SearchCriteriaDto();
+        criteria.setQuery("introuvable");
+
+        when(searchIndex.filter(criteria, null, null)).thenReturn(List.of());
+
+        Page<AnnonceCardDto> result = annonceService.search(criteria, PageRequest.of(0, 10));
+
+        assertTrue(result.isEmpty());
+        verifyNoInteractions(annonceRepository);
+    }
+
+    @Test
+    void search_ShouldLoadOnlyRequestedPageOfIndexMatches() {
+        SearchCriteriaDto criteria = new SearchCriteriaDto();
+        criteria.setQuery("velo");
+
+        when(searchIndex.filter(criteria, null, null)).thenReturn(List.of(9L, 7L, 5L, 3L, 1L));
+        when(annonceRepository.findCards(any(), eq(Pageable.unpaged())))
+                .thenReturn(new PageImpl<>(List.of(card(3L), card(5L))));
+
+        Page<AnnonceCardDto> result = annonceService.search(criteria, PageRequest.of(1, 2));
+
+        assertEquals(List.of(5L, 3L), result.getContent().stream().map(AnnonceCardDto::getId).toList());
+        assertEquals(5, result.getTotalElements());
+        verify(annonceRepository, never()).findCards(any(), eq(PageRequest.of(1, 2)));
+    }
+
+    @Test
+    void countSearch_ShouldCountIndexMatchesWithoutQuery() {
+        SearchCriteriaDto criteria = new SearchCriteriaDto();
+        criteria.setQuery("de la");
+
+        when(searchIndex.filter(criteria, null, null)).thenReturn(List.of());
+
+        assertEquals(0, annonceService.countSearch(criteria));
+        verifyNoInteractions(annonceRepository);
     }
 
     @Test
@@ -181,4 +271,30 @@ class AnnonceServiceTest {
         assertEquals("testuser", dto.getOwnerUsername());
         assertEquals(EtatObjet.NEUF, dto.getEtatObjet());
     }
+
+    @Test
+    void convertToDtos_ShouldAddPendingDeltasToStoredFavoriteCount() {
+        Annonce first = new Annonce();
+        first.setId(1L);
+        first.setTitre("Premier");
+        first.setOwner(owner);
+        Annonce second = new Annonce();
+        second.setId(2L);
+        second.setTitre("Second");
+        second.setOwner(owner);
+
+        when(favoriteCountBuffer.pending(anyLong())).thenAnswer(i -> i.getArgument(0).equals(2L) ? 3 : 0);
+
+        List<AnnonceDto> dtos = annonceService.convertToDtos(List.of(first, second));
+
+        assertEquals(2, dtos.size());
+        assertEquals(0, dtos.get(0).getFavoriteCount());
+        assertEquals(3, dtos.get(1).getFavoriteCount());
+    }
+
+    private static AnnonceCardDto card(Long id) {
+        AnnonceCardDto card = new AnnonceCardDto();
+        card.setId(id);
+        return card;
+    }
 }
@@ -0,0 +1,90 @@
+package com.dev.plateforme_de_dons.service;
+
+import com.dev.plateforme_de_dons.dto.MessageDto;
+import com.dev.plateforme_de_dons.model.User;
+import com.dev.plateforme_de_dons.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Sans @Transactional : chaque envoi valide sa propre transaction, comme en production
+@SpringBootTest
+class ConversationServiceIntegrationTest {
+
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User alice;
+    private User bob;
+
+    @BeforeEach
+    void setUp() {
+        alice = userRepository.save(new User("convalice", "convalice@example.com", "password123"));
+        bob = userRepository.save(new User("convbob", "convbob@example.com", "password123"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        Object[] ids = {alice.getId(), bob.getId()};
+        jdbcTemplate.update("DELETE FROM notifications WHERE user_id IN (?, ?)", ids);
+        jdbcTemplate.update("DELETE FROM conversations WHERE user_a_id IN (?, ?)", ids);
+        jdbcTemplate.update("DELETE FROM messages WHERE sender_id IN (?, ?)", ids);
+        jdbcTemplate.update("DELETE FROM users WHERE id IN (?, ?)", ids);
+    }
+
+    @Test
+    void sendMessage_ShouldCreateSingleConversation_WhenFirstMessagesAreSentConcurrently() throws Exception {
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Long>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                User sender = i % 2 == 0 ? alice : bob;
+                User receiver = i % 2 == 0 ? bob : alice;
+                Callable<Long> task = () -> {
+                    start.await();
+                    MessageDto dto = new MessageDto();
+                    dto.setReceiverId(receiver.getId());
+                    dto.setContent("Premier message");
+                    return messageService.sendMessage(dto, sender).getId();
+                };
+                results.add(pool.submit(task));
+            }
+            start.countDown();
+
+            for (Future<Long> result : results) {
+                assertNotNull(result.get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        List<Map<String, Object>> conversations = jdbcTemplate.queryForList(
+                "SELECT unreada, unreadb FROM conversations WHERE user_a_id = ? AND user_b_id = ?",
+                Math.min(alice.getId(), bob.getId()), Math.max(alice.getId(), bob.getId()));
+        assertEquals(1, conversations.size());
+        assertEquals(threads / 2, ((Number) conversations.get(0).get("unreada")).intValue());
+        assertEquals(threads / 2, ((Number) conversations.get(0).get("unreadb")).intValue());
+    }
+}
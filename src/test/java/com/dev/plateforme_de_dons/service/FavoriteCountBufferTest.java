@@ -0,0 +1,54 @@
+package com.dev.plateforme_de_dons.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FavoriteCountBufferTest {
+
+    private final FavoriteCountBuffer buffer = new FavoriteCountBuffer();
+
+    @Test
+    void drain_ShouldCoalesceDeltasAndSkipZeroes() {
+        buffer.add(1L, 1);
+        buffer.add(1L, 1);
+        buffer.add(2L, 1);
+        buffer.add(2L, -1);
+        buffer.add(3L, -1);
+
+        assertEquals(Map.of(1L, 2, 3L, -1), buffer.drain());
+        assertTrue(buffer.drain().isEmpty());
+    }
+
+    @Test
+    void restore_ShouldMergeWithNewDeltas() {
+        buffer.add(1L, 2);
+        Map<Long, Integer> drained = buffer.drain();
+        buffer.add(1L, 1);
+
+        buffer.restore(drained);
+
+        assertEquals(3, buffer.pending(1L));
+    }
+
+    @Test
+    void add_ShouldNotLoseConcurrentUpdates() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 8000; i++) {
+            long annonceId = i % 40;
+            executor.submit(() -> buffer.add(annonceId, 1));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        Map<Long, Integer> drained = buffer.drain();
+
+        assertEquals(40, drained.size());
+        drained.values().forEach(delta -> assertEquals(200, delta));
+    }
+}
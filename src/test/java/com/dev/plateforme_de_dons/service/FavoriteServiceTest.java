@@ -0,0 +1,78 @@
+package com.dev.plateforme_de_dons.service;
+
+import com.dev.plateforme_de_dons.repository.AnnonceRepository;
+import com.dev.plateforme_de_dons.repository.FavoriteRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FavoriteServiceTest {
+
+    @Mock
+    private FavoriteRepository favoriteRepository;
+
+    @Mock
+    private AnnonceRepository annonceRepository;
+
+    private FavoriteCountBuffer buffer;
+    private FavoriteService favoriteService;
+
+    @BeforeEach
+    void setUp() {
+        buffer = new FavoriteCountBuffer();
+        favoriteService = new FavoriteService(favoriteRepository, annonceRepository, buffer);
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void flushFavoriteCounts_ShouldRestoreDeltas_WhenTransactionRollsBack() {
+        buffer.add(1L, 2);
+        buffer.add(2L, -1);
+
+        assertEquals(2, favoriteService.flushFavoriteCounts());
+        verify(annonceRepository).incrementFavoriteCount(List.of(1L), 2);
+        verify(annonceRepository).incrementFavoriteCount(List.of(2L), -1);
+        assertEquals(0, buffer.pending(1L));
+
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertEquals(2, buffer.pending(1L));
+        assertEquals(-1, buffer.pending(2L));
+    }
+
+    @Test
+    void flushFavoriteCounts_ShouldKeepBufferEmpty_WhenTransactionCommits() {
+        buffer.add(1L, 1);
+
+        favoriteService.flushFavoriteCounts();
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertEquals(0, buffer.pending(1L));
+    }
+
+    // Simule la fin de la transaction de flushFavoriteCounts
+    private static void complete(int status) {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                synchronization.afterCommit();
+            }
+            synchronization.afterCompletion(status);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.dev.plateforme_de_dons.service;
+
+import com.dev.plateforme_de_dons.model.ImageBlob;
+import com.dev.plateforme_de_dons.repository.ImageBlobRepository;
+import com.dev.plateforme_de_dons.service.ImageBlobStore.StagedBlob;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Sans @Transactional : chaque store() valide (ou annule) sa propre transaction
+@SpringBootTest(properties = "app.upload.dir=target/test-uploads")
+class ImageBlobStoreIntegrationTest {
+
+    private static final Path UPLOAD_DIR = Paths.get("target/test-uploads");
+
+    @Autowired
+    private ImageBlobStore imageBlobStore;
+
+    @Autowired
+    private ImageBlobRepository imageBlobRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final List<String> hashes = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (String hash : hashes) {
+            jdbcTemplate.update("DELETE FROM image_blobs WHERE hash = ?", hash);
+            Files.deleteIfExists(UPLOAD_DIR.resolve(ImageBlobStore.blobPath(hash, ".jpg")));
+        }
+    }
+
+    @Test
+    void store_ShouldCreateSingleBlob_WhenSameNewContentIsUploadedConcurrently() throws Exception {
+        byte[] content = jpeg("photo concurrente " + System.nanoTime());
+        int threads = 6;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<ImageBlob>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                StagedBlob staged = stage(content);
+                Callable<ImageBlob> task = () -> {
+                    start.await();
+                    return imageBlobStore.store(staged);
+                };
+                results.add(pool.submit(task));
+            }
+            start.countDown();
+            for (Future<ImageBlob> result : results) {
+                assertNotNull(result.get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        String hash = hashes.get(0);
+        ImageBlob blob = imageBlobRepository.findById(hash).orElseThrow();
+        assertEquals(threads, blob.getRefCount());
+        assertArrayEquals(content, Files.readAllBytes(UPLOAD_DIR.resolve(blob.getStoragePath())));
+    }
+
+    @Test
+    void store_ShouldRemovePublishedFile_WhenTransactionRollsBack() throws Exception {
+        StagedBlob staged = stage(jpeg("photo annulée " + System.nanoTime()));
+        Path target = UPLOAD_DIR.resolve(ImageBlobStore.blobPath(staged.hash(), ".jpg"));
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            try {
+                imageBlobStore.store(staged);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            assertTrue(Files.exists(target));
+            status.setRollbackOnly();
+        });
+
+        assertFalse(Files.exists(target));
+        assertTrue(imageBlobRepository.findById(staged.hash()).isEmpty());
+        assertFalse(Files.exists(staged.file()));
+    }
+
+    @Test
+    void store_ShouldRecreateBlob_WhenLastReferenceIsReleasedConcurrently() throws Exception {
+        byte[] content = jpeg("photo libérée " + System.nanoTime());
+        String hash = imageBlobStore.store(stage(content)).getHash();
+        StagedBlob staged = stage(content);
+
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        CountDownLatch released = new CountDownLatch(1);
+        try {
+            // La dernière référence est supprimée mais pas encore validée quand l'upload arrive
+            Future<?> release = pool.submit(() -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                assertTrue(imageBlobStore.release(hash));
+                released.countDown();
+                try {
+                    Thread.sleep(300);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+            released.await();
+
+            ImageBlob blob = imageBlobStore.store(staged);
+            release.get();
+
+            assertEquals(1, blob.getRefCount());
+            assertEquals(1, imageBlobRepository.findById(hash).orElseThrow().getRefCount());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private StagedBlob stage(byte[] content) throws IOException {
+        StagedBlob staged = imageBlobStore.stage(new ByteArrayInputStream(content), 1024 * 1024);
+        hashes.add(staged.hash());
+        return staged;
+    }
+
+    private static byte[] jpeg(String body) {
+        byte[] header = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0};
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        byte[] content = new byte[header.length + bytes.length];
+        System.arraycopy(header, 0, content, 0, header.length);
+        System.arraycopy(bytes, 0, content, header.length, bytes.length);
+        return content;
+    }
+}
@@ -0,0 +1,103 @@
+package com.dev.plateforme_de_dons.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageBytesCacheTest {
+
+    @TempDir
+    Path dir;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ImageBytesCache cache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new ImageBytesCache(meterRegistry, 1000, 400);
+    }
+
+    @Test
+    void get_ShouldLoadSmallFileOnceThenServeFromMemory() throws Exception {
+        Path thumb = write("thumb.jpg", 300);
+
+        Resource first = cache.get(thumb);
+        Files.delete(thumb);
+        Resource second = cache.get(thumb);
+
+        assertArrayEquals(first.getContentAsByteArray(), second.getContentAsByteArray());
+        assertEquals(300, second.contentLength());
+        assertEquals(1, cache.stats().missCount());
+        assertEquals(1, cache.stats().hitCount());
+        assertEquals(300, cache.weightedSize());
+        assertEquals(300.0, meterRegistry.get("image.cache.bytes").gauge().value());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "imageBytes").tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    @Test
+    void get_ShouldGiveEachReaderItsOwnPosition() throws Exception {
+        Path thumb = write("thumb.jpg", 10);
+        Resource resource = cache.get(thumb);
+
+        try (InputStream partial = resource.getInputStream()) {
+            assertEquals(4, partial.skip(4));
+            assertEquals(4, partial.read());
+        }
+        assertEquals(0, cache.get(thumb).getInputStream().read());
+    }
+
+    @Test
+    void get_ShouldStreamLargeFilesFromDiskWithoutCaching() throws Exception {
+        Path original = write("original.jpg", 500);
+
+        assertInstanceOf(FileSystemResource.class, cache.get(original));
+        assertEquals(0, cache.weightedSize());
+    }
+
+    @Test
+    void get_ShouldEvictWhenMemoryCeilingIsReached() throws Exception {
+        for (long id = 1; id <= 5; id++) {
+            cache.get(write("card-" + id + ".jpg", 350));
+        }
+
+        assertTrue(cache.weightedSize() <= 1000);
+        assertTrue(cache.stats().evictionCount() >= 2);
+    }
+
+    @Test
+    void invalidate_ShouldDropGivenFilesOnly() throws Exception {
+        Path thumb = write("thumb.jpg", 100);
+        Path card = write("card.jpg", 200);
+        Path other = write("other.jpg", 50);
+        cache.get(thumb);
+        cache.get(card);
+        cache.get(other);
+
+        cache.invalidate(List.of(thumb, card));
+
+        assertEquals(50, cache.weightedSize());
+        Files.delete(thumb);
+        assertThrows(NoSuchFileException.class, () -> cache.get(thumb));
+    }
+
+    private Path write(String name, int size) throws Exception {
+        byte[] content = new byte[size];
+        for (int i = 0; i < size; i++) {
+            content[i] = (byte) i;
+        }
+        return Files.write(dir.resolve(name), content);
+    }
+}
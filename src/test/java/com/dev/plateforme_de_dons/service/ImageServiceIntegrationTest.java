@@ -0,0 +1,318 @@
+package com.dev.plateforme_de_dons.service;
+
+import com.dev.plateforme_de_dons.dto.AnnonceDto;
+import com.dev.plateforme_de_dons.model.*;
+import com.dev.plateforme_de_dons.repository.AnnonceRepository;
+import com.dev.plateforme_de_dons.repository.ImageBlobRepository;
+import com.dev.plateforme_de_dons.repository.ImageRepository;
+import com.dev.plateforme_de_dons.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.transaction.TestTransaction;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "app.upload.dir=target/test-uploads")
+@Transactional
+class ImageServiceIntegrationTest {
+
+    private static final Path UPLOAD_DIR = Paths.get("target/test-uploads");
+
+    @Autowired
+    private ImageService imageService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AnnonceRepository annonceRepository;
+
+    @Autowired
+    private ImageBlobRepository imageBlobRepository;
+
+    @Autowired
+    private ImageRepository imageRepository;
+
+    @Autowired
+    private AnnonceService annonceService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private User donor;
+
+    @BeforeEach
+    void setUp() {
+        donor = userRepository.save(new User("blobdonor", "blobdonor@example.com", "password123"));
+    }
+
+    @Test
+    void upload_ShouldStoreIdenticalContentOnceAndCountReferences() throws Exception {
+        byte[] content = jpeg("photo partagée " + System.nanoTime());
+        Annonce first = createAnnonce("Table basse en chêne");
+        Annonce second = createAnnonce("Chaises assorties");
+
+        Image a = imageService.uploadImageForAnnonce(file("table.jpg", content), first, false);
+        Image b = imageService.uploadImageForAnnonce(file("IMG_0001.jpeg", content), second, false);
+
+        assertEquals(a.getStoragePath(), b.getStoragePath());
+        assertEquals(a.getContentHash(), b.getContentHash());
+        assertTrue(a.getStoragePath().startsWith("blobs/" + a.getContentHash().substring(0, 2) + "/"));
+        assertEquals("IMG_0001.jpeg", b.getOriginalFilename());
+        assertEquals(2, imageBlobRepository.findById(a.getContentHash()).orElseThrow().getRefCount());
+        assertEquals(imageService.computeETag(a, null), imageService.computeETag(b, null));
+
+        Path blob = UPLOAD_DIR.resolve(a.getStoragePath());
+        assertArrayEquals(content, Files.readAllBytes(blob));
+
+        imageService.deleteImage(a.getId());
+        assertTrue(Files.exists(blob));
+        assertEquals(1, imageBlobRepository.findById(a.getContentHash()).orElseThrow().getRefCount());
+
+        imageService.deleteImage(b.getId());
+        assertTrue(imageBlobRepository.findById(a.getContentHash()).isEmpty());
+        // Fichier retiré au commit seulement (voir deleteImage_ShouldRemoveFilesOnlyOnCommit)
+        assertTrue(Files.exists(blob));
+    }
+
+    @Test
+    void deleteImage_ShouldRemoveFilesOnlyOnCommit() throws Exception {
+        Annonce annonce = createAnnonce("Miroir ancien");
+        Image image = imageService.uploadImageForAnnonce(file("miroir.jpg", jpeg("miroir " + System.nanoTime())), annonce, false);
+        Path blob = UPLOAD_DIR.resolve(image.getStoragePath());
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+
+        try {
+            TestTransaction.start();
+            imageService.deleteImage(image.getId());
+            TestTransaction.flagForRollback();
+            TestTransaction.end();
+            assertTrue(Files.exists(blob));
+            assertTrue(imageRepository.existsById(image.getId()));
+
+            TestTransaction.start();
+            imageService.deleteImage(image.getId());
+            assertTrue(Files.exists(blob));
+            TestTransaction.flagForCommit();
+            TestTransaction.end();
+            assertFalse(Files.exists(blob));
+        } finally {
+            if (!TestTransaction.isActive()) {
+                TestTransaction.start();
+            }
+            imageRepository.findById(image.getId()).ifPresent(imageRepository::delete);
+            imageBlobRepository.deleteById(image.getContentHash());
+            annonceRepository.deleteById(annonce.getId());
+            userRepository.deleteById(donor.getId());
+            TestTransaction.flagForCommit();
+            TestTransaction.end();
+            Files.deleteIfExists(blob);
+        }
+    }
+
+    @Test
+    void upload_ShouldKeepDistinctContentApart() throws Exception {
+        Annonce annonce = createAnnonce("Lampe de bureau");
+
+        Image a = imageService.uploadImageForAnnonce(file("a.png", png("premier contenu")), annonce, false);
+        Image b = imageService.uploadImageForAnnonce(file("b.png", png("second contenu")), annonce, false);
+
+        assertNotEquals(a.getStoragePath(), b.getStoragePath());
+        assertTrue(a.getStoragePath().endsWith(".png"));
+    }
+
+    @Test
+    void upload_ShouldTrustFileContentOverDeclaredType() throws Exception {
+        Annonce annonce = createAnnonce("Miroir ancien");
+
+        // PNG envoyé avec une extension et un type JPEG
+        Image image = imageService.uploadImageForAnnonce(
+                new MockMultipartFile("file", "miroir.jpg", "image/jpeg", png("miroir " + System.nanoTime())), annonce, false);
+        assertEquals("image/png", image.getContentType());
+        assertTrue(image.getStoragePath().endsWith(".png"));
+
+        MockMultipartFile script = new MockMultipartFile("file", "photo.jpg", "image/jpeg",
+                "<script>alert(1)</script>".getBytes(StandardCharsets.UTF_8));
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+                () -> imageService.uploadImageForAnnonce(script, annonce, false));
+        assertTrue(error.getMessage().startsWith("Type de fichier non autorisé"));
+    }
+
+    @Test
+    void upload_ShouldRejectContentLargerThanLimitWhileStreaming() {
+        Annonce annonce = createAnnonce("Armoire normande");
+        byte[] oversized = new byte[5 * 1024 * 1024 + 1];
+        System.arraycopy(jpeg(""), 0, oversized, 0, 3);
+
+        // Taille déclarée mensongère : seule la lecture du flux révèle le dépassement
+        MockMultipartFile file = new MockMultipartFile("file", "grande.jpg", "image/jpeg", oversized) {
+            @Override
+            public long getSize() {
+                return 1024;
+            }
+        };
+
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+                () -> imageService.uploadImageForAnnonce(file, annonce, false));
+        assertTrue(error.getMessage().contains("trop volumineux"));
+    }
+
+    @Test
+    void uploadImages_ShouldStageConcurrentlyAndKeepSubmissionOrder() throws Exception {
+        Annonce annonce = createAnnonce("Lot de vaisselle");
+        List<MultipartFile> files = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            files.add(file("assiette-" + i + ".jpg", jpeg("assiette " + i + " " + System.nanoTime())));
+        }
+        files.add(2, new MockMultipartFile("imageFiles", "", "application/octet-stream", new byte[0]));
+
+        List<Image> images = imageService.uploadImagesForAnnonce(files, annonce, true);
+
+        assertEquals(6, images.size());
+        for (int i = 0; i < 6; i++) {
+            assertEquals("assiette-" + i + ".jpg", images.get(i).getOriginalFilename());
+            assertEquals(i == 0, images.get(i).isPrimary());
+        }
+    }
+
+    @Test
+    void uploadImages_ShouldRejectWholeFormWhenOneFileIsInvalid() throws Exception {
+        Annonce annonce = createAnnonce("Fauteuil club");
+        List<MultipartFile> files = List.of(
+                file("ok.jpg", jpeg("valide " + System.nanoTime())),
+                new MockMultipartFile("imageFiles", "faux.png", "image/png", "pas une image".getBytes(StandardCharsets.UTF_8)));
+
+        assertThrows(IllegalArgumentException.class, () -> imageService.uploadImagesForAnnonce(files, annonce, true));
+        assertTrue(imageService.findByAnnonce(annonce).isEmpty());
+        try (Stream<Path> staged = Files.list(UPLOAD_DIR.resolve("blobs/tmp"))) {
+            assertEquals(0, staged.count());
+        }
+    }
+
+    @Test
+    void primaryImageId_ShouldFollowUploadsSetPrimaryAndDeletes() throws Exception {
+        Annonce annonce = createAnnonce("Bibliothèque en pin");
+
+        Image first = imageService.uploadImageForAnnonce(file("face.jpg", jpeg("face " + System.nanoTime())), annonce, false);
+        Image second = imageService.uploadImageForAnnonce(file("dos.jpg", jpeg("dos " + System.nanoTime())), annonce, false);
+        flushAndClear();
+
+        // Sans image principale, la première reçue le devient
+        assertEquals(first.getId(), primaryImageId(annonce));
+        assertTrue(imageRepository.findById(first.getId()).orElseThrow().isPrimary());
+        assertFalse(imageRepository.findById(second.getId()).orElseThrow().isPrimary());
+
+        imageService.setPrimaryImage(second.getId());
+        flushAndClear();
+        assertEquals(second.getId(), primaryImageId(annonce));
+        assertFalse(imageRepository.findById(first.getId()).orElseThrow().isPrimary());
+
+        imageService.deleteImage(second.getId());
+        flushAndClear();
+        assertEquals(first.getId(), primaryImageId(annonce));
+        assertTrue(imageRepository.findById(first.getId()).orElseThrow().isPrimary());
+
+        imageService.deleteImage(first.getId());
+        flushAndClear();
+        assertNull(primaryImageId(annonce));
+    }
+
+    @Test
+    void convertToDtos_ShouldBuildCardsWithoutLoadingImages() throws Exception {
+        Annonce annonce = createAnnonce("Commode trois tiroirs");
+        Image image = imageService.uploadImageForAnnonce(file("commode.jpg", jpeg("commode " + System.nanoTime())), annonce, false);
+        flushAndClear();
+
+        Annonce loaded = annonceRepository.findById(annonce.getId()).orElseThrow();
+        AnnonceDto card = annonceService.convertToDtos(List.of(loaded)).get(0);
+
+        assertEquals("/api/images/" + image.getId() + "?size=card", card.getImageUrl());
+        assertEquals(image.getId(), card.getPrimaryImage().getId());
+        assertTrue(card.getImages().isEmpty());
+        assertFalse(Hibernate.isInitialized(loaded.getImages()));
+
+        assertEquals(1, annonceService.convertToDto(loaded).getImages().size());
+    }
+
+    @Test
+    void backfillPrimaryImageIds_ShouldPickFlaggedImageThenOldest() {
+        Annonce flagged = createAnnonce("Buffet de cuisine");
+        Annonce unflagged = createAnnonce("Étagère murale");
+        legacyImage(flagged, false);
+        Image primary = legacyImage(flagged, true);
+        Image oldest = legacyImage(unflagged, false);
+        legacyImage(unflagged, false);
+        flushAndClear();
+
+        imageService.backfillPrimaryImageIds();
+        flushAndClear();
+
+        assertEquals(primary.getId(), primaryImageId(flagged));
+        assertEquals(oldest.getId(), primaryImageId(unflagged));
+    }
+
+    private Image legacyImage(Annonce annonce, boolean primary) {
+        Image image = new Image("legacy.jpg", "legacy.jpg", "image/jpeg", 1L, "annonces/0/legacy.jpg");
+        image.setAnnonce(annonce);
+        image.setPrimary(primary);
+        return imageRepository.save(image);
+    }
+
+    private Long primaryImageId(Annonce annonce) {
+        return annonceRepository.findById(annonce.getId()).orElseThrow().getPrimaryImageId();
+    }
+
+    private void flushAndClear() {
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private static byte[] jpeg(String body) {
+        return withHeader(new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0}, body);
+    }
+
+    private static byte[] png(String body) {
+        return withHeader(new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'}, body);
+    }
+
+    private static byte[] withHeader(byte[] header, String body) {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        byte[] content = new byte[header.length + bytes.length];
+        System.arraycopy(header, 0, content, 0, header.length);
+        System.arraycopy(bytes, 0, content, header.length, bytes.length);
+        return content;
+    }
+
+    private MockMultipartFile file(String name, byte[] content) {
+        String type = name.endsWith(".png") ? "image/png" : "image/jpeg";
+        return new MockMultipartFile("file", name, type, content);
+    }
+
+    private Annonce createAnnonce(String titre) {
+        Annonce annonce = new Annonce();
+        annonce.setTitre(titre);
+        annonce.setDescription("Description de test pour " + titre);
+        annonce.setEtatObjet(EtatObjet.BON_ETAT);
+        annonce.setZoneGeographique("Paris");
+        annonce.setModeLivraison(ModeLivraison.MAIN_PROPRE);
+        annonce.setOwner(donor);
+        annonce.setActive(true);
+        return annonceRepository.saveAndFlush(annonce);
+    }
+}
@@ -0,0 +1,98 @@
+package com.dev.plateforme_de_dons.service;
+
+import com.dev.plateforme_de_dons.model.Image;
+import com.dev.plateforme_de_dons.model.ImageVariant;
+import com.dev.plateforme_de_dons.repository.ImageRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "app.upload.dir=target/test-uploads")
+@Transactional
+class ImageVariantServiceTest {
+
+    private static final Path UPLOAD_DIR = Paths.get("target/test-uploads");
+
+    @Autowired
+    private ImageVariantService imageVariantService;
+
+    @Autowired
+    private ImageRepository imageRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void generateVariants_ShouldWriteDownscaledCopiesNextToOriginal() throws Exception {
+        Image image = store("annonces/0/variants-large.jpg", new BufferedImage(2000, 1000, BufferedImage.TYPE_INT_RGB), "jpg");
+
+        imageVariantService.generateVariants(image.getId());
+        entityManager.clear();
+        Image reloaded = imageRepository.findById(image.getId()).orElseThrow();
+
+        assertEquals("annonces/0/variants-large_thumb.jpg", reloaded.getThumbPath());
+        assertDimensions(reloaded.getThumbPath(), 160, 80);
+        assertDimensions(reloaded.getCardPath(), 480, 240);
+        assertDimensions(reloaded.getFullPath(), 1280, 640);
+
+        imageVariantService.deleteVariantFiles(reloaded);
+        assertFalse(Files.exists(UPLOAD_DIR.resolve(reloaded.getCardPath())));
+        assertTrue(Files.exists(UPLOAD_DIR.resolve(reloaded.getStoragePath())));
+    }
+
+    @Test
+    void generateVariants_ShouldReuseOriginalWhenAlreadySmallEnough() throws Exception {
+        Image image = store("annonces/0/variants-small.png", new BufferedImage(300, 150, BufferedImage.TYPE_INT_ARGB), "png");
+
+        imageVariantService.generateVariants(image.getId());
+        entityManager.clear();
+        Image reloaded = imageRepository.findById(image.getId()).orElseThrow();
+
+        assertEquals("annonces/0/variants-small_thumb.png", reloaded.getThumbPath());
+        assertDimensions(reloaded.getThumbPath(), 160, 80);
+        assertEquals(image.getStoragePath(), reloaded.getCardPath());
+        assertEquals(image.getStoragePath(), reloaded.getFullPath());
+    }
+
+    @Test
+    void generateVariants_ShouldFallBackToOriginalForUndecodableFiles() throws Exception {
+        Path file = UPLOAD_DIR.resolve("annonces/0/variants-broken.webp");
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, "pas une image");
+        Image image = imageRepository.save(new Image("variants-broken.webp", "photo.webp", "image/webp",
+                Files.size(file), "annonces/0/variants-broken.webp"));
+
+        imageVariantService.generateVariants(image.getId());
+        entityManager.clear();
+        Image reloaded = imageRepository.findById(image.getId()).orElseThrow();
+
+        for (ImageVariant variant : ImageVariant.values()) {
+            assertEquals(image.getStoragePath(), reloaded.getVariantPath(variant));
+        }
+    }
+
+    private Image store(String storagePath, BufferedImage content, String format) throws Exception {
+        Path file = UPLOAD_DIR.resolve(storagePath);
+        Files.createDirectories(file.getParent());
+        ImageIO.write(content, format, file.toFile());
+        return imageRepository.save(new Image(file.getFileName().toString(), "photo." + format,
+                "image/" + ("jpg".equals(format) ? "jpeg" : format), Files.size(file), storagePath));
+    }
+
+    private void assertDimensions(String storagePath, int width, int height) throws Exception {
+        BufferedImage variant = ImageIO.read(UPLOAD_DIR.resolve(storagePath).toFile());
+        assertNotNull(variant);
+        assertEquals(width, variant.getWidth());
+        assertEquals(height, variant.getHeight());
+    }
+}
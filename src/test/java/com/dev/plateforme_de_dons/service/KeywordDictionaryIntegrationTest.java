@@ -0,0 +1,102 @@
+package com.dev.plateforme_de_dons.service;
+
+import com.dev.plateforme_de_dons.model.Keyword;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Sans @Transactional : les insertions de mots-clés sont validées dans leur propre transaction
+@SpringBootTest
+class KeywordDictionaryIntegrationTest {
+
+    @Autowired
+    private KeywordDictionary keywordDictionary;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM keywords WHERE name LIKE 'dict-%'");
+    }
+
+    @Test
+    void resolve_ShouldCreateMissingKeywordsAndReuseExistingOnes() {
+        List<Keyword> first = keywordDictionary.resolve(Set.of("dict-meubles", "dict-salon"));
+        long missesAfterFirst = keywordDictionary.stats().missCount();
+        List<Keyword> second = keywordDictionary.resolve(Set.of("dict-meubles", "dict-salon", "dict-bois"));
+
+        assertEquals(Set.of("dict-meubles", "dict-salon"), names(first));
+        assertEquals(Set.of("dict-meubles", "dict-salon", "dict-bois"), names(second));
+        assertEquals(ids(first), ids(second.stream().filter(k -> !k.getName().equals("dict-bois")).toList()));
+        assertEquals(1, keywordDictionary.stats().missCount() - missesAfterFirst);
+        assertEquals(3, count());
+        assertNotNull(keywordDictionary.getId("dict-bois"));
+    }
+
+    @Test
+    void resolve_ShouldRecreateKeywordDeletedAfterCaching() {
+        Long id = keywordDictionary.resolve(Set.of("dict-lampe")).get(0).getId();
+        jdbcTemplate.update("DELETE FROM keywords WHERE id = ?", id);
+
+        List<Keyword> resolved = keywordDictionary.resolve(Set.of("dict-lampe"));
+
+        assertEquals(1, resolved.size());
+        assertNotEquals(id, resolved.get(0).getId());
+        assertEquals(resolved.get(0).getId(), keywordDictionary.getId("dict-lampe"));
+    }
+
+    @Test
+    void resolve_ShouldCreateSingleRow_WhenSameKeywordResolvedConcurrently() throws Exception {
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Long>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                Callable<Long> task = () -> {
+                    start.await();
+                    return keywordDictionary.resolve(Set.of("dict-concurrent")).get(0).getId();
+                };
+                results.add(pool.submit(task));
+            }
+            start.countDown();
+
+            Set<Long> ids = new HashSet<>();
+            for (Future<Long> result : results) {
+                ids.add(result.get());
+            }
+            assertEquals(1, ids.size());
+            assertEquals(1, count());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private int count() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM keywords WHERE name LIKE 'dict-%'", Integer.class);
+    }
+
+    private static Set<String> names(List<Keyword> keywords) {
+        return keywords.stream().map(Keyword::getName).collect(Collectors.toSet());
+    }
+
+    private static Set<Long> ids(List<Keyword> keywords) {
+        return keywords.stream().map(Keyword::getId).collect(Collectors.toSet());
+    }
+}
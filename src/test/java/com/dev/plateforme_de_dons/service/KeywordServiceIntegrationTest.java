@@ -0,0 +1,121 @@
+package com.dev.plateforme_de_dons.service;
+
+import com.dev.plateforme_de_dons.dto.AnnonceDto;
+import com.dev.plateforme_de_dons.dto.KeywordUsageDto;
+import com.dev.plateforme_de_dons.model.Annonce;
+import com.dev.plateforme_de_dons.model.EtatObjet;
+import com.dev.plateforme_de_dons.model.ModeLivraison;
+import com.dev.plateforme_de_dons.model.User;
+import com.dev.plateforme_de_dons.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class KeywordServiceIntegrationTest {
+
+    @Autowired
+    private KeywordService keywordService;
+
+    @Autowired
+    private AnnonceService annonceService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private User owner;
+
+    @BeforeEach
+    void setUp() {
+        owner = userRepository.save(new User("popowner", "popowner@example.com", "password123"));
+    }
+
+    @Test
+    void usageCount_ShouldFollowKeywordChangesAndStatusTransitions() {
+        Annonce first = annonceService.createAnnonce(dto("pop-meubles, pop-bois"), owner);
+        Annonce second = annonceService.createAnnonce(dto("pop-meubles"), owner);
+        assertEquals(Map.of("pop-meubles", 2, "pop-bois", 1), popular());
+
+        annonceService.updateAnnonce(second.getId(), dto("pop-bois, pop-salon"), owner);
+        assertEquals(Map.of("pop-meubles", 1, "pop-bois", 2, "pop-salon", 1), popular());
+
+        annonceService.markAsGiven(first.getId(), owner);
+        annonceService.deactivateAnnonce(first.getId(), owner);
+        assertEquals(Map.of("pop-bois", 1, "pop-salon", 1), popular());
+
+        // Annonce inactive : ses mots-clés ne comptent plus, même modifiés
+        annonceService.updateAnnonce(first.getId(), dto("pop-salon"), owner);
+        assertEquals(Map.of("pop-bois", 1, "pop-salon", 1), popular());
+    }
+
+    @Test
+    void reconcileUsageCounts_ShouldRepairDriftedCounters() {
+        annonceService.createAnnonce(dto("pop-lampe"), owner);
+        jdbcTemplate.update("UPDATE keywords SET usage_count = 42 WHERE name = 'pop-lampe'");
+
+        keywordService.reconcileUsageCounts();
+
+        assertEquals(Map.of("pop-lampe", 1), popular());
+    }
+
+    @Test
+    void popularEndpoint_ShouldBoundLimit() throws Exception {
+        annonceService.createAnnonce(dto("pop-velo"), owner);
+
+        mockMvc.perform(get("/api/keywords/popular").param("limit", "100000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.keywords.length()", lessThanOrEqualTo(KeywordService.MAX_POPULAR_LIMIT)))
+                .andExpect(jsonPath("$.keywords[?(@.name == 'pop-velo')].count").value(1));
+    }
+
+    @Test
+    void suggestEndpoint_ShouldServeNewKeywordsWithoutAccents() throws Exception {
+        annonceService.createAnnonce(dto("pop-vélo-électrique"), owner);
+
+        mockMvc.perform(get("/api/keywords/suggest").param("q", "POP-VELO-E"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.suggestions[0].name").value("pop-vélo-électrique"));
+        mockMvc.perform(get("/api/keywords/suggest").param("q", "pop-inconnu"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.suggestions.length()").value(0));
+    }
+
+    private Map<String, Integer> popular() {
+        return keywordService.findPopular(KeywordService.MAX_POPULAR_LIMIT).stream()
+                .filter(k -> k.getName().startsWith("pop-"))
+                .collect(Collectors.toMap(KeywordUsageDto::getName, KeywordUsageDto::getCount));
+    }
+
+    private static AnnonceDto dto(String keywords) {
+        AnnonceDto dto = new AnnonceDto();
+        dto.setTitre("Annonce populaire");
+        dto.setDescription("Description de l'annonce populaire");
+        dto.setEtatObjet(EtatObjet.BON_ETAT);
+        dto.setZoneGeographique("Lyon");
+        dto.setModeLivraison(ModeLivraison.MAIN_PROPRE);
+        dto.setKeywordsInput(keywords);
+        return dto;
+    }
+}
@@ -0,0 +1,68 @@
+package com.dev.plateforme_de_dons.service;
+
+import com.dev.plateforme_de_dons.dto.KeywordUsageDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeywordSuggestionIndexTest {
+
+    private KeywordSuggestionIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new KeywordSuggestionIndex(3);
+        index.rebuild(List.of(
+                new KeywordUsageDto(1L, "vélo", 5),
+                new KeywordUsageDto(2L, "velours", 8),
+                new KeywordUsageDto(3L, "vêtements", 2),
+                new KeywordUsageDto(4L, "vaisselle", 1),
+                new KeywordUsageDto(5L, "table", 3)));
+    }
+
+    @Test
+    void suggest_ShouldIgnoreAccentsAndCase() {
+        assertEquals(List.of("velours", "vélo"), names(index.suggest("VÉL", 10)));
+        assertEquals(List.of("vêtements"), names(index.suggest("vet", 10)));
+    }
+
+    @Test
+    void suggest_ShouldRankByPopularityThenNameAndKeepTopN() {
+        assertEquals(List.of("velours", "vélo", "vêtements"), names(index.suggest("v", 10)));
+        assertEquals(List.of("velours"), names(index.suggest("v", 1)));
+        assertEquals(8, index.suggest("velo", 1).get(0).getCount());
+    }
+
+    @Test
+    void suggest_ShouldReturnNothingForBlankOrUnknownPrefix() {
+        assertTrue(index.suggest("  ", 10).isEmpty());
+        assertTrue(index.suggest("xyz", 10).isEmpty());
+        assertTrue(index.suggest("vélos", 10).isEmpty());
+    }
+
+    @Test
+    void add_ShouldMakeNewKeywordVisibleWithoutRebuild() {
+        index.add(6L, "vase", 0);
+        index.add(6L, "vase", 0);
+
+        assertEquals(List.of("vaisselle", "vase"), names(index.suggest("va", 10)));
+        assertEquals(6, index.size());
+    }
+
+    @Test
+    void adjust_ShouldReorderAlongThePath() {
+        index.adjust(List.of(4L), 10);
+        assertEquals(List.of("vaisselle", "velours", "vélo"), names(index.suggest("v", 10)));
+
+        index.adjust(List.of(2L), -20);
+        assertEquals(0, index.suggest("velours", 1).get(0).getCount());
+        assertEquals(List.of("vaisselle", "vélo", "vêtements"), names(index.suggest("v", 10)));
+    }
+
+    private static List<String> names(List<KeywordUsageDto> suggestions) {
+        return suggestions.stream().map(KeywordUsageDto::getName).toList();
+    }
+}
@@ -0,0 +1,161 @@
+package com.dev.plateforme_de_dons.service;
+
+import com.dev.plateforme_de_dons.dto.ConversationDto;
+import com.dev.plateforme_de_dons.dto.CursorPage;
+import com.dev.plateforme_de_dons.dto.MessageDto;
+import com.dev.plateforme_de_dons.model.*;
+import com.dev.plateforme_de_dons.repository.AnnonceRepository;
+import com.dev.plateforme_de_dons.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.EntityManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class MessageServiceIntegrationTest {
+
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AnnonceRepository annonceRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private User alice;
+    private User bob;
+
+    @BeforeEach
+    void setUp() {
+        alice = userRepository.save(new User("inboxalice", "inboxalice@example.com", "password123"));
+        bob = userRepository.save(new User("inboxbob", "inboxbob@example.com", "password123"));
+    }
+
+    @Test
+    void getConversations_ShouldReturnOneSummaryPerThreadWithUnreadCounts() {
+        Annonce annonce = createAnnonce("Canapé d'angle");
+
+        send(alice, bob, null, "Bonjour");
+        send(alice, bob, null, "Toujours disponible ?");
+        send(bob, alice, annonce.getId(), "Je suis intéressé");
+        Message last = send(alice, bob, annonce.getId(), "Oui, passez ce soir");
+        flushAndClear();
+
+        Page<ConversationDto> bobInbox = messageService.getConversations(bob, PageRequest.of(0, 10));
+
+        assertEquals(2, bobInbox.getTotalElements());
+        ConversationDto latest = bobInbox.getContent().get(0);
+        assertEquals(annonce.getId(), latest.getAnnonceId());
+        assertEquals("Canapé d'angle", latest.getAnnonceTitre());
+        assertEquals(last.getId(), latest.getLastMessage().getId());
+        assertEquals("inboxalice", latest.getPartner().getUsername());
+        assertEquals(1, latest.getUnreadCount());
+        assertEquals(2, bobInbox.getContent().get(1).getUnreadCount());
+
+        ConversationDto aliceView = messageService.getConversations(alice, PageRequest.of(0, 10)).getContent().get(0);
+        assertEquals(1, aliceView.getUnreadCount());
+        assertEquals("inboxbob", aliceView.getPartner().getUsername());
+    }
+
+    @Test
+    void markConversationAsRead_ShouldResetReaderUnreadCount() {
+        Annonce annonce = createAnnonce("Lampe");
+        send(alice, bob, null, "Bonjour");
+        Message aboutAnnonce = send(alice, bob, annonce.getId(), "Pour la lampe");
+        flushAndClear();
+
+        messageService.markAsRead(aboutAnnonce.getId(), userRepository.findById(bob.getId()).orElseThrow());
+        flushAndClear();
+        assertTrue(messageService.getConversations(bob, PageRequest.of(0, 10)).stream()
+                .filter(c -> c.getAnnonceId() != null)
+                .allMatch(c -> c.getUnreadCount() == 0));
+
+        assertEquals(1, messageService.markConversationAsRead(bob, alice, null, null));
+        flushAndClear();
+
+        assertTrue(messageService.getConversations(bob, PageRequest.of(0, 10)).stream()
+                .allMatch(c -> c.getUnreadCount() == 0));
+    }
+
+    @Test
+    void markConversationAsRead_ShouldStopAtGivenMessageAndReportCount() {
+        Annonce annonce = createAnnonce("Vélo de course");
+        send(alice, bob, annonce.getId(), "Premier");
+        Message displayed = send(alice, bob, annonce.getId(), "Deuxième");
+        send(alice, bob, annonce.getId(), "Arrivé après l'affichage");
+        send(bob, alice, annonce.getId(), "Réponse");
+        flushAndClear();
+
+        int updated = messageService.markConversationAsRead(bob, alice, annonce, displayed.getId());
+        flushAndClear();
+
+        assertEquals(2, updated);
+        assertEquals(1, messageService.getConversations(bob, PageRequest.of(0, 10)).getContent().get(0).getUnreadCount());
+        assertEquals(0, messageService.markConversationAsRead(bob, alice, annonce, displayed.getId()));
+    }
+
+    @Test
+    void getConversationPage_ShouldWalkBackwardsWithBeforeCursor() {
+        for (int i = 1; i <= 5; i++) {
+            send(i % 2 == 0 ? bob : alice, i % 2 == 0 ? alice : bob, null, "Message " + i);
+        }
+        flushAndClear();
+
+        CursorPage<Message> latest = messageService.getConversationPage(alice, bob, null, null, 2);
+        assertEquals(List.of("Message 4", "Message 5"), contents(latest));
+        assertTrue(latest.hasNext());
+
+        CursorPage<Message> older = messageService.getConversationPage(alice, bob, null, latest.getNextCursor(), 2);
+        assertEquals(List.of("Message 2", "Message 3"), contents(older));
+
+        CursorPage<Message> oldest = messageService.getConversationPage(alice, bob, null, older.getNextCursor(), 2);
+        assertEquals(List.of("Message 1"), contents(oldest));
+        assertFalse(oldest.hasNext());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> messageService.getConversationPage(alice, bob, null, "pas-un-curseur", 2));
+    }
+
+    private List<String> contents(CursorPage<Message> page) {
+        return page.getContent().stream().map(Message::getContent).toList();
+    }
+
+    private Message send(User sender, User receiver, Long annonceId, String content) {
+        MessageDto dto = new MessageDto();
+        dto.setReceiverId(receiver.getId());
+        dto.setAnnonceId(annonceId);
+        dto.setContent(content);
+        return messageService.sendMessage(dto, sender);
+    }
+
+    private void flushAndClear() {
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private Annonce createAnnonce(String titre) {
+        Annonce annonce = new Annonce();
+        annonce.setTitre(titre);
+        annonce.setDescription("Description de test pour " + titre);
+        annonce.setEtatObjet(EtatObjet.BON_ETAT);
+        annonce.setZoneGeographique("Paris");
+        annonce.setModeLivraison(ModeLivraison.MAIN_PROPRE);
+        annonce.setOwner(alice);
+        annonce.setActive(true);
+        return annonceRepository.saveAndFlush(annonce);
+    }
+}
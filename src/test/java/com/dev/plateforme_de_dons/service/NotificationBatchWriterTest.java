@@ -0,0 +1,169 @@
+package com.dev.plateforme_de_dons.service;
+
+import com.dev.plateforme_de_dons.model.*;
+import com.dev.plateforme_de_dons.repository.AnnonceRepository;
+import com.dev.plateforme_de_dons.repository.NotificationRepository;
+import com.dev.plateforme_de_dons.repository.SavedSearchRepository;
+import com.dev.plateforme_de_dons.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "app.notifications.batch-size=3")
+@Transactional
+class NotificationBatchWriterTest {
+
+    @Autowired
+    private NotificationBatchWriter notificationBatchWriter;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AnnonceRepository annonceRepository;
+
+    @Autowired
+    private SavedSearchRepository savedSearchRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void write_ShouldInsertAllChunksAndAssignIds() {
+        User user = userRepository.save(new User("batchuser", "batchuser@example.com", "password123"));
+        List<Notification> notifications = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            Notification notification = new Notification();
+            notification.setUser(user);
+            notification.setTitle("Notification " + i);
+            notification.setMessage("Message " + i);
+            notification.setType(NotificationType.NEW_MESSAGE);
+            notifications.add(notification);
+        }
+
+        int written = notificationBatchWriter.write(notifications);
+
+        assertEquals(7, written);
+        assertEquals(7, notificationRepository.countByUserAndReadFalse(user));
+        assertEquals(7, notifications.stream().map(Notification::getId).distinct().filter(id -> id != null).count());
+        Notification stored = notificationRepository.findById(notifications.get(4).getId()).orElseThrow();
+        assertEquals("Notification 4", stored.getTitle());
+        assertNotNull(stored.getCreatedAt());
+    }
+
+    @Test
+    void writeAlerts_ShouldSkipAlertsAlreadyRecordedForSearchAndAnnonce() {
+        User user = userRepository.save(new User("alertbatch", "alertbatch@example.com", "password123"));
+        Annonce annonce = createAnnonce(user);
+        List<SavedSearch> searches = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            searches.add(createSavedSearch(user, "Recherche " + i));
+        }
+
+        List<Notification> first = notificationBatchWriter.writeAlerts(alerts(annonce, searches.subList(0, 2)));
+        List<Notification> second = notificationBatchWriter.writeAlerts(alerts(annonce, searches));
+
+        assertEquals(2, first.size());
+        assertEquals(2, second.size());
+        assertEquals(List.of(searches.get(2).getId(), searches.get(3).getId()),
+                second.stream().map(alert -> alert.getSavedSearch().getId()).toList());
+        assertTrue(second.stream().allMatch(alert -> alert.getId() != null));
+        assertEquals(4, notificationRepository.countByUserAndReadFalse(user));
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void writeAlerts_ShouldCreateOneAlertPerSearch_WhenSameAnnonceIsProcessedConcurrently() throws Exception {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        User user = userRepository.save(new User("alertrace", "alertrace@example.com", "password123"));
+        Annonce annonce = transactionTemplate.execute(status -> createAnnonce(user));
+        List<SavedSearch> searches = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            searches.add(createSavedSearch(user, "Course " + i));
+        }
+
+        int threads = 4;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                Callable<Integer> task = () -> {
+                    start.await();
+                    return notificationBatchWriter.writeAlerts(alerts(annonce, searches)).size();
+                };
+                results.add(pool.submit(task));
+            }
+            start.countDown();
+            int created = 0;
+            for (Future<Integer> result : results) {
+                created += result.get();
+            }
+
+            assertEquals(searches.size(), created);
+            assertEquals(searches.size(), jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM notifications WHERE annonce_id = ?", Integer.class, annonce.getId()));
+        } finally {
+            pool.shutdownNow();
+            jdbcTemplate.update("DELETE FROM notifications WHERE user_id = ?", user.getId());
+            jdbcTemplate.update("DELETE FROM saved_searches WHERE user_id = ?", user.getId());
+            jdbcTemplate.update("DELETE FROM annonces WHERE id = ?", annonce.getId());
+            jdbcTemplate.update("DELETE FROM users WHERE id = ?", user.getId());
+        }
+    }
+
+    private static List<Notification> alerts(Annonce annonce, List<SavedSearch> searches) {
+        List<Notification> alerts = new ArrayList<>();
+        for (SavedSearch search : searches) {
+            Notification alert = new Notification();
+            alert.setUser(search.getUser());
+            alert.setTitle("Nouvelle annonce correspondante");
+            alert.setType(NotificationType.NEW_ANNONCE_MATCH);
+            alert.setAnnonce(annonce);
+            alert.setSavedSearch(search);
+            alerts.add(alert);
+        }
+        return alerts;
+    }
+
+    private Annonce createAnnonce(User owner) {
+        Annonce annonce = new Annonce();
+        annonce.setTitre("Vélo de course");
+        annonce.setDescription("Vélo de course en bon état, taille M");
+        annonce.setEtatObjet(EtatObjet.BON_ETAT);
+        annonce.setZoneGeographique("Lyon");
+        annonce.setModeLivraison(ModeLivraison.MAIN_PROPRE);
+        annonce.setOwner(owner);
+        annonce.setActive(true);
+        return annonceRepository.save(annonce);
+    }
+
+    private SavedSearch createSavedSearch(User user, String name) {
+        SavedSearch search = new SavedSearch();
+        search.setName(name);
+        search.setUser(user);
+        search.setQuery("vélo");
+        return savedSearchRepository.save(search);
+    }
+}
@@ -0,0 +1,72 @@
+package com.dev.plateforme_de_dons.service;
+
+import com.dev.plateforme_de_dons.model.Notification;
+import com.dev.plateforme_de_dons.model.NotificationType;
+import com.dev.plateforme_de_dons.model.User;
+import com.dev.plateforme_de_dons.repository.NotificationRepository;
+import com.dev.plateforme_de_dons.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Banc d'essai : mvn test -Dtest=NotificationWriteBenchmarkTest -Dbenchmark=true
+@SpringBootTest
+@Transactional
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class NotificationWriteBenchmarkTest {
+
+    private static final int COUNT = 10_000;
+
+    @Autowired
+    private NotificationBatchWriter notificationBatchWriter;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void compareRepositorySaveWithBatchWriter() {
+        User user = userRepository.save(new User("benchuser", "benchuser@example.com", "password123"));
+
+        long start = System.nanoTime();
+        for (Notification notification : createNotifications(user)) {
+            notificationRepository.save(notification);
+        }
+        notificationRepository.flush();
+        long saveNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        int written = notificationBatchWriter.write(createNotifications(user));
+        long batchNanos = System.nanoTime() - start;
+
+        assertEquals(COUNT, written);
+        System.out.printf("notifications: %d | save(): %.0f/s | batch writer: %.0f/s%n",
+                COUNT, throughput(saveNanos), throughput(batchNanos));
+    }
+
+    private List<Notification> createNotifications(User user) {
+        List<Notification> notifications = new ArrayList<>(COUNT);
+        for (int i = 0; i < COUNT; i++) {
+            Notification notification = new Notification();
+            notification.setUser(user);
+            notification.setTitle("Nouvelle annonce correspondante");
+            notification.setMessage("L'annonce \"Vélo " + i + "\" correspond à votre recherche \"Vélos\"");
+            notification.setType(NotificationType.NEW_ANNONCE_MATCH);
+            notifications.add(notification);
+        }
+        return notifications;
+    }
+
+    private static double throughput(long nanos) {
+        return COUNT / (nanos / 1_000_000_000.0);
+    }
+}
@@ -0,0 +1,152 @@
+package com.dev.plateforme_de_dons.service;
+
+import com.dev.plateforme_de_dons.model.Annonce;
+import com.dev.plateforme_de_dons.model.EtatObjet;
+import com.dev.plateforme_de_dons.model.Keyword;
+import com.dev.plateforme_de_dons.model.ModeLivraison;
+import com.dev.plateforme_de_dons.model.SavedSearch;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SavedSearchMatcherTest {
+
+    private SavedSearchMatcher matcher;
+
+    @BeforeEach
+    void setUp() {
+        matcher = new SavedSearchMatcher();
+    }
+
+    @Test
+    void match_ShouldRequireAllQueryTermsWithLastAsPrefix() {
+        matcher.index(createSearch(1L, "chaise jard"));
+        matcher.index(createSearch(2L, "chaise cuisine"));
+        matcher.index(createSearch(3L, "CHAISES"));
+
+        assertEquals(List.of(1L, 3L), matcher.match(createAnnonce("Chaise de jardin", "Chaise pliante en métal")));
+    }
+
+    @Test
+    void match_ShouldApplyZoneEtatModeAndKeywords() {
+        SavedSearch byZone = createSearch(1L, null);
+        byZone.setZoneGeographique("clermont");
+        SavedSearch byEtat = createSearch(2L, null);
+        byEtat.setEtatObjet(EtatObjet.NEUF);
+        SavedSearch byMode = createSearch(3L, null);
+        byMode.setModeLivraison(ModeLivraison.ENVOI);
+        SavedSearch byKeywords = createSearch(4L, null);
+        byKeywords.setKeywords("jardin, Meubles");
+        SavedSearch otherZone = createSearch(5L, null);
+        otherZone.setZoneGeographique("Lyon");
+        List.of(byZone, byEtat, byMode, byKeywords, otherZone).forEach(matcher::index);
+
+        Annonce annonce = createAnnonce("Table basse", "Table en bois massif");
+        annonce.setZoneGeographique("Clermont-Ferrand");
+        annonce.setEtatObjet(EtatObjet.BON_ETAT);
+        annonce.setModeLivraison(ModeLivraison.ENVOI);
+        annonce.addKeyword(new Keyword("meubles"));
+
+        assertEquals(List.of(1L, 3L, 4L), matcher.match(annonce));
+    }
+
+    @Test
+    void match_ShouldMatchEverythingForEmptySearch() {
+        matcher.index(createSearch(1L, null));
+
+        assertEquals(List.of(1L), matcher.match(createAnnonce("Vélo enfant", "Vélo rouge")));
+    }
+
+    @Test
+    void match_ShouldIgnoreAnnoncesPublishedBeforeSearchCreation() {
+        SavedSearch search = createSearch(1L, "velo");
+        search.setCreatedAt(LocalDateTime.now());
+        matcher.index(search);
+
+        Annonce annonce = createAnnonce("Vélo enfant", "Vélo rouge");
+        annonce.setDatePublication(LocalDateTime.now().minusHours(1));
+
+        assertTrue(matcher.match(annonce).isEmpty());
+    }
+
+    @Test
+    void index_ShouldReplaceAndDropDisabledSearches() {
+        SavedSearch search = createSearch(1L, "lampe");
+        matcher.index(search);
+
+        search.setQuery("lustre");
+        matcher.index(search);
+
+        assertTrue(matcher.match(createAnnonce("Lampe de chevet", "Lampe ancienne")).isEmpty());
+        assertEquals(List.of(1L), matcher.match(createAnnonce("Lustre de salon", "Lustre en cristal")));
+
+        search.setNotificationsEnabled(false);
+        matcher.index(search);
+
+        assertEquals(0, matcher.size());
+        assertEquals(0, matcher.bucketCount());
+    }
+
+    @Test
+    void remove_ShouldStopMatching() {
+        matcher.index(createSearch(1L, "poussette"));
+
+        matcher.remove(1L);
+
+        assertTrue(matcher.match(createAnnonce("Poussette", "Poussette pliable")).isEmpty());
+    }
+
+    @Test
+    void index_ShouldWaitForCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            matcher.index(createSearch(1L, "poussette"));
+            assertEquals(0, matcher.size());
+
+            // Rollback : seuls les callbacks afterCompletion sont appelés
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+            assertEquals(0, matcher.size());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            matcher.index(createSearch(2L, "poussette"));
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertEquals(List.of(2L), matcher.match(createAnnonce("Poussette", "Poussette pliable")));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private SavedSearch createSearch(Long id, String query) {
+        SavedSearch search = new SavedSearch();
+        search.setId(id);
+        search.setName("Recherche " + id);
+        search.setQuery(query);
+        search.setNotificationsEnabled(true);
+        search.setCreatedAt(LocalDateTime.now().minusDays(1));
+        return search;
+    }
+
+    private Annonce createAnnonce(String titre, String description) {
+        Annonce annonce = new Annonce();
+        annonce.setId(100L);
+        annonce.setTitre(titre);
+        annonce.setDescription(description);
+        annonce.setZoneGeographique("Paris");
+        annonce.setEtatObjet(EtatObjet.BON_ETAT);
+        annonce.setModeLivraison(ModeLivraison.MAIN_PROPRE);
+        annonce.setDatePublication(LocalDateTime.now());
+        annonce.setActive(true);
+        return annonce;
+    }
+}
@@ -0,0 +1,94 @@
+package com.dev.plateforme_de_dons.service;
+
+import com.dev.plateforme_de_dons.dto.SavedSearchDto;
+import com.dev.plateforme_de_dons.model.*;
+import com.dev.plateforme_de_dons.repository.AlertCheckpointRepository;
+import com.dev.plateforme_de_dons.repository.AnnonceRepository;
+import com.dev.plateforme_de_dons.repository.NotificationRepository;
+import com.dev.plateforme_de_dons.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.transaction.AfterTransaction;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class SavedSearchServiceIntegrationTest {
+
+    @Autowired
+    private SavedSearchService savedSearchService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AnnonceRepository annonceRepository;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private AlertCheckpointRepository alertCheckpointRepository;
+
+    private User searcher;
+    private User owner;
+    private SavedSearch savedSearch;
+
+    @BeforeEach
+    void setUp() {
+        searcher = userRepository.save(new User("alertsearcher", "alertsearcher@example.com", "password123"));
+        owner = userRepository.save(new User("alertowner", "alertowner@example.com", "password123"));
+
+        SavedSearchDto dto = new SavedSearchDto();
+        dto.setName("Vélos");
+        dto.setQuery("velo");
+        dto.setNotificationsEnabled(true);
+        savedSearch = savedSearchService.saveSearch(dto, searcher);
+        // La transaction de test n'est jamais validée : le matcher est rechargé depuis la base
+        savedSearchService.rebuildMatcher();
+    }
+
+    @AfterTransaction
+    void restoreMatcher() {
+        savedSearchService.rebuildMatcher();
+    }
+
+    @Test
+    void notifyMatchingSearches_ShouldNotifyOncePerAnnonce() {
+        Annonce annonce = createAnnonce("Vélo de course");
+
+        assertEquals(1, savedSearchService.notifyMatchingSearches(annonce.getId()));
+        assertEquals(0, savedSearchService.notifyMatchingSearches(annonce.getId()));
+        assertEquals(1, notificationRepository.countByUserAndReadFalse(searcher));
+    }
+
+    @Test
+    void checkAndNotifyNewAnnonces_ShouldCatchUpFromCheckpointAndAdvanceIt() {
+        alertCheckpointRepository.save(new AlertCheckpoint("saved-search-alerts", savedSearch.getCreatedAt(), 0L));
+        Annonce matching = createAnnonce("Vélo pour enfant");
+        Annonce other = createAnnonce("Table de jardin");
+
+        savedSearchService.checkAndNotifyNewAnnonces();
+
+        assertEquals(1, notificationRepository.findByUserOrderByCreatedAtDesc(searcher, Pageable.unpaged()).getTotalElements());
+        AlertCheckpoint checkpoint = alertCheckpointRepository.findById("saved-search-alerts").orElseThrow();
+        assertEquals(Math.max(matching.getId(), other.getId()), checkpoint.getLastAnnonceId());
+    }
+
+    private Annonce createAnnonce(String titre) {
+        Annonce annonce = new Annonce();
+        annonce.setTitre(titre);
+        annonce.setDescription("Description de test pour " + titre);
+        annonce.setEtatObjet(EtatObjet.BON_ETAT);
+        annonce.setZoneGeographique("Paris");
+        annonce.setModeLivraison(ModeLivraison.MAIN_PROPRE);
+        annonce.setOwner(owner);
+        annonce.setActive(true);
+        return annonceRepository.saveAndFlush(annonce);
+    }
+}
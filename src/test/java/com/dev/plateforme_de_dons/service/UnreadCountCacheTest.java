@@ -0,0 +1,76 @@
+package com.dev.plateforme_de_dons.service;
+
+import com.dev.plateforme_de_dons.repository.MessageRepository;
+import com.dev.plateforme_de_dons.repository.NotificationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UnreadCountCacheTest {
+
+    @Mock
+    private MessageRepository messageRepository;
+
+    @Mock
+    private NotificationRepository notificationRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private UnreadCountCache cache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new UnreadCountCache(messageRepository, notificationRepository, meterRegistry, 100, 60_000);
+    }
+
+    @Test
+    void get_ShouldSeedFromDatabaseOnceThenServeFromMemory() {
+        when(messageRepository.countByReceiverIdAndReadFalse(1L)).thenReturn(2L);
+        when(notificationRepository.countByUserIdAndReadFalse(1L)).thenReturn(5L);
+
+        assertEquals(2, cache.getUnreadMessages(1L));
+        assertEquals(5, cache.getUnreadNotifications(1L));
+        assertEquals(2, cache.getUnreadMessages(1L));
+
+        verify(messageRepository, times(1)).countByReceiverIdAndReadFalse(1L);
+        verify(notificationRepository, times(1)).countByUserIdAndReadFalse(1L);
+        assertEquals(1, cache.stats().missCount());
+        assertEquals(2, cache.stats().hitCount());
+        assertEquals(2.0, meterRegistry.get("cache.gets").tag("cache", "unreadCounts").tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    @Test
+    void add_ShouldApplyDeltasWithoutGoingBelowZero() {
+        when(messageRepository.countByReceiverIdAndReadFalse(1L)).thenReturn(1L);
+        when(notificationRepository.countByUserIdAndReadFalse(1L)).thenReturn(3L);
+        cache.getUnreadMessages(1L);
+
+        cache.addMessages(1L, 2);
+        cache.addNotifications(1L, -5);
+
+        assertEquals(3, cache.getUnreadMessages(1L));
+        assertEquals(0, cache.getUnreadNotifications(1L));
+
+        cache.addNotifications(1L, 4);
+        cache.clearNotifications(1L);
+
+        assertEquals(0, cache.getUnreadNotifications(1L));
+    }
+
+    @Test
+    void add_ShouldIgnoreUsersNotYetCached() {
+        cache.addMessages(7L, 1);
+        cache.clearNotifications(7L);
+
+        verifyNoInteractions(messageRepository, notificationRepository);
+        assertEquals(0, cache.stats().requestCount());
+    }
+}
@@ -0,0 +1,81 @@
+package com.dev.plateforme_de_dons.service;
+
+import com.dev.plateforme_de_dons.model.User;
+import com.dev.plateforme_de_dons.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserCacheTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private UserCache cache;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new UserCache(userRepository, meterRegistry, 100, 60_000);
+        user = new User("alice", "alice@example.com", "hash");
+        user.setId(1L);
+    }
+
+    @Test
+    void get_ShouldReadDatabaseOnceThenServeFromMemory() {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+
+        assertSame(user, cache.get(1L).orElseThrow());
+        assertSame(user, cache.get(1L).orElseThrow());
+
+        verify(userRepository, times(1)).findById(1L);
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "users").tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    @Test
+    void get_ShouldNotCacheMissingUser() {
+        when(userRepository.findById(2L)).thenReturn(Optional.empty());
+
+        assertTrue(cache.get(2L).isEmpty());
+        assertTrue(cache.get(2L).isEmpty());
+
+        verify(userRepository, times(2)).findById(2L);
+    }
+
+    @Test
+    void getByUsername_ShouldShareEntryWithLookupsById() {
+        when(userRepository.findByUsername("alice")).thenReturn(Optional.of(user));
+
+        assertSame(user, cache.getByUsername("alice").orElseThrow());
+        assertSame(user, cache.get(1L).orElseThrow());
+
+        verify(userRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    void evict_ShouldForceReload() {
+        User updated = new User("alice", "alice@example.org", "hash");
+        updated.setId(1L);
+        when(userRepository.findById(1L))
+                .thenReturn(Optional.of(user))
+                .thenReturn(Optional.of(updated));
+
+        cache.get(1L);
+        cache.evict(1L);
+
+        assertEquals("alice@example.org", cache.get(1L).orElseThrow().getEmail());
+        verify(userRepository, times(2)).findById(1L);
+    }
+}
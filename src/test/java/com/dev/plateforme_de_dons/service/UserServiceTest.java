@@ -26,6 +26,9 @@ class UserServiceTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private UserCache userCache;
+
     @InjectMocks
     private UserService userService;
 
@@ -115,4 +118,17 @@ class UserServiceTest {
 
         assertFalse(result.isPresent());
     }
+
+    @Test
+    void updatePassword_ShouldEncodeAndEvictCachedUser() {
+        User user = new User("testuser", "test@example.com", "oldHash");
+        user.setId(1L);
+        when(passwordEncoder.encode("newPassword")).thenReturn("newHash");
+
+        userService.updatePassword(user, "newPassword");
+
+        assertEquals("newHash", user.getPassword());
+        verify(userRepository).save(user);
+        verify(userCache).evict(1L);
+    }
 }